@@ -76,6 +76,48 @@ public class ContemporaneousConstraint {
         return builder.build();
     }
 
+    /**
+     * Expands a list of constraints with wild cards. The input is indexed
+     * once, so that the cost of the expansion of a component depends on the
+     * number of names that share its literal prefix or suffix (and not on the
+     * size of the input)
+     *
+     * @param constraints
+     * @param input
+     * @return The expanded constraints, in the same order
+     */
+    public static List<ContemporaneousConstraint> expand(List<ContemporaneousConstraint> constraints, Collection<String> input) {
+        List<ContemporaneousConstraint> rslt = new ArrayList<>(constraints.size());
+        WildCardsIndex index = null;
+        for (ContemporaneousConstraint cnt : constraints) {
+            if (!cnt.hasWildCards()) {
+                rslt.add(cnt);
+                continue;
+            }
+            if (index == null) {
+                index = new WildCardsIndex(input);
+            }
+            Builder builder = builder()
+                    .constant(cnt.constant)
+                    .constraint(cnt.constraint);
+            for (WeightedItem<String> ws : cnt.components) {
+                double w = ws.getWeight();
+                if (ws.getItem().contains("*") || ws.getItem().contains("?")) {
+                    for (int pos : index.match(ws.getItem())) {
+                        String i = index.get(pos);
+                        if (!i.equals(cnt.constraint)) {
+                            builder.component(new WeightedItem<>(i, w));
+                        }
+                    }
+                } else {
+                    builder.component(ws);
+                }
+            }
+            rslt.add(builder.build());
+        }
+        return rslt;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -21,6 +21,7 @@ import nbbrd.design.Development;
 import nbbrd.service.ServiceDefinition;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import nbbrd.service.Mutability;
 import nbbrd.service.Quantifier;
 
@@ -46,6 +47,20 @@ public class MultivariateCholette {
         return PROCESSOR.get().benchmark(input, spec);
     }
 
+    /**
+     * Multivariate benchmarking. The independent problems (series with only
+     * temporal constraints, independent blocks of contemporaneous constraints)
+     * are processed in parallel in the given pool
+     *
+     * @param input
+     * @param spec
+     * @param pool The pool used for the parallel processing
+     * @return
+     */
+    public Map<String, TsData> benchmark(Map<String, TsData> input, MultivariateCholetteSpec spec, ForkJoinPool pool) {
+        return PROCESSOR.get().benchmark(input, spec, pool);
+    }
+
     @Algorithm
     @ServiceDefinition(quantifier = Quantifier.SINGLE, mutability = Mutability.CONCURRENT, noFallback = true)
     @FunctionalInterface
@@ -59,5 +74,18 @@ public class MultivariateCholette {
          */
         Map<String, TsData> benchmark(Map<String, TsData> dictionary, MultivariateCholetteSpec spec);
 
+        /**
+         * Multivariate benchmarking in a given pool. By default, the pool is
+         * not used
+         *
+         * @param dictionary
+         * @param spec
+         * @param pool
+         * @return
+         */
+        default Map<String, TsData> benchmark(Map<String, TsData> dictionary, MultivariateCholetteSpec spec, ForkJoinPool pool) {
+            return benchmark(dictionary, spec);
+        }
+
     }
 }
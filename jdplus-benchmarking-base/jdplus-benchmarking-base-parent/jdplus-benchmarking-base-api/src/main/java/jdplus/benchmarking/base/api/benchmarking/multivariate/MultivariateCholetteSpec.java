@@ -31,6 +31,17 @@ import jdplus.toolkit.base.api.util.Validatable;
 @lombok.Builder(toBuilder=true, buildMethodName="buildWithoutValidation")
 public class MultivariateCholetteSpec implements ProcSpecification, Validatable<MultivariateCholetteSpec>{
 
+    /**
+     * Solver used for the smoothing. Ssf uses the (multivariate) state space
+     * form of the model; Sparse solves the corresponding constrained least
+     * squares problem with a sparse direct method. The results are identical
+     * (up to rounding errors). The state space form is used when the sparse
+     * solver fails
+     */
+    public static enum Solver {
+        Ssf, Sparse
+    }
+
     public static final AlgorithmDescriptor ALGORITHM = new AlgorithmDescriptor("benchmarking", "multivariatecholette", null);
 
     public static double DEF_LAMBDA = 1, DEF_RHO = 1;
@@ -43,6 +54,17 @@ public class MultivariateCholetteSpec implements ProcSpecification, Validatable<
     @lombok.NonNull
     @lombok.Singular
     private List<TemporalConstraint> temporalConstraints;
+    @lombok.NonNull
+    private Solver solver;
+    /**
+     * Hierarchical (top-down) reconciliation. The binding series of a
+     * constraint may be used in the definitions of other constraints. The
+     * constraints are benchmarked level by level, starting with the top of
+     * the hierarchy: the series of a level are benchmarked (contemporaneous
+     * and temporal constraints) on the results of the previous level. The
+     * independent problems of a level are processed in parallel
+     */
+    private boolean hierarchical;
 
     @Override
     public AlgorithmDescriptor getAlgorithmDescriptor() {
@@ -63,7 +85,8 @@ public class MultivariateCholetteSpec implements ProcSpecification, Validatable<
         
         return new Builder()
                 .lambda(DEF_LAMBDA)
-                .rho(DEF_RHO);
+                .rho(DEF_RHO)
+                .solver(Solver.Ssf);
     }
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.api.benchmarking.multivariate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import jdplus.toolkit.base.api.util.WildCards;
+
+/**
+ * Index of names for the matching of wild cards.
+ *
+ * The names are sorted on their prefixes and on their (reversed) suffixes.
+ * The candidates of a pattern are the names that share its literal prefix (the
+ * characters before the first wild card) or its literal suffix (the characters
+ * after the last wild card), whichever range is the smallest. Only the
+ * candidates are tested with WildCards. The results of a pattern are cached.
+ *
+ * @author Jean Palate
+ */
+final class WildCardsIndex {
+
+    private final String[] names;
+    // positions of the names, sorted on the names (resp. on the reversed names)
+    private final int[] byPrefix, bySuffix;
+    private final String[] sortedNames, sortedReversedNames;
+    private final Map<String, int[]> cache = new HashMap<>();
+
+    WildCardsIndex(Collection<String> input) {
+        names = input.toArray(String[]::new);
+        int n = names.length;
+        String[] reversed = new String[n];
+        for (int i = 0; i < n; ++i) {
+            reversed[i] = new StringBuilder(names[i]).reverse().toString();
+        }
+        byPrefix = sort(names);
+        bySuffix = sort(reversed);
+        sortedNames = new String[n];
+        sortedReversedNames = new String[n];
+        for (int i = 0; i < n; ++i) {
+            sortedNames[i] = names[byPrefix[i]];
+            sortedReversedNames[i] = reversed[bySuffix[i]];
+        }
+    }
+
+    String get(int pos) {
+        return names[pos];
+    }
+
+    /**
+     * Names matching a pattern
+     *
+     * @param pattern
+     * @return The positions of the matching names (in the order of the input)
+     */
+    int[] match(String pattern) {
+        return cache.computeIfAbsent(pattern, this::search);
+    }
+
+    private int[] search(String pattern) {
+        int first = firstWildCard(pattern), last = lastWildCard(pattern);
+        if (first < 0) {
+            for (int i = 0; i < names.length; ++i) {
+                if (names[i].equals(pattern)) {
+                    return new int[]{i};
+                }
+            }
+            return new int[0];
+        }
+        String prefix = pattern.substring(0, first);
+        String suffix = new StringBuilder(pattern.substring(last + 1)).reverse().toString();
+        int p0 = lowerBound(sortedNames, prefix), p1 = upperBound(sortedNames, prefix, p0);
+        int s0 = lowerBound(sortedReversedNames, suffix), s1 = upperBound(sortedReversedNames, suffix, s0);
+        int[] candidates;
+        if (p1 - p0 <= s1 - s0) {
+            candidates = Arrays.copyOfRange(byPrefix, p0, p1);
+        } else {
+            candidates = Arrays.copyOfRange(bySuffix, s0, s1);
+        }
+        WildCards wc = new WildCards(pattern);
+        int n = 0;
+        for (int i = 0; i < candidates.length; ++i) {
+            if (wc.match(names[candidates[i]])) {
+                candidates[n++] = candidates[i];
+            }
+        }
+        int[] rslt = Arrays.copyOf(candidates, n);
+        Arrays.sort(rslt);
+        return rslt;
+    }
+
+    private static int firstWildCard(String pattern) {
+        for (int i = 0; i < pattern.length(); ++i) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastWildCard(String pattern) {
+        for (int i = pattern.length() - 1; i >= 0; --i) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] sort(String[] s) {
+        return java.util.stream.IntStream.range(0, s.length)
+                .boxed()
+                .sorted((i, j) -> s[i].compareTo(s[j]))
+                .mapToInt(i -> i)
+                .toArray();
+    }
+
+    /**
+     * First position of the sorted strings greater or equal to key
+     */
+    private static int lowerBound(String[] sorted, String key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * End of the range of the sorted strings starting with prefix
+     */
+    private static int upperBound(String[] sorted, String prefix, int from) {
+        int lo = from, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].startsWith(prefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -16,6 +16,9 @@
  */
 package jdplus.benchmarking.base.api.benchmarking.univariate;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import jdplus.toolkit.base.api.design.Algorithm;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import nbbrd.design.Development;
@@ -45,12 +48,59 @@ public class Cholette {
         return PROCESSOR.get().benchmark(source, target, spec);
     }
 
+    /**
+     * Benchmarks a set of series with the same specification, in the common
+     * fork-join pool.
+     *
+     * @param source The high-frequency series
+     * @param target The corresponding aggregation constraints
+     * @param spec The common specification
+     * @return The benchmarked series, in the same order as the inputs
+     */
+    public List<TsData> benchmark(List<TsData> source, List<TsData> target, CholetteSpec spec) {
+        return PROCESSOR.get().benchmark(source, target, spec, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Benchmarks a set of series with the same specification. The series are
+     * processed in parallel and the series that share the same structure
+     * (frequencies, lengths and positions of the constraints) are processed
+     * together when possible.
+     *
+     * @param source The high-frequency series
+     * @param target The corresponding aggregation constraints
+     * @param spec The common specification
+     * @param pool The pool used for the parallel processing
+     * @return The benchmarked series, in the same order as the inputs
+     */
+    public List<TsData> benchmark(List<TsData> source, List<TsData> target, CholetteSpec spec, ForkJoinPool pool) {
+        return PROCESSOR.get().benchmark(source, target, spec, pool);
+    }
+
     @Algorithm
     @ServiceDefinition(quantifier = Quantifier.SINGLE, mutability = Mutability.CONCURRENT, noFallback = true)
     @FunctionalInterface
     public static interface Processor {
 
         TsData benchmark(TsData source, TsData target, CholetteSpec spec);
+
+        /**
+         * Batch benchmarking. By default, the series are benchmarked one by
+         * one, in the current thread (the pool is not used)
+         *
+         * @param source
+         * @param target
+         * @param spec
+         * @param pool
+         * @return
+         */
+        default List<TsData> benchmark(List<TsData> source, List<TsData> target, CholetteSpec spec, ForkJoinPool pool) {
+            List<TsData> rslts = new ArrayList<>(source.size());
+            for (int i = 0; i < source.size(); ++i) {
+                rslts.add(benchmark(source.get(i), target.get(i), spec));
+            }
+            return rslts;
+        }
     }
 
 }
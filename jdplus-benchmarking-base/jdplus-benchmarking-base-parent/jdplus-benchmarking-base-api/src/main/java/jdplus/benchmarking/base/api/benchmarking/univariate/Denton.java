@@ -16,6 +16,8 @@
  */
 package jdplus.benchmarking.base.api.benchmarking.univariate;
 
+import java.util.ArrayList;
+import java.util.List;
 import jdplus.toolkit.base.api.timeseries.TsUnit;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import jdplus.toolkit.base.api.design.Algorithm;
@@ -50,6 +52,20 @@ public class Denton {
         return PROCESSOR.get().benchmark(highFreq, aggregationConstraint, spec);
     }
 
+    /**
+     * Benchmarks a set of series with the same specification. The series
+     * that share the same structure (frequencies, lengths and relative
+     * positions of the constraints) are processed together.
+     *
+     * @param highFreqSeries The high-frequency series
+     * @param aggregationConstraints The corresponding aggregation constraints
+     * @param spec The common specification
+     * @return The benchmarked series, in the same order as the inputs
+     */
+    public List<TsData> benchmark(List<TsData> highFreqSeries, List<TsData> aggregationConstraints, DentonSpec spec) {
+        return PROCESSOR.get().benchmark(highFreqSeries, aggregationConstraints, spec);
+    }
+
     @Algorithm
     @ServiceDefinition(quantifier = Quantifier.SINGLE, mutability = Mutability.CONCURRENT, noFallback = true)
     public interface Processor {
@@ -57,6 +73,24 @@ public class Denton {
         TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, DentonSpec spec);
 
         TsData benchmark(TsUnit highFreq, TsData aggregationConstraint, DentonSpec spec);
+
+        /**
+         * Batch benchmarking. By default, the series are benchmarked one by
+         * one
+         *
+         * @param highFreqSeries The high-frequency series
+         * @param aggregationConstraints The corresponding aggregation
+         * constraints
+         * @param spec The common specification
+         * @return The benchmarked series, in the same order as the inputs
+         */
+        default List<TsData> benchmark(List<TsData> highFreqSeries, List<TsData> aggregationConstraints, DentonSpec spec) {
+            List<TsData> rslts = new ArrayList<>(highFreqSeries.size());
+            for (int i = 0; i < highFreqSeries.size(); ++i) {
+                rslts.add(benchmark(highFreqSeries.get(i), aggregationConstraints.get(i), spec));
+            }
+            return rslts;
+        }
     }
 
 }
@@ -31,6 +31,18 @@ import jdplus.toolkit.base.api.util.Validatable;
 @lombok.Builder(toBuilder=true, buildMethodName="buildWithoutValidation")
 public class DentonSpec implements ProcSpecification, Validatable<DentonSpec> {
 
+    /**
+     * Solver used for the constrained least squares problem. The results are
+     * identical (up to rounding errors). Automatic uses the banded solver for
+     * large problems and for additive problems, whose factorization is cached;
+     * it falls back to the dense solver when the banded system can't be solved
+     * (invalid constraints, numerically singular system). With Banded, such a
+     * failure raises an exception
+     */
+    public static enum Solver {
+        Automatic, Dense, Banded
+    }
+
     public static final AlgorithmDescriptor DESCRIPTOR = new AlgorithmDescriptor("benchmarking", "denton", null);
 
     private boolean multiplicative, modified;
@@ -40,6 +52,8 @@ public class DentonSpec implements ProcSpecification, Validatable<DentonSpec> {
     private int observationPosition;
     
     private int defaultPeriod;
+    @lombok.NonNull
+    private Solver solver;
 
     public static Builder builder() {
         return new Builder()
@@ -48,7 +62,8 @@ public class DentonSpec implements ProcSpecification, Validatable<DentonSpec> {
                 .differencing(1)
                 .aggregationType(AggregationType.Sum)
                 .observationPosition(0)
-                .defaultPeriod(12);
+                .defaultPeriod(12)
+                .solver(Solver.Automatic);
     }
 
     @Override
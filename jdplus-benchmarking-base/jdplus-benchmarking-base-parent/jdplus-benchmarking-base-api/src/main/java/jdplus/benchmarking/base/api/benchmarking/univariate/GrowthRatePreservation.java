@@ -45,11 +45,42 @@ public class GrowthRatePreservation {
         return PROCESSOR.get().benchmark(highFreqSeries, aggregationConstraint, spec);
     }
 
+    /**
+     * Benchmarking with a warm start. The optimization is initialized with a
+     * previous solution (typically the result of the benchmarking of a
+     * previous vintage of the data), adjusted to the current constraints.
+     * Periods not covered by the previous solution are extrapolated with the
+     * growth rates of the high-frequency series.
+     *
+     * @param highFreqSeries
+     * @param aggregationConstraint
+     * @param spec
+     * @param previousSolution Previous benchmarked series
+     * @return
+     */
+    public TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, GrpSpec spec, TsData previousSolution) {
+        return PROCESSOR.get().benchmark(highFreqSeries, aggregationConstraint, spec, previousSolution);
+    }
+
     @Algorithm
     @ServiceDefinition(quantifier = Quantifier.SINGLE, mutability = Mutability.CONCURRENT, noFallback = true)
     public interface Processor {
 
         TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, GrpSpec spec);
+
+        /**
+         * Benchmarking with a warm start. By default, the previous solution is
+         * ignored
+         *
+         * @param highFreqSeries
+         * @param aggregationConstraint
+         * @param spec
+         * @param previousSolution
+         * @return
+         */
+        default TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, GrpSpec spec, TsData previousSolution) {
+            return benchmark(highFreqSeries, aggregationConstraint, spec);
+        }
     }
 
 }
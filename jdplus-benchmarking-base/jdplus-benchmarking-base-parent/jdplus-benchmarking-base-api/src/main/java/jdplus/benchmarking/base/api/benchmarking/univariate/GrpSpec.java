@@ -35,6 +35,15 @@ public class GrpSpec implements ProcSpecification, Validatable<GrpSpec> {
         Forward, Backward, Symmetric, Log
     }
 
+    /**
+     * Optimization method. Newton is a trust-region Newton method that uses
+     * the exact (banded) hessian of the problem; it usually needs a few
+     * iterations, each of them being linear in the length of the series
+     */
+    public static enum Optimizer{
+        Bfgs, Newton
+    }
+
     public static final AlgorithmDescriptor ALGORITHM = new AlgorithmDescriptor("benchmarking", "grp", null);
 
     private Objective objective;
@@ -44,6 +53,8 @@ public class GrpSpec implements ProcSpecification, Validatable<GrpSpec> {
     private boolean dentonInitialization;
     private int maxIter;
     private double precision;
+    @lombok.NonNull
+    private Optimizer optimizer;
 
     public static Builder builder() {
         return new Builder()
@@ -52,6 +63,7 @@ public class GrpSpec implements ProcSpecification, Validatable<GrpSpec> {
                 .observationPosition(0)
                 .maxIter(500)
                 .precision(1e-12)
+                .optimizer(Optimizer.Bfgs)
                 .dentonInitialization(true);
 
     }
@@ -49,6 +49,21 @@ public class RawDenton {
         return PROCESSOR.get().benchmark(aggregationConstraint, spec);
     }
 
+    /**
+     * Benchmarks a set of series with the same specification. The series
+     * that share the same structure (lengths and start offsets) are processed
+     * together.
+     *
+     * @param highFreqSeries The high-frequency series
+     * @param aggregationConstraints The corresponding aggregation constraints
+     * @param startOffsets The start offsets of the high-frequency series
+     * @param spec The common specification
+     * @return The benchmarked series, in the same order as the inputs
+     */
+    public double[][] benchmark(double[][] highFreqSeries, double[][] aggregationConstraints, int[] startOffsets, RawDentonSpec spec) {
+        return PROCESSOR.get().benchmark(highFreqSeries, aggregationConstraints, startOffsets, spec);
+    }
+
     @Algorithm
     @ServiceDefinition(quantifier = Quantifier.SINGLE, mutability = Mutability.CONCURRENT, noFallback = true)
     public interface Processor {
@@ -56,6 +71,25 @@ public class RawDenton {
         double[] benchmark(DoubleSeq highFreqSeries, DoubleSeq aggregationConstraint, int startOffset, RawDentonSpec spec);
 
         double[] benchmark(DoubleSeq aggregationConstraint, RawDentonSpec spec);
+
+        /**
+         * Batch benchmarking. By default, the series are benchmarked one by
+         * one
+         *
+         * @param highFreqSeries The high-frequency series
+         * @param aggregationConstraints The corresponding aggregation
+         * constraints
+         * @param startOffsets The start offsets of the high-frequency series
+         * @param spec The common specification
+         * @return The benchmarked series, in the same order as the inputs
+         */
+        default double[][] benchmark(double[][] highFreqSeries, double[][] aggregationConstraints, int[] startOffsets, RawDentonSpec spec) {
+            double[][] rslts = new double[highFreqSeries.length][];
+            for (int i = 0; i < rslts.length; ++i) {
+                rslts[i] = benchmark(DoubleSeq.of(highFreqSeries[i]), DoubleSeq.of(aggregationConstraints[i]), startOffsets[i], spec);
+            }
+            return rslts;
+        }
     }
 
 }
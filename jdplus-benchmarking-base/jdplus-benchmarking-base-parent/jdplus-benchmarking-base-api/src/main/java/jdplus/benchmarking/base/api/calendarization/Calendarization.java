@@ -16,6 +16,9 @@
  */
 package jdplus.benchmarking.base.api.calendarization;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import jdplus.toolkit.base.api.design.Algorithm;
 import nbbrd.design.Development;
 import nbbrd.service.ServiceDefinition;
@@ -45,6 +48,31 @@ public class Calendarization {
         return PROCESSOR.get().process(data, spec);
     }
 
+    /**
+     * Calendarizes a panel of series with the same specification, in the
+     * common fork-join pool.
+     *
+     * @param data The series
+     * @param spec The common specification
+     * @return The results, stored by columns (same order as the series)
+     */
+    public CalendarizationPanelResults process(List<CalendarTimeSeries> data, CalendarizationSpec spec) {
+        return PROCESSOR.get().process(data, spec, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calendarizes a panel of series with the same specification. The series
+     * are processed in parallel.
+     *
+     * @param data The series
+     * @param spec The common specification
+     * @param pool The pool used for the parallel processing
+     * @return The results, stored by columns (same order as the series)
+     */
+    public CalendarizationPanelResults process(List<CalendarTimeSeries> data, CalendarizationSpec spec, ForkJoinPool pool) {
+        return PROCESSOR.get().process(data, spec, pool);
+    }
+
     @Algorithm
     @ServiceDefinition(quantifier = Quantifier.SINGLE, mutability = Mutability.CONCURRENT, noFallback = true)
     @FunctionalInterface
@@ -57,5 +85,22 @@ public class Calendarization {
          * @return
          */
         CalendarizationResults process(CalendarTimeSeries data, CalendarizationSpec spec);
+
+        /**
+         * Calendarization of a panel of series. By default, the series are
+         * processed one by one, in the current thread (the pool is not used)
+         *
+         * @param data
+         * @param spec
+         * @param pool
+         * @return
+         */
+        default CalendarizationPanelResults process(List<CalendarTimeSeries> data, CalendarizationSpec spec, ForkJoinPool pool) {
+            List<CalendarizationResults> rslts = new ArrayList<>(data.size());
+            for (CalendarTimeSeries cur : data) {
+                rslts.add(process(cur, spec));
+            }
+            return CalendarizationPanelResults.of(rslts);
+        }
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.api.calendarization;
+
+import java.time.LocalDate;
+import java.util.List;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.timeseries.TsPeriod;
+import nbbrd.design.Development;
+
+/**
+ * Results of the calendarization of a panel of series, stored by columns.
+ *
+ * The results of the different series are concatenated in a few arrays. The
+ * results of the series i are in the range [offsets[i], offsets[i+1]) of the
+ * corresponding arrays. The arrays of the standard deviations (resp. of the
+ * aggregated series, of the daily data) are null when they are not computed
+ * (see CalendarizationSpec.Output).
+ *
+ * @author Jean Palate
+ */
+@Development(status = Development.Status.Preliminary)
+@lombok.Value
+@lombok.Builder
+public class CalendarizationPanelResults {
+
+    /**
+     * Starts of the daily results (one by series)
+     */
+    private LocalDate[] starts;
+    /**
+     * Offsets of the daily results (number of series + 1)
+     */
+    private int[] dailyOffsets;
+    private double[] dailyData, dailyStdev;
+    /**
+     * Starts of the aggregated series (one by series)
+     */
+    private TsPeriod[] aggregationStarts;
+    /**
+     * Offsets of the aggregated series (number of series + 1)
+     */
+    private int[] aggregationOffsets;
+    private double[] aggregatedData, stdevAggregatedData;
+
+    /**
+     * Panel of the results of the calendarization of different series
+     *
+     * @param rslts The results of the different series
+     * @return
+     */
+    public static CalendarizationPanelResults of(List<CalendarizationResults> rslts) {
+        int m = rslts.size();
+        LocalDate[] starts = new LocalDate[m];
+        TsPeriod[] astarts = new TsPeriod[m];
+        int[] offsets = new int[m + 1], aoffsets = new int[m + 1];
+        boolean days = true, edays = true, agg = true, eagg = true;
+        for (int i = 0; i < m; ++i) {
+            CalendarizationResults cur = rslts.get(i);
+            starts[i] = cur.getStart();
+            double[] d = cur.getDailyData();
+            offsets[i + 1] = offsets[i] + (d == null ? 0 : d.length);
+            days &= d != null;
+            edays &= cur.getDailyStdev() != null;
+            TsData a = cur.getAggregatedSeries();
+            if (a != null) {
+                astarts[i] = a.getStart();
+                aoffsets[i + 1] = aoffsets[i] + a.length();
+            } else {
+                aoffsets[i + 1] = aoffsets[i];
+                agg = false;
+            }
+            eagg &= cur.getStdevAggregatedSeries() != null;
+        }
+        double[] sdays = days ? new double[offsets[m]] : null, esdays = edays ? new double[offsets[m]] : null;
+        double[] aggts = agg ? new double[aoffsets[m]] : null, eaggts = eagg ? new double[aoffsets[m]] : null;
+        for (int i = 0; i < m; ++i) {
+            CalendarizationResults cur = rslts.get(i);
+            if (days) {
+                System.arraycopy(cur.getDailyData(), 0, sdays, offsets[i], offsets[i + 1] - offsets[i]);
+            }
+            if (edays) {
+                System.arraycopy(cur.getDailyStdev(), 0, esdays, offsets[i], offsets[i + 1] - offsets[i]);
+            }
+            if (agg) {
+                cur.getAggregatedSeries().getValues().copyTo(aggts, aoffsets[i]);
+            }
+            if (eagg) {
+                cur.getStdevAggregatedSeries().getValues().copyTo(eaggts, aoffsets[i]);
+            }
+        }
+        return builder()
+                .starts(starts)
+                .dailyOffsets(offsets)
+                .dailyData(sdays)
+                .dailyStdev(esdays)
+                .aggregationStarts(agg ? astarts : null)
+                .aggregationOffsets(agg ? aoffsets : null)
+                .aggregatedData(aggts)
+                .stdevAggregatedData(eaggts)
+                .build();
+    }
+
+    /**
+     * Number of series
+     *
+     * @return
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    public DoubleSeq dailyData(int i) {
+        return range(dailyData, dailyOffsets, i);
+    }
+
+    public DoubleSeq dailyStdev(int i) {
+        return range(dailyStdev, dailyOffsets, i);
+    }
+
+    public TsData aggregatedSeries(int i) {
+        DoubleSeq data = range(aggregatedData, aggregationOffsets, i);
+        return data == null ? null : TsData.of(aggregationStarts[i], data);
+    }
+
+    public TsData stdevAggregatedSeries(int i) {
+        DoubleSeq data = range(stdevAggregatedData, aggregationOffsets, i);
+        return data == null ? null : TsData.of(aggregationStarts[i], data);
+    }
+
+    /**
+     * Results of a given series, in the usual form
+     *
+     * @param i The position of the series
+     * @return
+     */
+    public CalendarizationResults get(int i) {
+        DoubleSeq d = dailyData(i), e = dailyStdev(i);
+        return CalendarizationResults.builder()
+                .start(starts[i])
+                .dailyData(d == null ? null : d.toArray())
+                .dailyStdev(e == null ? null : e.toArray())
+                .aggregatedSeries(aggregatedSeries(i))
+                .stdevAggregatedSeries(stdevAggregatedSeries(i))
+                .build();
+    }
+
+    private static DoubleSeq range(double[] data, int[] offsets, int i) {
+        if (data == null) {
+            return null;
+        }
+        return DoubleSeq.of(data).range(offsets[i], offsets[i + 1]);
+    }
+}
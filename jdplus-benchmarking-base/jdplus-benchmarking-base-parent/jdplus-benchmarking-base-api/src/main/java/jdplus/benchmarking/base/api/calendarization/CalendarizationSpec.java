@@ -36,6 +36,18 @@ public class CalendarizationSpec implements ProcSpecification, Validatable<Calen
     public static final String FAMILY = "Benchmarking";
     public static final AlgorithmDescriptor DESCRIPTOR = new AlgorithmDescriptor(FAMILY, "Calendarization", null);
 
+    public static enum Output {
+        /**
+         * Daily data and aggregated series (if an aggregation unit is
+         * defined)
+         */
+        All,
+        /**
+         * Aggregated series only. The daily data are not retained
+         */
+        Aggregated
+    };
+
     /**
      * Weights of each week day, starting from Monday
      */
@@ -58,6 +70,11 @@ public class CalendarizationSpec implements ProcSpecification, Validatable<Calen
      */
     private LocalDate end;
 
+    /**
+     * Selection of the results
+     */
+    private Output output;
+
     @Override
     public AlgorithmDescriptor getAlgorithmDescriptor() {
         return DESCRIPTOR;
@@ -68,6 +85,9 @@ public class CalendarizationSpec implements ProcSpecification, Validatable<Calen
         if (start != null && end != null && !start.isBefore(end)) {
             throw new IllegalArgumentException("Invalide span");
         }
+        if (output == Output.Aggregated && aggregationUnit == TsUnit.UNDEFINED) {
+            throw new IllegalArgumentException("Aggregated output requires an aggregation unit");
+        }
         return this;
     }
 
@@ -78,7 +98,8 @@ public class CalendarizationSpec implements ProcSpecification, Validatable<Calen
     public static Builder builder() {
         return new Builder()
                 .stdev(true)
-                .aggregationUnit(TsUnit.UNDEFINED);
+                .aggregationUnit(TsUnit.UNDEFINED)
+                .output(Output.All);
     }
 
 }
@@ -19,7 +19,9 @@ package jdplus.benchmarking.base.api.multivariate;
 import jdplus.benchmarking.base.api.benchmarking.multivariate.ContemporaneousConstraint;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,5 +40,29 @@ public class ContemporaneousConstraintTest {
         cnt=cnt.expand(Arrays.asList("s1", "s2", "s11", "y", "a"));
         assertEquals(cnt.getComponents().size(),3);
     }
+
+    @Test
+    public void testExpandAll() {
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            input.add("T_" + i);
+            for (char c = 'A'; c <= 'D'; ++c) {
+                input.add("R_" + i + "_" + c);
+            }
+        }
+        List<ContemporaneousConstraint> cnts = List.of(
+                ContemporaneousConstraint.parse("T_1=R_1_*"),
+                ContemporaneousConstraint.parse("T_2=R_2_A+R_2_B"),
+                ContemporaneousConstraint.parse("T_3=R_3?_?-2*R_*_D"),
+                ContemporaneousConstraint.parse("0=T_*-R_4_?"));
+        List<ContemporaneousConstraint> all = ContemporaneousConstraint.expand(cnts, input);
+        assertEquals(cnts.size(), all.size());
+        for (int i = 0; i < cnts.size(); ++i) {
+            ContemporaneousConstraint cnt = cnts.get(i);
+            assertEquals(cnt.hasWildCards() ? cnt.expand(input) : cnt, all.get(i));
+        }
+        assertEquals(4, all.get(0).getComponents().size());
+        assertEquals(90, all.get(2).getComponents().size());
+    }
     
 }
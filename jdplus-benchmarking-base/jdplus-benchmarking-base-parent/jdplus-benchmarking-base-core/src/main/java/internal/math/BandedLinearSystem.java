@@ -0,0 +1,285 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.math;
+
+import java.util.Arrays;
+
+/**
+ * Square banded linear system, solved by Gaussian elimination with partial
+ * pivoting (same scheme as Lapack dgbtrf/dgbtrs). The matrix may be
+ * indefinite (KKT systems).
+ *
+ * Row i of the matrix is stored in a contiguous block of 2*kl+ku+1 cells,
+ * which contains the columns [i-kl, i+kl+ku]. The additional kl columns are
+ * needed for the fill-in generated by the row interchanges.
+ *
+ * Time: O(n*kl*(kl+ku)), memory: O(n*(2*kl+ku+1))
+ *
+ * The state of the elimination can be saved at a given step (checkpoint).
+ * A larger system whose leading rows are identical can then resume the
+ * elimination from that step instead of restarting it (see
+ * decompose(BandedLinearSystem, int)).
+ *
+ * @author Jean Palate
+ */
+public final class BandedLinearSystem {
+
+    private static final double EPS = 1e-13;
+
+    private final int n, kl, ku, w;
+    private final double[] a;
+    private int[] piv;
+    // rows [chk, chk+kl) before the step chk of the elimination
+    private int chk = -1;
+    private double[] chkRows;
+
+    /**
+     *
+     * @param n Size of the system
+     * @param kl Number of sub-diagonals
+     * @param ku Number of super-diagonals
+     */
+    public BandedLinearSystem(int n, int kl, int ku) {
+        this.n = n;
+        this.kl = kl;
+        this.ku = ku;
+        this.w = 2 * kl + ku + 1;
+        this.a = new double[n * w];
+    }
+
+    public int getSize() {
+        return n;
+    }
+
+    private int idx(int i, int j) {
+        return i * w + j - i + kl;
+    }
+
+    /**
+     * Sets an element of the matrix. Should only be used before the
+     * decomposition
+     *
+     * @param i Row
+     * @param j Column. j should be in [i-kl, i+ku]
+     * @param val
+     */
+    public void set(int i, int j, double val) {
+        a[idx(i, j)] = val;
+    }
+
+    public void add(int i, int j, double val) {
+        a[idx(i, j)] += val;
+    }
+
+    public double get(int i, int j) {
+        if (j < i - kl || j > i + ku + kl) {
+            return 0;
+        }
+        return a[idx(i, j)];
+    }
+
+    public boolean isDecomposed() {
+        return piv != null;
+    }
+
+    /**
+     * LU decomposition (in place)
+     *
+     * @return False if the system is (numerically) singular. The object
+     * should not be used anymore in that case.
+     */
+    public boolean decompose() {
+        return decompose(-1);
+    }
+
+    /**
+     * LU decomposition (in place), which saves the state of the elimination
+     * before a given step
+     *
+     * @param checkpoint The step at which the state is saved. Ignored if it is
+     * negative or if less than kl rows remain after it
+     * @return False if the system is (numerically) singular. The object
+     * should not be used anymore in that case.
+     */
+    public boolean decompose(int checkpoint) {
+        double eps = eps();
+        if (eps == 0) {
+            return false;
+        }
+        return eliminate(0, new int[n], eps, checkpoint);
+    }
+
+    /**
+     * LU decomposition (in place) that resumes the elimination of another
+     * system from its checkpoint. The elimination steps before the checkpoint
+     * (k) only depend on the rows [0, k+kl) of the matrix: they must be
+     * identical in both systems (before the decompositions) and the systems
+     * must have the same bandwidths. Otherwise (or if the other system has no
+     * checkpoint), a complete decomposition is computed.
+     *
+     * Time: O((n-k)*kl*(kl+ku)) for the elimination, O(n*(2*kl+ku+1)) for the
+     * copy of the factors
+     *
+     * @param previous A decomposed system, with a checkpoint. It is not
+     * modified
+     * @param checkpoint The step at which the state of this elimination is
+     * saved (see decompose(int))
+     * @return False if the system is (numerically) singular. The object
+     * should not be used anymore in that case.
+     */
+    public boolean decompose(BandedLinearSystem previous, int checkpoint) {
+        int k0 = previous.chk;
+        if (previous.chkRows == null || previous.kl != kl || previous.ku != ku || k0 + kl > n) {
+            return decompose(checkpoint);
+        }
+        double eps = eps();
+        if (eps == 0) {
+            return false;
+        }
+        int[] p = new int[n];
+        System.arraycopy(previous.piv, 0, p, 0, k0);
+        System.arraycopy(previous.a, 0, a, 0, k0 * w);
+        System.arraycopy(previous.chkRows, 0, a, k0 * w, kl * w);
+        return eliminate(k0, p, eps, checkpoint);
+    }
+
+    /**
+     * Threshold for the pivots (0 if the matrix is null or contains
+     * non-finite values)
+     */
+    private double eps() {
+        double scale = 0;
+        for (int i = 0; i < a.length; ++i) {
+            double cur = Math.abs(a[i]);
+            if (cur > scale) {
+                scale = cur;
+            }
+        }
+        if (scale == 0 || !Double.isFinite(scale)) {
+            return 0;
+        }
+        return scale * EPS;
+    }
+
+    private boolean eliminate(int k0, int[] p, double eps, int checkpoint) {
+        for (int k = k0; k < n; ++k) {
+            if (k == checkpoint && k + kl <= n) {
+                chk = k;
+                chkRows = Arrays.copyOfRange(a, k * w, (k + kl) * w);
+            }
+            int imax = Math.min(n - 1, k + kl);
+            int jmax = Math.min(n - 1, k + kl + ku);
+            // search the pivot
+            int ipiv = k;
+            double vmax = Math.abs(a[idx(k, k)]);
+            for (int i = k + 1; i <= imax; ++i) {
+                double cur = Math.abs(a[idx(i, k)]);
+                if (cur > vmax) {
+                    vmax = cur;
+                    ipiv = i;
+                }
+            }
+            if (!(vmax > eps)) {
+                return false;
+            }
+            p[k] = ipiv;
+            if (ipiv != k) {
+                for (int j = k; j <= jmax; ++j) {
+                    int u = idx(k, j), v = idx(ipiv, j);
+                    double tmp = a[u];
+                    a[u] = a[v];
+                    a[v] = tmp;
+                }
+            }
+            int kk = idx(k, k);
+            double pivot = a[kk];
+            for (int i = k + 1; i <= imax; ++i) {
+                int ik = idx(i, k);
+                double l = a[ik];
+                if (l != 0) {
+                    l /= pivot;
+                    a[ik] = l;
+                    for (int j = k + 1, u = ik + 1, v = kk + 1; j <= jmax; ++j, ++u, ++v) {
+                        a[u] -= l * a[v];
+                    }
+                }
+            }
+        }
+        piv = p;
+        return true;
+    }
+
+    /**
+     * Solves Ax=b. The decomposition must have been successfully computed
+     *
+     * @param b On entry, the right-hand side. On exit, the solution
+     */
+    public void solve(double[] b) {
+        solve(b, 1);
+    }
+
+    /**
+     * Solves AX=B for several right-hand sides. Each step of the forward and
+     * backward substitutions is applied to all the right-hand sides at once,
+     * so that the factors are read only once.
+     *
+     * @param b On entry, the right-hand sides, stored by rows (b[i*nrhs+j]
+     * is the i-th element of the j-th right-hand side). On exit, the
+     * solutions
+     * @param nrhs Number of right-hand sides
+     */
+    public void solve(double[] b, int nrhs) {
+        // L
+        for (int k = 0; k < n; ++k) {
+            int p = piv[k];
+            int bk = k * nrhs;
+            if (p != k) {
+                for (int r = 0, u = bk, v = p * nrhs; r < nrhs; ++r, ++u, ++v) {
+                    double tmp = b[u];
+                    b[u] = b[v];
+                    b[v] = tmp;
+                }
+            }
+            int imax = Math.min(n - 1, k + kl);
+            for (int i = k + 1; i <= imax; ++i) {
+                double l = a[idx(i, k)];
+                if (l != 0) {
+                    for (int r = 0, u = i * nrhs, v = bk; r < nrhs; ++r, ++u, ++v) {
+                        b[u] -= l * b[v];
+                    }
+                }
+            }
+        }
+        // U
+        for (int k = n - 1; k >= 0; --k) {
+            int jmax = Math.min(n - 1, k + kl + ku);
+            int bk = k * nrhs;
+            for (int j = k + 1, u = idx(k, k) + 1; j <= jmax; ++j, ++u) {
+                double ukj = a[u];
+                if (ukj != 0) {
+                    for (int r = 0, v = bk, t = j * nrhs; r < nrhs; ++r, ++v, ++t) {
+                        b[v] -= ukj * b[t];
+                    }
+                }
+            }
+            double pivot = a[idx(k, k)];
+            for (int r = 0, v = bk; r < nrhs; ++r, ++v) {
+                b[v] /= pivot;
+            }
+        }
+    }
+}
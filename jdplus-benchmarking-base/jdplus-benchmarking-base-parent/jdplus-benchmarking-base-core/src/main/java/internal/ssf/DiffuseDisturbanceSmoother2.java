@@ -21,7 +21,6 @@ import jdplus.toolkit.base.core.data.DataBlockIterator;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
 import jdplus.toolkit.base.core.math.matrices.SymmetricMatrix;
 import jdplus.toolkit.base.core.ssf.ISsfDynamics;
-import jdplus.toolkit.base.core.ssf.univariate.DisturbanceSmoother;
 import jdplus.toolkit.base.core.ssf.univariate.IDisturbanceSmoothingResults;
 import jdplus.toolkit.base.core.ssf.univariate.ISsf;
 import jdplus.toolkit.base.core.ssf.univariate.ISsfData;
@@ -46,6 +45,7 @@ public class DiffuseDisturbanceSmoother2 {
         private final ISsf ssf;
         private boolean rescaleVariance=false;
         private boolean calcVariance=true;
+        private SmootherWorkspace workspace;
         
         public Builder(ISsf ssf){
             this.ssf=ssf;
@@ -65,8 +65,20 @@ public class DiffuseDisturbanceSmoother2 {
             return this;
         }
         
+        /**
+         * Temporary objects re-used by the smoother. Null by default (new
+         * objects are created for each smoothing)
+         *
+         * @param workspace
+         * @return
+         */
+        public Builder workspace(SmootherWorkspace workspace){
+            this.workspace=workspace;
+            return this;
+        }
+        
         public DiffuseDisturbanceSmoother2 build(){
-            return new DiffuseDisturbanceSmoother2(ssf, calcVariance, rescaleVariance);
+            return new DiffuseDisturbanceSmoother2(ssf, calcVariance, rescaleVariance, workspace);
         }
     }
     
@@ -79,6 +91,7 @@ public class DiffuseDisturbanceSmoother2 {
     private final ISsfLoading loading;
     private final ISsfError error;
     private final boolean calcvar, rescalevar;
+    private final SmootherWorkspace workspace;
     private IDisturbanceSmoothingResults srslts;
     private BaseDiffuseFilteringResults frslts;
 
@@ -91,10 +104,11 @@ public class DiffuseDisturbanceSmoother2 {
     private DataBlock tmp;
     private double c, v;
 
-    private DiffuseDisturbanceSmoother2(ISsf ssf, boolean calcvar, boolean rescalevar){
+    private DiffuseDisturbanceSmoother2(ISsf ssf, boolean calcvar, boolean rescalevar, SmootherWorkspace workspace){
         this.ssf=ssf;
         this.calcvar=calcvar;
         this.rescalevar=rescalevar;
+        this.workspace=workspace;
         dynamics = ssf.dynamics();
         loading = ssf.measurement().loading();
         error = ssf.measurement().error();
@@ -137,6 +151,11 @@ public class DiffuseDisturbanceSmoother2 {
         srslts = sresults;
         initSmoother(ssf);
         ordinarySmoothing(ssf, endpos);
+        // the ordinary smoother may share the workspace
+        if (dynamics.isTimeInvariant()) {
+            S.set(0);
+            dynamics.S(0, S);
+        }
         pos = frslts.getEndDiffusePosition();
         while (--pos >= 0) {
             loadInfo();
@@ -156,25 +175,37 @@ public class DiffuseDisturbanceSmoother2 {
         int dim = ssf.getStateDim();
         int resdim = dynamics.getInnovationsDim();
 
-        R = DataBlock.make(dim);
-        C = DataBlock.make(dim);
-        Ri = DataBlock.make(dim);
-        Ci = DataBlock.make(dim);
-        U = DataBlock.make(resdim);
-        S = FastMatrix.make(dim, resdim);
+        if (workspace != null) {
+            workspace.prepare(dim, resdim, calcvar);
+            R = workspace.R;
+            C = workspace.C;
+            Ri = workspace.Ri;
+            Ci = workspace.Ci;
+            U = workspace.U;
+            S = workspace.S;
+            N = workspace.N;
+            tmp = workspace.tmp;
+            UVar = workspace.UVar;
+        } else {
+            R = DataBlock.make(dim);
+            C = DataBlock.make(dim);
+            Ri = DataBlock.make(dim);
+            Ci = DataBlock.make(dim);
+            U = DataBlock.make(resdim);
+            S = FastMatrix.make(dim, resdim);
+            if (calcvar) {
+                N = FastMatrix.square(dim);
+                tmp = DataBlock.make(dim);
+                UVar = FastMatrix.square(resdim);
+            }
+        }
         if (calcvar) {
-            N = FastMatrix.square(dim);
-            tmp = DataBlock.make(dim);
-            UVar = FastMatrix.square(resdim);
             if (error != null && error.isTimeInvariant()) {
                 h = error.at(0);
             } else {
                 h = 0;
             }
         }
-        if (dynamics.isTimeInvariant()) {
-            dynamics.S(0, S);
-        }
     }
 
     private void loadInfo() {
@@ -330,15 +361,18 @@ public class DiffuseDisturbanceSmoother2 {
 
     private void ordinarySmoothing(ISsf ssf, final int endpos) {
         // Remark: rescaling is processed on the final results
-        DisturbanceSmoother smoother = DisturbanceSmoother.builder(ssf)
+        DisturbanceSmoother2 smoother = DisturbanceSmoother2.builder(ssf)
                 .calcVariance(calcvar)
                 .rescaleVariance(false)
+                .workspace(workspace)
                 .build();
          smoother.process(frslts.getEndDiffusePosition(), endpos, frslts, srslts);
-        // updates R, N
-        R.copy(smoother.getFinalR());
-        if (calcvar) {
-            N.copy(smoother.getFinalN());
+        // updates R, N (identical objects when the workspace is shared)
+        if (R != smoother.getFinalR()) {
+            R.copy(smoother.getFinalR());
+            if (calcvar) {
+                N.copy(smoother.getFinalN());
+            }
         }
     }
 
@@ -358,20 +392,40 @@ public class DiffuseDisturbanceSmoother2 {
         return N;
     }
 
+    /**
+     *
+     * @return The first smoothed state. When a workspace is used, the block
+     * belongs to it
+     */
     public DataBlock firstSmoothedState() {
 
         ISsfInitialization initialization = ssf.initialization();
         int n = initialization.getStateDim();
         // initial state
-        DataBlock a = DataBlock.make(n);
-        FastMatrix Pf0 = FastMatrix.square(n);
+        DataBlock a;
+        FastMatrix Pf0;
+        if (workspace != null) {
+            a = workspace.a0;
+            Pf0 = workspace.P0;
+            a.set(0);
+            Pf0.set(0);
+        } else {
+            a = DataBlock.make(n);
+            Pf0 = FastMatrix.square(n);
+        }
         initialization.a0(a);
         initialization.Pf0(Pf0);
         // stationary initialization
         a.addProduct(R, Pf0.columnsIterator());
 
         // non stationary initialisation
-        FastMatrix Pi0 = FastMatrix.square(n);
+        FastMatrix Pi0;
+        if (workspace != null) {
+            Pi0 = Pf0;
+            Pi0.set(0);
+        } else {
+            Pi0 = FastMatrix.square(n);
+        }
         initialization.Pi0(Pi0);
         a.addProduct(Ri, Pi0.columnsIterator());
         return a;
@@ -32,6 +32,7 @@ public class DisturbanceSmoother2 {
         private final ISsf ssf;
         private boolean rescaleVariance = false;
         private boolean calcVariance = true;
+        private SmootherWorkspace workspace;
 
         public Builder(ISsf ssf) {
             this.ssf = ssf;
@@ -53,8 +54,20 @@ public class DisturbanceSmoother2 {
             return this;
         }
 
+        /**
+         * Temporary objects re-used by the smoother. Null by default (new
+         * objects are created for each smoothing)
+         *
+         * @param workspace
+         * @return
+         */
+        public Builder workspace(SmootherWorkspace workspace) {
+            this.workspace = workspace;
+            return this;
+        }
+
         public DisturbanceSmoother2 build() {
-            return new DisturbanceSmoother2(ssf, calcVariance, rescaleVariance);
+            return new DisturbanceSmoother2(ssf, calcVariance, rescaleVariance, workspace);
         }
     }
 
@@ -67,6 +80,7 @@ public class DisturbanceSmoother2 {
     private final ISsfLoading loading;
     private final ISsfError error;
     private final boolean calcvar, rescalevar;
+    private final SmootherWorkspace workspace;
     private IDisturbanceSmoothingResults srslts;
     private DefaultFilteringResults frslts;
 
@@ -79,10 +93,11 @@ public class DisturbanceSmoother2 {
     private DataBlock tmp;
     private double c, v;
 
-    private DisturbanceSmoother2(ISsf ssf, boolean calcvar, boolean rescalevar) {
+    private DisturbanceSmoother2(ISsf ssf, boolean calcvar, boolean rescalevar, SmootherWorkspace workspace) {
         this.ssf = ssf;
         this.calcvar = calcvar;
         this.rescalevar = rescalevar;
+        this.workspace = workspace;
         dynamics = ssf.dynamics();
         loading = ssf.measurement().loading();
         error = ssf.measurement().error();
@@ -198,14 +213,28 @@ public class DisturbanceSmoother2 {
         int dim = ssf.getStateDim();
         int resdim = dynamics.getInnovationsDim();
 
-        R = DataBlock.make(dim);
-        K = DataBlock.make(dim);
-        U = DataBlock.make(resdim);
+        if (workspace != null) {
+            workspace.prepare(dim, resdim, calcvar);
+            R = workspace.R;
+            K = workspace.C;
+            U = workspace.U;
+        } else {
+            R = DataBlock.make(dim);
+            K = DataBlock.make(dim);
+            U = DataBlock.make(resdim);
+        }
         if (calcvar) {
-            S = FastMatrix.make(dim, resdim);
-            N = FastMatrix.square(dim);
-            tmp = DataBlock.make(dim);
-            UVar = FastMatrix.square(resdim);
+            if (workspace != null) {
+                S = workspace.S;
+                N = workspace.N;
+                tmp = workspace.tmp;
+                UVar = workspace.UVar;
+            } else {
+                S = FastMatrix.make(dim, resdim);
+                N = FastMatrix.square(dim);
+                tmp = DataBlock.make(dim);
+                UVar = FastMatrix.square(resdim);
+            }
             if (error == null) {
                 h = 0;
             } else if (error.isTimeInvariant()) {
@@ -321,11 +350,25 @@ public class DisturbanceSmoother2 {
         }
     }
 
+    /**
+     *
+     * @return The first smoothed state. When a workspace is used, the block
+     * belongs to it
+     */
     public DataBlock firstSmoothedState() {
         int n = ssf.getStateDim();
         // initial state
-        DataBlock a = DataBlock.make(n);
-        FastMatrix Pf0 = FastMatrix.square(n);
+        DataBlock a;
+        FastMatrix Pf0;
+        if (workspace != null) {
+            a = workspace.a0;
+            Pf0 = workspace.P0;
+            a.set(0);
+            Pf0.set(0);
+        } else {
+            a = DataBlock.make(n);
+            Pf0 = FastMatrix.square(n);
+        }
         ssf.initialization().a0(a);
         ssf.initialization().Pf0(Pf0);
         // stationary initialization
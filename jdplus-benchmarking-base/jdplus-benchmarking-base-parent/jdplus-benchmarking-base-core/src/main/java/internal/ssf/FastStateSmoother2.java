@@ -20,7 +20,6 @@ import jdplus.toolkit.base.core.data.DataBlock;
 import jdplus.toolkit.base.core.data.DataBlockStorage;
 import jdplus.toolkit.base.core.ssf.ISsfDynamics;
 import jdplus.toolkit.base.core.ssf.univariate.DefaultDisturbanceSmoothingResults;
-import jdplus.toolkit.base.core.ssf.univariate.DisturbanceSmoother;
 import jdplus.toolkit.base.core.ssf.univariate.IDisturbanceSmoothingResults;
 import jdplus.toolkit.base.core.ssf.univariate.ISsf;
 import jdplus.toolkit.base.core.ssf.univariate.ISsfData;
@@ -35,21 +34,84 @@ public class FastStateSmoother2 {
     private final ISsf ssf;
     private final ISsfDynamics dynamics;
     private final ISsfError error;
+    private final SmootherWorkspace workspace;
 
     public FastStateSmoother2(final ISsf ssf) {
+        this(ssf, null);
+    }
+
+    /**
+     *
+     * @param ssf
+     * @param workspace Temporary objects re-used by the smoother (for
+     * instance SmootherWorkspace.local()). May be null
+     */
+    public FastStateSmoother2(final ISsf ssf, final SmootherWorkspace workspace) {
         this.ssf = ssf;
+        this.workspace = workspace;
         dynamics = ssf.dynamics();
         error = ssf.measurementError();
     }
 
+    /**
+     * Receives the smoothed states, in chronological order
+     */
+    @FunctionalInterface
+    public static interface StateSink {
+
+        /**
+         *
+         * @param pos The position of the state
+         * @param state The smoothed state. The block is re-used by the
+         * smoother; it should not be stored
+         */
+        void save(int pos, DataBlock state);
+    }
+
     public DataBlockStorage process(ISsfData data) {
-        int dim = ssf.getStateDim();
+        DataBlockStorage storage = new DataBlockStorage(ssf.getStateDim(), data.length());
+        process(data, storage::save);
+        return storage;
+    }
+
+    /**
+     * Computes the smoothed states, restricted to some of their elements
+     *
+     * @param data
+     * @param selection The positions of the stored elements of the states
+     * @return The selected elements (in the order of the selection) of the
+     * smoothed states
+     */
+    public DataBlockStorage process(ISsfData data, int[] selection) {
+        DataBlockStorage storage = new DataBlockStorage(selection.length, data.length());
+        DataBlock cur = DataBlock.make(selection.length);
+        process(data, (pos, a) -> {
+            for (int i = 0; i < selection.length; ++i) {
+                cur.set(i, a.get(selection[i]));
+            }
+            storage.save(pos, cur);
+        });
+        return storage;
+    }
+
+    /**
+     * Computes the smoothed states and sends them to a sink, without storing
+     * them
+     *
+     * @param data
+     * @param sink
+     */
+    public void process(ISsfData data, StateSink sink) {
         int n = data.length();
-        DataBlockStorage storage = new DataBlockStorage(dim, n);
-        DefaultDisturbanceSmoothingResults srslts = DefaultDisturbanceSmoothingResults.light(error != null);
-        srslts.prepare(ssf, 0, n);
+        DefaultDisturbanceSmoothingResults srslts;
+        if (workspace != null) {
+            srslts = workspace.lightResults(ssf, n);
+        } else {
+            srslts = DefaultDisturbanceSmoothingResults.light(error != null);
+            srslts.prepare(ssf, 0, n);
+        }
         DataBlock a = initialState(data, srslts);
-        storage.save(0, a);
+        sink.save(0, a);
         int cur = 1;
         while (cur < n) {
             // next: a(t+1) = T(t) a(t) + S*r(t)
@@ -58,9 +120,8 @@ public class FastStateSmoother2 {
                 DataBlock u = srslts.u(cur);
                 dynamics.addSU(cur - 1, a, u);
             }
-            storage.save(cur++, a);
+            sink.save(cur++, a);
         }
-        return storage;
     }
 
     private DataBlock initialState(ISsfData data, IDisturbanceSmoothingResults srslts) {
@@ -69,14 +130,16 @@ public class FastStateSmoother2 {
                     .builder(ssf)
                     .calcVariance(false)
                     .rescaleVariance(false)
+                    .workspace(workspace)
                     .build();
             sm.process(data, srslts);
             return sm.firstSmoothedState();
         } else {
-            DisturbanceSmoother sm = DisturbanceSmoother
+            DisturbanceSmoother2 sm = DisturbanceSmoother2
                     .builder(ssf)
                     .calcVariance(false)
                     .rescaleVariance(false)
+                    .workspace(workspace)
                     .build();
             sm.process(data, srslts, 0);
             return sm.firstSmoothedState();
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * http://ec.europa.eu/idabc/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package internal.ssf;
+
+import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.data.DataBlockIterator;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import jdplus.toolkit.base.core.ssf.ISsfDynamics;
+import jdplus.toolkit.base.core.ssf.ISsfInitialization;
+import jdplus.toolkit.base.core.ssf.ISsfLoading;
+import jdplus.toolkit.base.core.ssf.dk.DefaultDiffuseFilteringResults;
+import jdplus.toolkit.base.core.ssf.univariate.ISsf;
+
+/**
+ * Fast (diffuse) state smoother of several series, using the filtering
+ * results of another series (same model, same missing values). It
+ * corresponds to FastDkSmoother applied on each column of a matrix, but the
+ * columns are processed simultaneously in three sweeps over the stored
+ * filtering results: innovations of the columns (forward), smoothing
+ * cumulants r, ri (backward, see DiffuseDisturbanceSmoother2), smoothed
+ * states (forward).
+ *
+ * @author Jean Palate
+ */
+public class MultiFastDkSmoother {
+
+    /**
+     * Receives the smoothed states of the columns, in chronological order
+     */
+    @FunctionalInterface
+    public static interface StatesSink {
+
+        /**
+         *
+         * @param pos The position of the states
+         * @param states The smoothed states (one column by series). The
+         * matrix is re-used by the smoother; it should not be stored
+         */
+        void save(int pos, FastMatrix states);
+    }
+
+    private final ISsf ssf;
+    private final ISsfDynamics dynamics;
+    private final ISsfLoading loading;
+    private final DefaultDiffuseFilteringResults frslts;
+
+    /**
+     *
+     * @param ssf
+     * @param frslts The filtering results. They should contain the
+     * information necessary for the smoothing (gains, variances and diffuse
+     * information)
+     */
+    public MultiFastDkSmoother(ISsf ssf, DefaultDiffuseFilteringResults frslts) {
+        this.ssf = ssf;
+        this.frslts = frslts;
+        dynamics = ssf.dynamics();
+        loading = ssf.loading();
+    }
+
+    /**
+     * Smoothes the columns of a matrix
+     *
+     * @param X The series (in columns)
+     * @param sink Receives the smoothed states
+     */
+    public void smooth(FastMatrix X, StatesSink sink) {
+        int n = X.getRowsCount(), k = X.getColumnsCount(), dim = ssf.getStateDim();
+        int nd = frslts.getEndDiffusePosition();
+        ISsfInitialization initialization = ssf.initialization();
+        DataBlock a0 = DataBlock.make(dim);
+        initialization.a0(a0);
+
+        // innovations of the columns
+        FastMatrix A = FastMatrix.make(dim, k);
+        FastMatrix V = FastMatrix.make(n, k);
+        A.columns().forEach(a -> a.copy(a0));
+        for (int pos = 0; pos < n; ++pos) {
+            double e = frslts.error(pos), f = frslts.errorVariance(pos);
+            double fi = pos < nd ? frslts.diffuseNorm2(pos) : 0;
+            boolean update = Double.isFinite(e) && (f != 0 || fi != 0);
+            DataBlock M = update ? (fi != 0 ? frslts.Mi(pos) : frslts.M(pos)) : null;
+            DataBlockIterator acols = A.columnsIterator();
+            for (int j = 0; j < k; ++j) {
+                DataBlock a = acols.next();
+                if (update) {
+                    double v = X.get(pos, j) - loading.ZX(pos, a);
+                    V.set(pos, j, v);
+                    a.addAY(v / (fi != 0 ? fi : f), M);
+                }
+                dynamics.TX(pos, a);
+            }
+        }
+
+        // backward recursion. r(t) is stored in column t of the blocks of Rs
+        FastMatrix R = FastMatrix.make(dim, k), Ri = FastMatrix.make(dim, k);
+        FastMatrix Rs = FastMatrix.make(dim * k, n);
+        DataBlock C = DataBlock.make(dim), Ci = DataBlock.make(dim);
+        for (int pos = n - 1; pos >= 0; --pos) {
+            double e = frslts.error(pos), f = frslts.errorVariance(pos);
+            double fi = pos < nd ? frslts.diffuseNorm2(pos) : 0;
+            boolean update = Double.isFinite(e) && (f != 0 || fi != 0);
+            if (update) {
+                C.copy(frslts.M(pos));
+                if (fi != 0) {
+                    Ci.copy(frslts.Mi(pos));
+                    Ci.mul(1 / fi);
+                    C.addAY(-f, Ci);
+                    C.mul(1 / fi);
+                } else {
+                    C.mul(1 / f);
+                }
+            }
+            DataBlockIterator rcols = R.columnsIterator(), ricols = Ri.columnsIterator();
+            for (int j = 0; j < k; ++j) {
+                DataBlock r = rcols.next(), ri = ricols.next();
+                dynamics.XT(pos, r);
+                if (pos < nd) {
+                    dynamics.XT(pos, ri);
+                }
+                if (update) {
+                    double v = V.get(pos, j);
+                    if (fi != 0) {
+                        double c = -ri.dot(Ci);
+                        loading.XpZd(pos, ri, v / fi + c - r.dot(C));
+                        loading.XpZd(pos, r, -r.dot(Ci));
+                    } else {
+                        loading.XpZd(pos, r, v / f - r.dot(C));
+                    }
+                }
+                if (pos > 0) {
+                    Rs.column(pos - 1).extract(j * dim, dim).copy(r);
+                }
+            }
+        }
+
+        // smoothed states
+        FastMatrix P0 = FastMatrix.square(dim);
+        initialization.Pf0(P0);
+        DataBlockIterator acols = A.columnsIterator(), rcols = R.columnsIterator();
+        while (acols.hasNext()) {
+            DataBlock a = acols.next();
+            a.copy(a0);
+            a.addProduct(rcols.next(), P0.columnsIterator());
+        }
+        if (initialization.isDiffuse()) {
+            P0.set(0);
+            initialization.Pi0(P0);
+            acols = A.columnsIterator();
+            DataBlockIterator ricols = Ri.columnsIterator();
+            while (acols.hasNext()) {
+                acols.next().addProduct(ricols.next(), P0.columnsIterator());
+            }
+        }
+        sink.save(0, A);
+        DataBlock u = DataBlock.make(dynamics.getInnovationsDim());
+        for (int pos = 1; pos < n; ++pos) {
+            boolean innovations = dynamics.hasInnovations(pos - 1);
+            DataBlock rs = Rs.column(pos - 1);
+            acols = A.columnsIterator();
+            for (int j = 0; j < k; ++j) {
+                // a(t+1) = T(t) a(t) + S(t)*S'(t)*r(t)
+                DataBlock a = acols.next();
+                dynamics.TX(pos - 1, a);
+                if (innovations) {
+                    dynamics.XS(pos - 1, rs.extract(j * dim, dim), u);
+                    dynamics.addSU(pos - 1, a, u);
+                }
+            }
+            sink.save(pos, A);
+        }
+    }
+}
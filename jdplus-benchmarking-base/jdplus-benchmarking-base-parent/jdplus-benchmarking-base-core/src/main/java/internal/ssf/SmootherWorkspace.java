@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * http://ec.europa.eu/idabc/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package internal.ssf;
+
+import java.lang.ref.SoftReference;
+import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import jdplus.toolkit.base.core.ssf.univariate.DefaultDisturbanceSmoothingResults;
+import jdplus.toolkit.base.core.ssf.univariate.ISsf;
+
+/**
+ * Temporary objects of the disturbance smoothers (DisturbanceSmoother2,
+ * DiffuseDisturbanceSmoother2) and of FastStateSmoother2. The objects are
+ * re-used as long as the dimensions of the problems don't change, so that
+ * repeated smoothing of similar problems doesn't allocate memory.
+ *
+ * A workspace is not thread-safe. The workspace of the current thread is
+ * given by local(); it may be reclaimed by the garbage collector when it is
+ * not used.
+ *
+ * @author Jean Palate
+ */
+public final class SmootherWorkspace {
+
+    private static final ThreadLocal<SoftReference<SmootherWorkspace>> LOCAL = new ThreadLocal<>();
+
+    /**
+     * Workspace of the current thread
+     *
+     * @return
+     */
+    public static SmootherWorkspace local() {
+        SoftReference<SmootherWorkspace> ref = LOCAL.get();
+        SmootherWorkspace ws = ref == null ? null : ref.get();
+        if (ws == null) {
+            ws = new SmootherWorkspace();
+            LOCAL.set(new SoftReference<>(ws));
+        }
+        return ws;
+    }
+
+    private int dim = -1, resdim = -1;
+    private boolean calcvar;
+    DataBlock R, Ri, C, Ci, U, tmp, a0;
+    FastMatrix S, N, UVar, P0;
+
+    private int rn = -1, rdim = -1, rresdim = -1;
+    private boolean err;
+    private DefaultDisturbanceSmoothingResults srslts;
+
+    /**
+     * Prepares the temporary objects of a smoother. They are re-allocated
+     * only when the dimensions change; otherwise, they are cleared.
+     *
+     * @param dim The dimension of the state
+     * @param resdim The dimension of the innovations
+     * @param calcvar True if the variances are computed
+     */
+    void prepare(int dim, int resdim, boolean calcvar) {
+        if (dim != this.dim || resdim != this.resdim) {
+            this.dim = dim;
+            this.resdim = resdim;
+            this.calcvar = false;
+            R = DataBlock.make(dim);
+            Ri = DataBlock.make(dim);
+            C = DataBlock.make(dim);
+            Ci = DataBlock.make(dim);
+            U = DataBlock.make(resdim);
+            S = FastMatrix.make(dim, resdim);
+            a0 = DataBlock.make(dim);
+            P0 = FastMatrix.square(dim);
+            N = null;
+            tmp = null;
+            UVar = null;
+        } else {
+            R.set(0);
+            Ri.set(0);
+            C.set(0);
+            Ci.set(0);
+            U.set(0);
+            S.set(0);
+        }
+        if (calcvar) {
+            if (!this.calcvar) {
+                this.calcvar = true;
+                N = FastMatrix.square(dim);
+                tmp = DataBlock.make(dim);
+                UVar = FastMatrix.square(resdim);
+            } else {
+                N.set(0);
+                tmp.set(0);
+                UVar.set(0);
+            }
+        }
+    }
+
+    /**
+     * Light disturbance smoothing results (smoothed innovations, without
+     * variances). The results are only re-prepared when the dimensions of the
+     * problem change. They are entirely overwritten by the smoothers
+     *
+     * @param ssf
+     * @param n The length of the problem
+     * @return
+     */
+    DefaultDisturbanceSmoothingResults lightResults(ISsf ssf, int n) {
+        boolean herr = ssf.measurementError() != null;
+        int sdim = ssf.getStateDim(), sresdim = ssf.dynamics().getInnovationsDim();
+        if (srslts == null || herr != err) {
+            srslts = DefaultDisturbanceSmoothingResults.light(herr);
+            err = herr;
+            rn = -1;
+        }
+        if (n != rn || sdim != rdim || sresdim != rresdim) {
+            srslts.prepare(ssf, 0, n);
+            rn = n;
+            rdim = sdim;
+            rresdim = sresdim;
+        }
+        return srslts;
+    }
+}
@@ -50,4 +50,46 @@ public class Constraint {
             weights[i] = cnt.get(index[i]);
         }
     }
+
+    /**
+     * Creates a constraint from its components (not necessarily sorted). When
+     * a series appears several times, its last weight is used
+     *
+     * @param index The positions of the series. The array is used as is when
+     * it is sorted
+     * @param weights The corresponding weights
+     */
+    public Constraint(int[] index, double[] weights) {
+        boolean sorted = true;
+        for (int i = 1; i < index.length; ++i) {
+            if (index[i] <= index[i - 1]) {
+                sorted = false;
+                break;
+            }
+        }
+        if (sorted) {
+            this.index = index;
+            this.weights = weights;
+            return;
+        }
+        // sort on (index, position)
+        long[] keys = new long[index.length];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = ((long) index[i] << 32) | i;
+        }
+        java.util.Arrays.sort(keys);
+        int n = 0;
+        for (int i = 0; i < keys.length; ++i) {
+            if (i + 1 < keys.length && (keys[i + 1] >>> 32) == (keys[i] >>> 32)) {
+                continue;
+            }
+            keys[n++] = keys[i];
+        }
+        this.index = new int[n];
+        this.weights = new double[n];
+        for (int i = 0; i < n; ++i) {
+            this.index[i] = (int) (keys[i] >>> 32);
+            this.weights[i] = weights[(int) keys[i]];
+        }
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.benchmarking.base.core.benchmarking.multivariate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import jdplus.benchmarking.base.api.benchmarking.multivariate.ContemporaneousConstraint;
+import jdplus.benchmarking.base.api.benchmarking.multivariate.MultivariateCholetteSpec;
+import jdplus.benchmarking.base.api.benchmarking.multivariate.TemporalConstraint;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.util.WeightedItem;
+
+/**
+ * Top-down multivariate Cholette benchmarking of hierarchical systems.
+ *
+ * The constraints that share components are benchmarked together (group). A
+ * group depends on the groups that use its binding series as components. The
+ * groups are benchmarked level by level (a level contains the groups whose
+ * dependencies have been benchmarked), with the usual engine: the groups of a
+ * level are independent blocks, processed in parallel. The series that are not
+ * components of any constraint (top of the hierarchy) are first benchmarked on
+ * their temporal constraints.
+ *
+ * @author Jean Palate
+ */
+class HierarchicalCholetteEngine {
+
+    private final ForkJoinPool pool;
+
+    HierarchicalCholetteEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    HierarchicalCholetteEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public Map<String, TsData> process(Map<String, TsData> inputs, MultivariateCholetteSpec spec) {
+        List<ContemporaneousConstraint> cnts = ContemporaneousConstraint.expand(spec.getContemporaneousConstraints(), inputs.keySet());
+        int ncnts = cnts.size();
+        // groups of constraints sharing components (union-find)
+        int[] root = new int[ncnts];
+        Map<String, Integer> owners = new HashMap<>();
+        for (int k = 0; k < ncnts; ++k) {
+            root[k] = k;
+            for (WeightedItem<String> ws : cnts.get(k).getComponents()) {
+                Integer o = owners.putIfAbsent(ws.getItem(), k);
+                if (o != null) {
+                    union(root, o, k);
+                }
+            }
+        }
+        // dependencies of the groups
+        Map<Integer, Set<Integer>> dependencies = new HashMap<>();
+        for (int k = 0; k < ncnts; ++k) {
+            int g = find(root, k);
+            Set<Integer> deps = dependencies.computeIfAbsent(g, i -> new HashSet<>());
+            String binding = cnts.get(k).getConstraint();
+            if (binding != null) {
+                Integer o = owners.get(binding);
+                if (o != null) {
+                    deps.add(find(root, o));
+                }
+            }
+        }
+        Map<Integer, Integer> levels = new HashMap<>();
+        int nlevels = 0;
+        for (Integer g : dependencies.keySet()) {
+            nlevels = Math.max(nlevels, level(g, dependencies, levels, new HashSet<>()) + 1);
+        }
+
+        Map<String, TsData> data = new HashMap<>(inputs);
+        Map<String, TsData> rslts = new HashMap<>();
+        // top of the hierarchy: temporal constraints only
+        MultivariateCholetteSpec.Builder builder = spec.toBuilder()
+                .hierarchical(false)
+                .clearContemporaneousConstraints()
+                .clearTemporalConstraints();
+        for (TemporalConstraint tcnt : spec.getTemporalConstraints()) {
+            if (!owners.containsKey(tcnt.getDetail())) {
+                builder.temporalConstraint(tcnt);
+            }
+        }
+        rslts.putAll(new MultivariateCholetteEngine(pool).process(data, builder.build()));
+        data.putAll(rslts);
+
+        for (int l = 0; l < nlevels; ++l) {
+            builder = spec.toBuilder()
+                    .hierarchical(false)
+                    .clearContemporaneousConstraints()
+                    .clearTemporalConstraints();
+            Set<String> components = new HashSet<>();
+            for (int k = 0; k < ncnts; ++k) {
+                if (levels.get(find(root, k)) == l) {
+                    ContemporaneousConstraint cnt = cnts.get(k);
+                    builder.contemporaneousConstraint(cnt);
+                    for (WeightedItem<String> ws : cnt.getComponents()) {
+                        components.add(ws.getItem());
+                    }
+                }
+            }
+            for (TemporalConstraint tcnt : spec.getTemporalConstraints()) {
+                if (components.contains(tcnt.getDetail())) {
+                    builder.temporalConstraint(tcnt);
+                }
+            }
+            Map<String, TsData> lrslts = new MultivariateCholetteEngine(pool).process(data, builder.build());
+            rslts.putAll(lrslts);
+            data.putAll(lrslts);
+        }
+        return rslts;
+    }
+
+    private static int level(Integer g, Map<Integer, Set<Integer>> dependencies, Map<Integer, Integer> levels, Set<Integer> path) {
+        Integer l = levels.get(g);
+        if (l != null) {
+            return l;
+        }
+        if (!path.add(g)) {
+            throw new IllegalArgumentException("Cyclic contemporaneous constraints");
+        }
+        int cur = 0;
+        for (Integer d : dependencies.get(g)) {
+            cur = Math.max(cur, level(d, dependencies, levels, path) + 1);
+        }
+        path.remove(g);
+        levels.put(g, cur);
+        return cur;
+    }
+
+    private static int find(int[] root, int i) {
+        while (root[i] != i) {
+            root[i] = root[root[i]];
+            i = root[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] root, int i, int j) {
+        int ri = find(root, i), rj = find(root, j);
+        if (ri != rj) {
+            root[Math.max(ri, rj)] = Math.min(ri, rj);
+        }
+    }
+}
@@ -6,6 +6,7 @@
 package jdplus.benchmarking.base.core.benchmarking.multivariate;
 
 import internal.ssf.FastStateSmoother2;
+import internal.ssf.SmootherWorkspace;
 import jdplus.benchmarking.base.core.ssf.ContemporaneousSsfCholette;
 import jdplus.benchmarking.base.core.ssf.MultivariateSsfCholette;
 import jdplus.benchmarking.base.api.benchmarking.multivariate.ContemporaneousConstraint;
@@ -13,17 +14,21 @@ import jdplus.benchmarking.base.api.benchmarking.multivariate.MultivariateCholet
 import jdplus.benchmarking.base.api.benchmarking.multivariate.TemporalConstraint;
 import jdplus.benchmarking.base.api.benchmarking.univariate.CholetteSpec;
 import jdplus.toolkit.base.api.data.AggregationType;
-import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import jdplus.toolkit.base.api.timeseries.TsDomain;
 import jdplus.toolkit.base.api.timeseries.TsException;
 import jdplus.toolkit.base.api.timeseries.TsUnit;
 import jdplus.toolkit.base.api.util.WeightedItem;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 import jdplus.benchmarking.base.core.benchmarking.univariate.CholetteProcessor;
 import jdplus.toolkit.base.core.data.DataBlock;
 import jdplus.toolkit.base.core.data.DataBlockStorage;
@@ -42,6 +47,40 @@ import jdplus.toolkit.base.core.timeseries.simplets.TsDataView;
  * @author Jean Palate
  */
 class MultivariateCholetteEngine {
+
+    /**
+     * Minimal number of series of a contemporaneous block for the use of the
+     * information form (SparseContemporaneousCholette)
+     */
+    private static final int INFORMATION_MINVARS = 50;
+    /**
+     * Default memory (in bytes) of the information forms
+     */
+    static final long DEF_INFORMATION_MEMORY = 1L << 30;
+    /**
+     * Memory (in bytes) that can be used at the same time by the information
+     * forms of all the blocks processed concurrently (by all the engines), and
+     * memory currently reserved by them. A block that doesn't fit in the
+     * remaining memory uses the state space form
+     */
+    private static volatile long informationMemory = DEF_INFORMATION_MEMORY;
+    private static final AtomicLong INFORMATION_USED = new AtomicLong();
+
+    private final ForkJoinPool pool;
+
+    MultivariateCholetteEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     *
+     * @param pool The pool used for the parallel processing of the independent
+     * problems
+     */
+    MultivariateCholetteEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * Inputs
      */
@@ -69,6 +108,10 @@ class MultivariateCholetteEngine {
      *
      */
     private final ArrayList<String> rcnt = new ArrayList<>();
+    /**
+     * Positions of the series in the lcnt and rcnt lists
+     */
+    private final HashMap<String, Integer> lcntIds = new HashMap<>(), rcntIds = new HashMap<>();
     /**
      * Data of the series in the lcnt list. The length of each array is equal to
      * the length of idomain
@@ -86,6 +129,7 @@ class MultivariateCholetteEngine {
     private final HashMap<String, TsData> tcntData = new HashMap<>();
     private Constraint[] cs;
     private double rho, lambda;
+    private MultivariateCholetteSpec.Solver solver;
     private TsDomain idomain;
     private TsUnit aggUnit;
 
@@ -95,8 +139,11 @@ class MultivariateCholetteEngine {
         Map<String, TsData> rslts = new HashMap<>();
         buildMaps();
 
-        benchmarkIndependentConstraints(rslts);
+        // the series that are only temporally constrained are benchmarked
+        // in the background, while the contemporaneous system is built
+        ForkJoinTask<Map<String, TsData>> independent = pool.submit(this::benchmarkIndependentConstraints);
         if (contemporaneousConstraints.isEmpty()) {
+            rslts.putAll(independent.join());
             return rslts;
         }
 
@@ -105,15 +152,168 @@ class MultivariateCholetteEngine {
         // compute weights, adjust constraints...
         buildWeights();
         buildConstraints();
-        if (temporalConstraints.isEmpty()) {
-            computeContemporaneous(rslts);
-        } else {
-            compute(rslts);
+        // independent blocks of series are benchmarked separately (in parallel)
+        List<Block> blocks = buildBlocks();
+        TsData[] brslts = new TsData[rcnt.size()];
+        List<Runnable> tasks = new ArrayList<>();
+        for (Block block : blocks) {
+            tasks.add(() -> {
+                if (solver == MultivariateCholetteSpec.Solver.Sparse && computeSparse(block, brslts)) {
+                    return;
+                }
+                if (block.hasTemporalConstraints()) {
+                    compute(block, brslts);
+                } else {
+                    computeContemporaneous(block, brslts);
+                }
+            });
         }
-
+        run(pool, tasks);
+        for (int i = 0; i < brslts.length; ++i) {
+            rslts.put(rcnt.get(i), brslts[i]);
+        }
+        rslts.putAll(independent.join());
         return rslts;
     }
 
+    private static void run(ForkJoinPool pool, List<Runnable> tasks) {
+        if (tasks.size() == 1) {
+            tasks.get(0).run();
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks.stream().map(ForkJoinTask::adapt).toList());
+            }
+        });
+    }
+
+    /**
+     * Connected component of the bipartite graph between the contemporaneous
+     * constraints and the endogenous series
+     */
+    private class Block {
+
+        /**
+         * Positions of the series in rcnt (sorted)
+         */
+        final int[] vars;
+        /**
+         * Positions of the constraints in cs (sorted)
+         */
+        final int[] cnts;
+        /**
+         * Constraints, expressed in the local positions of the series
+         */
+        final Constraint[] constraints;
+
+        /**
+         *
+         * @param vars
+         * @param cnts
+         * @param local The local positions of all the series (in their blocks)
+         */
+        Block(int[] vars, int[] cnts, int[] local) {
+            this.vars = vars;
+            this.cnts = cnts;
+            constraints = new Constraint[cnts.length];
+            for (int i = 0; i < cnts.length; ++i) {
+                Constraint cur = cs[cnts[i]];
+                int[] index = new int[cur.index.length];
+                for (int j = 0; j < index.length; ++j) {
+                    index[j] = local[cur.index[j]];
+                }
+                constraints[i] = new Constraint(index, cur.weights);
+            }
+        }
+
+        boolean hasTemporalConstraints() {
+            for (int i = 0; i < vars.length; ++i) {
+                if (temporalConstraints.containsKey(rcnt.get(vars[i]))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        double[][] weights() {
+            double[][] w = new double[vars.length][];
+            for (int i = 0; i < vars.length; ++i) {
+                w[i] = weights[vars[i]];
+            }
+            return w;
+        }
+    }
+
+    /**
+     * Splits the problem in independent blocks (union-find on the series)
+     *
+     * @return
+     */
+    private List<Block> buildBlocks() {
+        int nvars = rcnt.size();
+        int[] parent = new int[nvars];
+        for (int i = 0; i < nvars; ++i) {
+            parent[i] = i;
+        }
+        for (Constraint cnt : cs) {
+            for (int j = 1; j < cnt.index.length; ++j) {
+                int r0 = root(parent, cnt.index[0]), r1 = root(parent, cnt.index[j]);
+                if (r0 != r1) {
+                    parent[Math.max(r0, r1)] = Math.min(r0, r1);
+                }
+            }
+        }
+        // the root of a block is its first series
+        int[] id = new int[nvars];
+        int nblocks = 0;
+        for (int i = 0; i < nvars; ++i) {
+            int r = root(parent, i);
+            id[i] = r == i ? nblocks++ : id[r];
+        }
+        // series and constraints grouped by blocks (CSR)
+        int[] vstarts = new int[nblocks + 1], cstarts = new int[nblocks + 1];
+        for (int i = 0; i < nvars; ++i) {
+            ++vstarts[id[i] + 1];
+        }
+        for (Constraint cnt : cs) {
+            if (cnt.index.length > 0) {
+                ++cstarts[id[cnt.index[0]] + 1];
+            }
+        }
+        for (int b = 0; b < nblocks; ++b) {
+            vstarts[b + 1] += vstarts[b];
+            cstarts[b + 1] += cstarts[b];
+        }
+        int[] vars = new int[nvars], cnts = new int[cstarts[nblocks]], local = new int[nvars];
+        int[] vpos = vstarts.clone(), cpos = cstarts.clone();
+        for (int i = 0; i < nvars; ++i) {
+            int b = id[i];
+            local[i] = vpos[b] - vstarts[b];
+            vars[vpos[b]++] = i;
+        }
+        for (int i = 0; i < cs.length; ++i) {
+            if (cs[i].index.length > 0) {
+                cnts[cpos[id[cs[i].index[0]]]++] = i;
+            }
+        }
+        List<Block> blocks = new ArrayList<>(nblocks);
+        for (int b = 0; b < nblocks; ++b) {
+            blocks.add(new Block(Arrays.copyOfRange(vars, vstarts[b], vstarts[b + 1]),
+                    Arrays.copyOfRange(cnts, cstarts[b], cstarts[b + 1]), local));
+        }
+        return blocks;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
     private void loadInfo(Map<String, TsData> data, MultivariateCholetteSpec spec) {
         // inputs
         inputs.putAll(data);
@@ -122,28 +322,34 @@ class MultivariateCholetteEngine {
             addTemporalConstraint(desc);
         }
 
-        // contemporaneous constraints
-        for (ContemporaneousConstraint desc : spec.getContemporaneousConstraints()) {
-            addContemporaneousConstraint(desc);
+        // contemporaneous constraints (the wild cards are expanded in one pass)
+        List<ContemporaneousConstraint> cnts = spec.getContemporaneousConstraints();
+        List<ContemporaneousConstraint> xcnts = ContemporaneousConstraint.expand(cnts, inputs.keySet());
+        for (int i = 0; i < cnts.size(); ++i) {
+            addContemporaneousConstraint(cnts.get(i), xcnts.get(i));
         }
         rho = spec.getRho();
         lambda = spec.getLambda();
+        solver = spec.getSolver();
     }
 
-    private void addContemporaneousConstraint(ContemporaneousConstraint cnt) {
+    /**
+     *
+     * @param cnt The constraint
+     * @param xcnt The constraint with expanded wild cards
+     */
+    private void addContemporaneousConstraint(ContemporaneousConstraint cnt, ContemporaneousConstraint xcnt) {
         if (cnt.getConstraint() != null && !inputs.containsKey(cnt.getConstraint())) {
             throw new IllegalArgumentException("Invalid contemporaneous constraint: " + cnt.getConstraint());
         }
-        if (cnt.hasWildCards()) {
-            cnt = cnt.expand(inputs.keySet());
-        } else {
+        if (!cnt.hasWildCards()) {
             for (WeightedItem<String> ws : cnt.getComponents()) {
                 if (!inputs.containsKey(ws.getItem())) {
                     throw new IllegalArgumentException("Invalid contemporaneous constraint: " + ws.getItem());
                 }
             }
         }
-        contemporaneousConstraints.add(cnt);
+        contemporaneousConstraints.add(xcnt);
     }
 
     private void addTemporalConstraint(TemporalConstraint cnt) {
@@ -154,75 +360,163 @@ class MultivariateCholetteEngine {
         temporalConstraints.put(cnt.getDetail(), cnt.getAggregate());
     }
 
-    private void benchmarkIndependentConstraints(Map<String, TsData> rslts) {
-
+    /**
+     * Benchmarks the series that are only temporally constrained (in parallel)
+     *
+     * @return
+     */
+    private Map<String, TsData> benchmarkIndependentConstraints() {
         CholetteSpec uspec = CholetteSpec.builder()
                 .aggregationType(AggregationType.Sum)
                 .bias(CholetteSpec.BiasCorrection.None)
                 .lambda(lambda)
                 .rho(rho)
                 .build();
-        CholetteProcessor cf = new CholetteProcessor();
+        List<String> details = new ArrayList<>();
+        List<TsData> q = new ArrayList<>(), a = new ArrayList<>();
         temporalConstraints.forEach(
                 (detail, agg) -> {
-                    if (!rcnt.contains(detail)) {
-                        TsData q = inputs.get(detail);
-                        TsData a = inputs.get(agg);
-                        TsData b = cf.benchmark(q, a, uspec);
-                        if (b != null) {
-                            rslts.put(detail, b);
-                        }
+                    if (!rcntIds.containsKey(detail)) {
+                        details.add(detail);
+                        q.add(inputs.get(detail));
+                        a.add(inputs.get(agg));
                     }
                 });
+        Map<String, TsData> rslts = new HashMap<>();
+        if (details.isEmpty()) {
+            return rslts;
+        }
+        List<TsData> b = CholetteProcessor.PROCESSOR.benchmark(q, a, uspec, pool);
+        for (int i = 0; i < b.size(); ++i) {
+            if (b.get(i) != null) {
+                rslts.put(details.get(i), b.get(i));
+            }
+        }
+        return rslts;
     }
 
-    private void computeContemporaneous(Map<String, TsData> rslts) {
+    private void computeContemporaneous(Block block, TsData[] rslts) {
 
         // compute weights, adjust constraints...
-        int nvars = rcnt.size(), ncnts = cs.length;;
+        int nvars = block.vars.length, ncnts = block.cnts.length;
+        double[][] weights = block.weights();
+        if (nvars >= INFORMATION_MINVARS && computeInformation(block, weights, rslts)) {
+            return;
+        }
         IMultivariateSsf ssf = ContemporaneousSsfCholette.builder(nvars)
                 .rho(rho)
                 .weights(weights)
-                .constraints(cs)
+                .constraints(block.constraints)
                 .build();
 
         // build the observations
         FastMatrix M = FastMatrix.make(idomain.getLength(), ncnts);
         for (int i = 0; i < ncnts; ++i) {
-            M.column(i).copyFrom(lcntData[i], 0);
+            M.column(i).copyFrom(lcntData[block.cnts[i]], 0);
         }
 
         ISsf ussf = M2uAdapter.of(ssf);
         ISsfData udata = M2uAdapter.of(new SsfMatrix(M));
         DataBlockStorage states = DkToolkit.fastSmooth(ussf, udata);
 
-        int neq = cs.length;
+        int neq = ncnts;
         for (int i = 0; i < nvars; ++i) {
-            TsData s = inputs.get(rcnt.get(i));
+            TsData s = inputs.get(rcnt.get(block.vars[i]));
             TsData sc = TsDataToolkit.fitToDomain(s, idomain);
             double[] y = sc.getValues().toArray();
             DataBlock t = states.item(i);
             for (int j = 0; j < y.length; ++j) {
                 y[j] += t.get(j * neq) * weights[i][j];
             }
-            rslts.put(rcnt.get(i), TsData.ofInternal(idomain.getStartPeriod(), y));
+            rslts[block.vars[i]] = TsData.ofInternal(idomain.getStartPeriod(), y);
+        }
+    }
+
+    /**
+     * Benchmarks a large contemporaneous block in information form, when the
+     * constraints are sparse enough. The state space form needs O(nvars^2)
+     * operations by constraint and by period. The information form is not
+     * used when it is more expensive or when its memory can't be reserved in
+     * the global budget (see setInformationMemory). The memory is released
+     * when the block is solved
+     *
+     * @param block
+     * @param weights
+     * @param rslts
+     * @return false if the information form was not used
+     */
+    private boolean computeInformation(Block block, double[][] weights, TsData[] rslts) {
+        int n = idomain.getLength(), nvars = block.vars.length, ncnts = block.cnts.length;
+        SparseContemporaneousCholette information = new SparseContemporaneousCholette(n, nvars, block.constraints);
+        if (information.cost() >= (double) n * ncnts * nvars * nvars) {
+            return false;
+        }
+        long memory = information.memory();
+        if (!reserveInformationMemory(memory)) {
+            return false;
+        }
+        try {
+            double[][] z = new double[ncnts][];
+            for (int i = 0; i < ncnts; ++i) {
+                z[i] = lcntData[block.cnts[i]];
+            }
+            double[][] e = information.process(rho, weights, z);
+            if (e == null) {
+                return false;
+            }
+            store(block, weights, e, rslts);
+            return true;
+        } finally {
+            INFORMATION_USED.addAndGet(-memory);
+        }
+    }
+
+    private static boolean reserveInformationMemory(long memory) {
+        for (;;) {
+            long used = INFORMATION_USED.get();
+            if (used + memory > informationMemory) {
+                return false;
+            }
+            if (INFORMATION_USED.compareAndSet(used, used + memory)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sets the memory that can be used at the same time by the information
+     * forms of the contemporaneous blocks. The budget is shared by all the
+     * blocks processed concurrently, in all the engines
+     *
+     * @param bytes The memory, in bytes. 0 disables the information form
+     */
+    static void setInformationMemory(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException();
         }
+        informationMemory = bytes;
+    }
+
+    static long getInformationMemory() {
+        return informationMemory;
     }
 
     private void buildMaps() {
         // first of all, we go through the constraints to get information on the used series
         for (ContemporaneousConstraint desc : contemporaneousConstraints) {
-            if (rcnt.contains(desc.getConstraint())) {
-                throw new IllegalArgumentException("Binding constraint cannot be used in definitions: " + desc.getConstraint());
+            if (rcntIds.containsKey(desc.getConstraint())) {
+                throw new IllegalArgumentException("Binding constraint cannot be used in definitions (use the hierarchical mode): " + desc.getConstraint());
             }
             // TODO Deal with such cases. Use "extended names" and modify the current constraint
-            if (!lcnt.contains(desc.getConstraint())) {
+            if (!lcntIds.containsKey(desc.getConstraint())) {
+                lcntIds.put(desc.getConstraint(), lcnt.size());
                 lcnt.add(desc.getConstraint());
             }
             for (WeightedItem<String> wc : desc.getComponents()) {
-                if (lcnt.contains(wc.getItem())) {
+                if (lcntIds.containsKey(wc.getItem())) {
                     throw new IllegalArgumentException("Component definition cannot be a constraint: " + wc.getItem());
-                } else if (!rcnt.contains(wc.getItem())) {
+                } else if (!rcntIds.containsKey(wc.getItem())) {
+                    rcntIds.put(wc.getItem(), rcnt.size());
                     rcnt.add(wc.getItem());
                 }
             }
@@ -231,12 +525,15 @@ class MultivariateCholetteEngine {
         cs = new Constraint[contemporaneousConstraints.size()];
         int pos = 0;
         for (ContemporaneousConstraint desc : contemporaneousConstraints) {
-            HashMap<Integer, Double> constraint = new HashMap<>();
-            for (WeightedItem<String> cur : desc.getComponents()) {
-                constraint.put(rcnt.indexOf(cur.getItem()), cur.getWeight());
+            List<WeightedItem<String>> components = desc.getComponents();
+            int[] index = new int[components.size()];
+            double[] w = new double[index.length];
+            for (int i = 0; i < index.length; ++i) {
+                WeightedItem<String> cur = components.get(i);
+                index[i] = rcntIds.get(cur.getItem());
+                w[i] = cur.getWeight();
             }
-            Constraint acnt = new Constraint(constraint);
-            cs[pos++] = acnt;
+            cs[pos++] = new Constraint(index, w);
         }
 
         lcntData = new double[contemporaneousConstraints.size()][];
@@ -348,15 +645,16 @@ class MultivariateCholetteEngine {
         return w;
     }
 
-    private void compute(Map<String, TsData> rslts) {
+    private void compute(Block block, TsData[] rslts) {
         int c = idomain.getTsUnit().ratioOf(aggUnit);
-        int nvars = rcnt.size(), ncnts = cs.length;
+        int nvars = block.vars.length, ncnts = block.cnts.length;
         int len = idomain.getLength();
+        double[][] weights = block.weights();
 
         IMultivariateSsf ssf = MultivariateSsfCholette.builder(nvars)
                 .conversion(c)
                 .rho(rho)
-                .constraints(cs)
+                .constraints(block.constraints)
                 .weights(weights)
                 .build();
         // build the observations
@@ -365,35 +663,87 @@ class MultivariateCholetteEngine {
 
         // fill the matrix: first rows with temporal constraints
         for (int i = 0; i < nvars; ++i) {
-            if (temporalConstraints.containsKey(rcnt.get(i))) {
-                TsData a = tcntData.get(rcnt.get(i));
+            String name = rcnt.get(block.vars[i]);
+            if (temporalConstraints.containsKey(name)) {
+                TsData a = tcntData.get(name);
                 DataBlock b = M.column(i).extract(c - 1, a.length(), c);
                 b.copy(a.getValues());
             }
         }
         for (int i = 0; i < ncnts; ++i) {
             DataBlock row = M.column(i + nvars);
-            row.copyFrom(lcntData[i], 0);
+            row.copyFrom(lcntData[block.cnts[i]], 0);
         }
         ISsf adapter = M2uAdapter.of(ssf);
         ISsfData data = M2uAdapter.of(new SsfMatrix(M));
         
-        FastStateSmoother2 smoother = new FastStateSmoother2(adapter);
-        DataBlockStorage states = smoother.process(data);
-
+        TsDataView[] sc = new TsDataView[nvars];
+        double[][] y = new double[nvars][];
+        for (int i = 0; i < nvars; ++i) {
+            TsData s = inputs.get(rcnt.get(block.vars[i]));
+            sc[i] = TsDataView.select(s, idomain);
+            y[i] = sc[i].getData().toArray();
+        }
+        // only the discrepancies at the beginning of each period are used;
+        // they are directly added to the results
         int neq = nvars + ncnts;
-        for (int i = 0; i < rcnt.size(); ++i) {
-            TsData s = inputs.get(rcnt.get(i));
-            TsDataView sc = TsDataView.select(s, idomain);
-            double[] y = sc.getData().toArray();
-            DoubleSeq t = states.item(2 * i + 1);
+        FastStateSmoother2 smoother = new FastStateSmoother2(adapter, SmootherWorkspace.local());
+        smoother.process(data, (pos, a) -> {
+            if (pos % neq == 0) {
+                int j = pos / neq;
+                for (int i = 0; i < nvars; ++i) {
+                    if (j < y[i].length) {
+                        y[i][j] += a.get(2 * i + 1) * weights[i][j];
+                    }
+                }
+            }
+        });
+        for (int i = 0; i < nvars; ++i) {
+            rslts[block.vars[i]] = TsData.ofInternal(sc[i].getStart(), y[i]);
+        }
+    }
+
+    /**
+     * Benchmarks a block with the sparse solver
+     *
+     * @param block
+     * @param rslts
+     * @return false if the sparse solver failed
+     */
+    private boolean computeSparse(Block block, TsData[] rslts) {
+        int c = block.hasTemporalConstraints() ? idomain.getTsUnit().ratioOf(aggUnit) : 1;
+        int nvars = block.vars.length, ncnts = block.cnts.length;
+        double[][] weights = block.weights();
+        double[][] z = new double[ncnts][];
+        for (int i = 0; i < ncnts; ++i) {
+            z[i] = lcntData[block.cnts[i]];
+        }
+        double[][] a = new double[nvars][];
+        for (int i = 0; i < nvars; ++i) {
+            TsData cur = tcntData.get(rcnt.get(block.vars[i]));
+            if (cur != null) {
+                a[i] = cur.getValues().toArray();
+            }
+        }
+        double[][] e = SparseMultivariateCholette.process(idomain.getLength(), c, rho, weights, block.constraints, z, a);
+        if (e == null) {
+            return false;
+        }
+        store(block, weights, e, rslts);
+        return true;
+    }
+
+    /**
+     * Adds the weighted discrepancies to the series of a block
+     */
+    private void store(Block block, double[][] weights, double[][] e, TsData[] rslts) {
+        for (int i = 0; i < block.vars.length; ++i) {
+            TsData s = TsDataToolkit.fitToDomain(inputs.get(rcnt.get(block.vars[i])), idomain);
+            double[] y = s.getValues().toArray();
             for (int j = 0; j < y.length; ++j) {
-                y[j] += t.get(j * neq) * weights[i][j];
+                y[j] += e[i][j] * weights[i][j];
             }
-            rslts.put(rcnt.get(i), TsData.ofInternal(sc.getStart(), y));
+            rslts[block.vars[i]] = TsData.ofInternal(idomain.getStartPeriod(), y);
         }
     }
-    
-    
-    
-}
+}
\ No newline at end of file
@@ -20,6 +20,7 @@ import jdplus.benchmarking.base.api.benchmarking.multivariate.MultivariateCholet
 import jdplus.benchmarking.base.api.benchmarking.multivariate.MultivariateCholetteSpec;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import nbbrd.service.ServiceProvider;
 
 /**
@@ -29,10 +30,47 @@ import nbbrd.service.ServiceProvider;
 @ServiceProvider(MultivariateCholette.Processor.class)
 public class MultivariateCholetteProcessor implements MultivariateCholette.Processor {
 
+    /**
+     * Default memory (in bytes) available for the information forms
+     */
+    public static final long DEF_INFORMATION_MEMORY = MultivariateCholetteEngine.DEF_INFORMATION_MEMORY;
+
     @Override
     public Map<String, TsData> benchmark(Map<String, TsData> dictionary, MultivariateCholetteSpec spec) {
+        if (spec.isHierarchical()) {
+            return new HierarchicalCholetteEngine().process(dictionary, spec);
+        }
         MultivariateCholetteEngine engine=new MultivariateCholetteEngine();
         return engine.process(dictionary, spec);
     }
 
+    @Override
+    public Map<String, TsData> benchmark(Map<String, TsData> dictionary, MultivariateCholetteSpec spec, ForkJoinPool pool) {
+        if (spec.isHierarchical()) {
+            return new HierarchicalCholetteEngine(pool).process(dictionary, spec);
+        }
+        MultivariateCholetteEngine engine = new MultivariateCholetteEngine(pool);
+        return engine.process(dictionary, spec);
+    }
+
+    /**
+     * Sets the memory that can be used at the same time by the information
+     * forms of the large contemporaneous blocks (see
+     * SparseContemporaneousCholette). The budget is shared by all the blocks
+     * benchmarked concurrently, by all the calls. The blocks that don't fit in
+     * the remaining memory use the state space form
+     *
+     * @param bytes The memory, in bytes. 0 disables the information form
+     */
+    public static void setInformationMemory(long bytes) {
+        MultivariateCholetteEngine.setInformationMemory(bytes);
+    }
+
+    /**
+     * @return The memory (in bytes) available for the information forms
+     */
+    public static long getInformationMemory() {
+        return MultivariateCholetteEngine.getInformationMemory();
+    }
+
 }
@@ -0,0 +1,669 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.benchmarking.multivariate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Contemporaneous Cholette benchmarking (see ContemporaneousSsfCholette),
+ * solved in information (precision) form for large sets of series linked by
+ * sparse constraints.
+ *
+ * The discrepancies e(i) of the series are independent AR(1) processes, with
+ * the tridiagonal precision matrix Q. They minimize sum(e(i)'Q e(i)) subject to
+ * A(t) e(t) = z(t), where the rows of A(t) are the (weighted) constraints. The
+ * series are eliminated one by one from the KKT system: each of them adds
+ * W(i) Q^-1 W(i) to the blocks of the (Schur) system of the multipliers of its
+ * constraints. That system has a block structure given by the graph of the
+ * constraints (two constraints are linked when they share a series), with
+ * dense blocks of size n. It is factorized by a block Cholesky decomposition,
+ * the constraints being ordered by minimum degree. The discrepancies are then
+ * obtained by tridiagonal solutions.
+ *
+ * As for SparseMultivariateCholette, the system is regularized (delta on the
+ * discrepancies and on the multipliers), which handles the diffuse case (rho
+ * = 1) and redundant constraints, and the exact solution is obtained by
+ * iterative refinement.
+ *
+ * Memory: O(n * (nvars + number of weights) + n^2 * number of blocks) instead
+ * of O(nvars^2) by period for the state space form. Time: O(n^2 * sum(k(i)^2)
+ * + n^3 * number of block updates), where k(i) is the number of constraints
+ * of the series i, instead of O(n * ncnts * nvars^2). The symbolic analysis
+ * (ordering and fill) is O(fill * log(ncnts)).
+ *
+ * This is a partial realization of the information form. Only the blocks
+ * without temporal constraints are handled. The blocks of the Schur system
+ * are dense: the memory grows with n^2 for each (filled) pair of constraints,
+ * whatever the sparsity of the constraints in time. The blocks with temporal
+ * constraints use the time-ordered sparse solver (SparseMultivariateCholette),
+ * whose memory is linear in n. The memory of the information forms is taken
+ * from a budget shared by the blocks processed concurrently (see
+ * MultivariateCholetteProcessor.setInformationMemory); the blocks that don't
+ * fit in it use the state space form.
+ *
+ * @author Jean Palate
+ */
+final class SparseContemporaneousCholette {
+
+    private static final double DELTA = 1e-8, EPS = 1e-13, TOL = 1e-8, ZERO = 1e-12;
+    private static final int MAXITER = 20;
+
+    private final int n, nvars;
+    private final Constraint[] constraints;
+    /**
+     * Constraints (positions in constraints) and corresponding weights of each
+     * series
+     */
+    private final int[][] scnts;
+    private final double[][] sweights;
+    /**
+     * Elimination order of the constraints and rank of each constraint in that
+     * order
+     */
+    private final int[] order, rank;
+    /**
+     * Later neighbours (ranks, sorted) of each rank in the filled graph of the
+     * constraints
+     */
+    private final int[][] struct;
+
+    /**
+     * Symbolic analysis of the problem
+     *
+     * @param n The number of periods
+     * @param nvars The number of series
+     * @param constraints The constraints
+     */
+    SparseContemporaneousCholette(int n, int nvars, Constraint[] constraints) {
+        this.n = n;
+        this.nvars = nvars;
+        this.constraints = constraints;
+        int ncnts = constraints.length;
+        int[] counts = new int[nvars];
+        for (Constraint cnt : constraints) {
+            for (int i : cnt.index) {
+                ++counts[i];
+            }
+        }
+        scnts = new int[nvars][];
+        sweights = new double[nvars][];
+        for (int i = 0; i < nvars; ++i) {
+            scnts[i] = new int[counts[i]];
+            sweights[i] = new double[counts[i]];
+            counts[i] = 0;
+        }
+        for (int k = 0; k < ncnts; ++k) {
+            Constraint cnt = constraints[k];
+            for (int j = 0; j < cnt.index.length; ++j) {
+                int i = cnt.index[j];
+                scnts[i][counts[i]] = k;
+                sweights[i][counts[i]++] = cnt.weights[j];
+            }
+        }
+        // graph of the constraints
+        List<Set<Integer>> adj = new ArrayList<>(ncnts);
+        for (int k = 0; k < ncnts; ++k) {
+            adj.add(new HashSet<>());
+        }
+        for (int i = 0; i < nvars; ++i) {
+            int[] cur = scnts[i];
+            for (int a = 0; a < cur.length; ++a) {
+                for (int b = 0; b < a; ++b) {
+                    adj.get(cur[a]).add(cur[b]);
+                    adj.get(cur[b]).add(cur[a]);
+                }
+            }
+        }
+        // minimum degree ordering (elimination game). The candidates are kept
+        // in a priority queue of (degree, constraint) keys; a key is added when
+        // the degree of a constraint changes and the obsolete keys are skipped.
+        // Ties are broken by the position of the constraint
+        order = new int[ncnts];
+        rank = new int[ncnts];
+        int[][] nbrs = new int[ncnts][];
+        boolean[] done = new boolean[ncnts];
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int k = 0; k < ncnts; ++k) {
+            queue.add(key(adj.get(k).size(), k));
+        }
+        for (int step = 0; step < ncnts; ++step) {
+            int kmin;
+            for (;;) {
+                long top = queue.poll();
+                kmin = (int) top;
+                if (!done[kmin] && (int) (top >>> 32) == adj.get(kmin).size()) {
+                    break;
+                }
+            }
+            order[step] = kmin;
+            rank[kmin] = step;
+            done[kmin] = true;
+            Set<Integer> cur = adj.get(kmin);
+            nbrs[step] = cur.stream().mapToInt(k -> k).toArray();
+            for (int a : nbrs[step]) {
+                Set<Integer> anbrs = adj.get(a);
+                anbrs.remove(kmin);
+                for (int b : nbrs[step]) {
+                    if (a != b) {
+                        anbrs.add(b);
+                    }
+                }
+                queue.add(key(anbrs.size(), a));
+            }
+            cur.clear();
+        }
+        struct = new int[ncnts][];
+        for (int p = 0; p < ncnts; ++p) {
+            int[] s = nbrs[p];
+            for (int j = 0; j < s.length; ++j) {
+                s[j] = rank[s[j]];
+            }
+            Arrays.sort(s);
+            struct[p] = s;
+        }
+    }
+
+    private static long key(int degree, int k) {
+        return ((long) degree << 32) | k;
+    }
+
+    /**
+     * Estimated number of operations of the solution
+     *
+     * @return
+     */
+    double cost() {
+        double c = 0;
+        for (int[] cur : scnts) {
+            c += (double) n * n * cur.length * cur.length;
+        }
+        for (int[] cur : struct) {
+            c += (double) n * n * n * (1 + cur.length) * (2 + cur.length) / 2;
+        }
+        return c;
+    }
+
+    /**
+     * Estimated memory (in bytes) of the solution: dense n x n blocks of the
+     * Schur complement (diagonal blocks and fill, given by the symbolic
+     * analysis) and of (Q + delta*I)^-1
+     *
+     * @return
+     */
+    long memory() {
+        long nblocks = 1 + struct.length;
+        for (int[] cur : struct) {
+            nblocks += cur.length;
+        }
+        return nblocks * n * n * Double.BYTES;
+    }
+
+    /**
+     *
+     * @param rho The AR coefficient of the discrepancies
+     * @param w The weights of the series (by series). Null for unit weights
+     * @param z The values of the constraints (by constraint), corrected for
+     * the initial series. Missing values are identified by NaN
+     * @return The smoothed discrepancies (by series) or null if the system
+     * could not be solved (inconsistent constraints). The caller should then
+     * use the state space form.
+     */
+    double[][] process(double rho, double[][] w, double[][] z) {
+        return new Solver(rho, w, z).solve();
+    }
+
+    private int position(int p, int q) {
+        return Arrays.binarySearch(struct[p], q);
+    }
+
+    private class Solver {
+
+        final int ncnts = constraints.length;
+        final double rho;
+        final double[][] w;
+        /**
+         * Scaling factors of the constraints (0 for missing values)
+         */
+        final double[][] sc;
+        /**
+         * Scaled constraints
+         */
+        final double[][] y;
+        /**
+         * LDL' decomposition of the regularized precision matrix
+         */
+        final double[] qd = new double[n], ql = new double[n];
+        /**
+         * Blocks of the Schur system (by rank): diagonal blocks and blocks
+         * below the diagonal (rows of struct[p][j], columns of p). n x n,
+         * row-major
+         */
+        final double[][] diag;
+        final double[][][] lower;
+        /**
+         * Largest diagonal element of S, used to identify dependent constraints
+         */
+        double dmax;
+
+        Solver(double rho, double[][] w, double[][] z) {
+            this.rho = rho;
+            this.w = w;
+            sc = new double[ncnts][n];
+            y = new double[ncnts][n];
+            for (int k = 0; k < ncnts; ++k) {
+                Constraint cnt = constraints[k];
+                for (int t = 0; t < n; ++t) {
+                    if (t < z[k].length && Double.isFinite(z[k][t])) {
+                        double s = 0;
+                        for (int j = 0; j < cnt.index.length; ++j) {
+                            s = Math.max(s, Math.abs(cnt.weights[j] * weight(cnt.index[j], t)));
+                        }
+                        s = s == 0 ? 1 : 1 / s;
+                        sc[k][t] = s;
+                        y[k][t] = s * z[k][t];
+                    }
+                }
+            }
+            diag = new double[ncnts][];
+            lower = new double[ncnts][][];
+        }
+
+        double weight(int i, int t) {
+            return w == null ? 1 : w[i][t];
+        }
+
+        double[][] solve() {
+            factorizeQ();
+            if (!buildSchur() || !decompose()) {
+                return null;
+            }
+            double[][] e = new double[nvars][n], mu = new double[ncnts][n];
+            double[][] re = new double[nvars][n], rmu = new double[ncnts][n];
+            double bmax = 0;
+            for (int k = 0; k < ncnts; ++k) {
+                for (int t = 0; t < n; ++t) {
+                    bmax = Math.max(bmax, Math.abs(y[k][t]));
+                }
+            }
+            if (bmax == 0) {
+                return e;
+            }
+            double err = Double.MAX_VALUE;
+            for (int iter = 0; iter <= MAXITER; ++iter) {
+                // residuals of the actual system
+                residuals(e, mu, re, rmu);
+                double nerr = 0;
+                for (double[] r : re) {
+                    for (int t = 0; t < n; ++t) {
+                        nerr = Math.max(nerr, Math.abs(r[t]));
+                    }
+                }
+                for (double[] r : rmu) {
+                    for (int t = 0; t < n; ++t) {
+                        nerr = Math.max(nerr, Math.abs(r[t]));
+                    }
+                }
+                if (nerr <= EPS * bmax || nerr >= err) {
+                    err = Math.min(nerr, err);
+                    break;
+                }
+                err = nerr;
+                correct(re, rmu);
+                for (int i = 0; i < nvars; ++i) {
+                    for (int t = 0; t < n; ++t) {
+                        e[i][t] += re[i][t];
+                    }
+                }
+                for (int k = 0; k < ncnts; ++k) {
+                    for (int t = 0; t < n; ++t) {
+                        mu[k][t] += rmu[k][t];
+                    }
+                }
+            }
+            return err <= TOL * bmax ? e : null;
+        }
+
+        void factorizeQ() {
+            double rho2 = rho * rho;
+            for (int t = 0; t < n; ++t) {
+                double q = (t == 0 ? 1 - rho2 : 1) + (t < n - 1 ? rho2 : 0) + DELTA;
+                if (t > 0) {
+                    ql[t] = -rho / qd[t - 1];
+                    q += rho * ql[t];
+                }
+                qd[t] = q;
+            }
+        }
+
+        /**
+         * In place solution of (Q + delta*I) x = b
+         */
+        void qsolve(double[] x) {
+            for (int t = 1; t < n; ++t) {
+                x[t] -= ql[t] * x[t - 1];
+            }
+            for (int t = 0; t < n; ++t) {
+                x[t] /= qd[t];
+            }
+            for (int t = n - 2; t >= 0; --t) {
+                x[t] -= ql[t + 1] * x[t + 1];
+            }
+        }
+
+        /**
+         * S = A (Q + delta*I)^-1 A' + delta*I
+         */
+        boolean buildSchur() {
+            if ((long) n * n > Integer.MAX_VALUE) {
+                return false;
+            }
+            // G = (Q+delta*I)^-1
+            double[] G = new double[n * n];
+            double[] col = new double[n];
+            for (int s = 0; s < n; ++s) {
+                Arrays.fill(col, 0);
+                col[s] = 1;
+                qsolve(col);
+                System.arraycopy(col, 0, G, s * n, n);
+            }
+            for (int p = 0; p < ncnts; ++p) {
+                diag[p] = new double[n * n];
+                lower[p] = new double[struct[p].length][n * n];
+            }
+            double[] wa = new double[n], wb = new double[n];
+            for (int i = 0; i < nvars; ++i) {
+                int[] cur = scnts[i];
+                for (int a = 0; a < cur.length; ++a) {
+                    int ka = cur[a], pa = rank[ka];
+                    for (int t = 0; t < n; ++t) {
+                        wa[t] = sc[ka][t] * sweights[i][a] * weight(i, t);
+                    }
+                    for (int b = 0; b < cur.length; ++b) {
+                        int kb = cur[b], pb = rank[kb];
+                        if (pb > pa) {
+                            continue;
+                        }
+                        for (int t = 0; t < n; ++t) {
+                            wb[t] = sc[kb][t] * sweights[i][b] * weight(i, t);
+                        }
+                        double[] block = pa == pb ? diag[pa] : lower[pb][position(pb, pa)];
+                        for (int s = 0, ps = 0; s < n; ++s) {
+                            double ws = wa[s];
+                            if (ws == 0) {
+                                ps += n;
+                                continue;
+                            }
+                            for (int t = 0; t < n; ++t, ++ps) {
+                                block[ps] += ws * G[ps] * wb[t];
+                            }
+                        }
+                    }
+                }
+            }
+            // missing constraints and regularization
+            for (int p = 0; p < ncnts; ++p) {
+                double[] d = diag[p];
+                double[] sp = sc[order[p]];
+                for (int t = 0; t < n; ++t) {
+                    d[t * n + t] += sp[t] == 0 ? 1 : DELTA;
+                    dmax = Math.max(dmax, d[t * n + t]);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * In place block Cholesky decomposition of S
+         */
+        boolean decompose() {
+            for (int p = 0; p < ncnts; ++p) {
+                double[] L = diag[p];
+                if (!cholesky(L)) {
+                    return false;
+                }
+                int[] s = struct[p];
+                double[][] X = lower[p];
+                // X = S(q, p) * L^-T
+                for (double[] x : X) {
+                    for (int r = 0; r < n; ++r) {
+                        int pr = r * n;
+                        for (int c = 0; c < n; ++c) {
+                            double v = x[pr + c];
+                            for (int k = 0, pc = c * n; k < c; ++k) {
+                                v -= x[pr + k] * L[pc + k];
+                            }
+                            x[pr + c] = v / L[c * n + c];
+                        }
+                    }
+                }
+                // S(q1, q2) -= X1 * X2'
+                for (int j1 = 0; j1 < s.length; ++j1) {
+                    double[] x1 = X[j1];
+                    for (int j2 = 0; j2 <= j1; ++j2) {
+                        double[] x2 = X[j2];
+                        double[] target = j1 == j2 ? diag[s[j1]] : lower[s[j2]][position(s[j2], s[j1])];
+                        for (int r = 0; r < n; ++r) {
+                            int pr = r * n;
+                            for (int c = 0; c < n; ++c) {
+                                int pc = c * n;
+                                double v = 0;
+                                for (int k = 0; k < n; ++k) {
+                                    v += x1[pr + k] * x2[pc + k];
+                                }
+                                target[pr + c] -= v;
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * In place dense Cholesky decomposition (lower part). Negligible
+         * pivots correspond to dependent constraints; the related column is
+         * dropped (infinite diagonal)
+         */
+        boolean cholesky(double[] a) {
+            for (int j = 0; j < n; ++j) {
+                int pj = j * n;
+                double d = a[pj + j];
+                for (int k = 0; k < j; ++k) {
+                    d -= a[pj + k] * a[pj + k];
+                }
+                if (!Double.isFinite(d)) {
+                    return false;
+                }
+                if (d <= ZERO * dmax) {
+                    // dependent constraint: the multiplier is set to 0
+                    a[pj + j] = Double.POSITIVE_INFINITY;
+                    for (int i = j + 1; i < n; ++i) {
+                        a[i * n + j] = 0;
+                    }
+                    continue;
+                }
+                d = Math.sqrt(d);
+                a[pj + j] = d;
+                for (int i = j + 1; i < n; ++i) {
+                    int pi = i * n;
+                    double v = a[pi + j];
+                    for (int k = 0; k < j; ++k) {
+                        v -= a[pi + k] * a[pj + k];
+                    }
+                    a[pi + j] = v / d;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * In place solution of S x = b (b by constraints)
+         */
+        void ssolve(double[][] b) {
+            for (int p = 0; p < ncnts; ++p) {
+                double[] x = b[order[p]], L = diag[p];
+                for (int r = 0; r < n; ++r) {
+                    double v = x[r];
+                    for (int k = 0, pr = r * n; k < r; ++k) {
+                        v -= L[pr + k] * x[k];
+                    }
+                    x[r] = v / L[r * n + r];
+                }
+                int[] s = struct[p];
+                for (int j = 0; j < s.length; ++j) {
+                    double[] xq = b[order[s[j]]], X = lower[p][j];
+                    for (int r = 0, pr = 0; r < n; ++r) {
+                        double v = 0;
+                        for (int c = 0; c < n; ++c, ++pr) {
+                            v += X[pr] * x[c];
+                        }
+                        xq[r] -= v;
+                    }
+                }
+            }
+            for (int p = ncnts - 1; p >= 0; --p) {
+                double[] x = b[order[p]], L = diag[p];
+                int[] s = struct[p];
+                for (int j = 0; j < s.length; ++j) {
+                    double[] xq = b[order[s[j]]], X = lower[p][j];
+                    for (int r = 0, pr = 0; r < n; ++r) {
+                        double v = xq[r];
+                        for (int c = 0; c < n; ++c, ++pr) {
+                            x[c] -= X[pr] * v;
+                        }
+                    }
+                }
+                for (int r = n - 1; r >= 0; --r) {
+                    double v = x[r] / L[r * n + r];
+                    x[r] = v;
+                    for (int k = 0, pr = r * n; k < r; ++k) {
+                        x[k] -= L[pr + k] * v;
+                    }
+                }
+            }
+        }
+
+        /**
+         * v(i) += A(i)' mu
+         */
+        void addAtmu(double[][] mu, double[][] v) {
+            for (int k = 0; k < ncnts; ++k) {
+                Constraint cnt = constraints[k];
+                double[] m = mu[k], s = sc[k];
+                for (int j = 0; j < cnt.index.length; ++j) {
+                    int i = cnt.index[j];
+                    double[] vi = v[i];
+                    double bw = cnt.weights[j];
+                    for (int t = 0; t < n; ++t) {
+                        vi[t] += s[t] * bw * weight(i, t) * m[t];
+                    }
+                }
+            }
+        }
+
+        /**
+         * r(k) = A(k) e
+         */
+        void Ae(double[][] e, double[][] r) {
+            for (int k = 0; k < ncnts; ++k) {
+                Constraint cnt = constraints[k];
+                double[] rk = r[k], s = sc[k];
+                Arrays.fill(rk, 0);
+                for (int j = 0; j < cnt.index.length; ++j) {
+                    int i = cnt.index[j];
+                    double[] ei = e[i];
+                    double bw = cnt.weights[j];
+                    for (int t = 0; t < n; ++t) {
+                        rk[t] += s[t] * bw * weight(i, t) * ei[t];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Residuals of the actual KKT system (the multipliers of the missing
+         * constraints are fixed to 0)
+         */
+        void residuals(double[][] e, double[][] mu, double[][] re, double[][] rmu) {
+            for (int i = 0; i < nvars; ++i) {
+                double[] ei = e[i], r = re[i];
+                for (int t = 0; t < n; ++t) {
+                    double q = (t == 0 ? 1 - rho * rho : 1) + (t < n - 1 ? rho * rho : 0);
+                    double v = q * ei[t];
+                    if (t > 0) {
+                        v -= rho * ei[t - 1];
+                    }
+                    if (t < n - 1) {
+                        v -= rho * ei[t + 1];
+                    }
+                    r[t] = -v;
+                }
+            }
+            double[][] Atmu = new double[nvars][n];
+            addAtmu(mu, Atmu);
+            for (int i = 0; i < nvars; ++i) {
+                for (int t = 0; t < n; ++t) {
+                    re[i][t] -= Atmu[i][t];
+                }
+            }
+            Ae(e, rmu);
+            for (int k = 0; k < ncnts; ++k) {
+                for (int t = 0; t < n; ++t) {
+                    rmu[k][t] = sc[k][t] == 0 ? mu[k][t] : y[k][t] - rmu[k][t];
+                }
+            }
+        }
+
+        /**
+         * In place solution of the regularized system
+         */
+        void correct(double[][] re, double[][] rmu) {
+            double[][] u = new double[nvars][];
+            for (int i = 0; i < nvars; ++i) {
+                u[i] = re[i].clone();
+                qsolve(u[i]);
+            }
+            double[][] Au = new double[ncnts][n];
+            Ae(u, Au);
+            for (int k = 0; k < ncnts; ++k) {
+                for (int t = 0; t < n; ++t) {
+                    rmu[k][t] = Au[k][t] - rmu[k][t];
+                }
+            }
+            ssolve(rmu);
+            for (int i = 0; i < nvars; ++i) {
+                double[] r = re[i];
+                for (int t = 0; t < n; ++t) {
+                    r[t] = -r[t];
+                }
+            }
+            addAtmu(rmu, re);
+            for (int i = 0; i < nvars; ++i) {
+                double[] r = re[i];
+                for (int t = 0; t < n; ++t) {
+                    r[t] = -r[t];
+                }
+                qsolve(r);
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.benchmarking.multivariate;
+
+/**
+ * Multivariate Cholette benchmarking solved as a sparse quadratic program (see
+ * MultivariateSsfCholette and ContemporaneousSsfCholette for the state space
+ * forms of the same model).
+ *
+ * The discrepancies e(i, t) of the different series are independent AR(1)
+ * processes (random walks with diffuse initial conditions when rho = 1). The
+ * benchmarked series are x(i, t) + w(i, t) * e(i, t). The smoothed
+ * discrepancies minimize sum(e(i)'Q e(i)), where Q is the (tridiagonal)
+ * precision matrix of the AR(1) process, subject to the temporal constraints
+ * (sums of w*e on the aggregation periods) and to the contemporaneous
+ * constraints (weighted sums of w*e at each period).
+ *
+ * The KKT system is ordered by periods (discrepancies, contemporaneous
+ * multipliers, temporal multipliers at the end of the aggregation period). It
+ * is regularized (+delta on the discrepancies, -delta on the multipliers) to
+ * get a quasi-definite matrix, which has a LDL' decomposition without pivoting,
+ * computed in its envelope. The solution of the actual system is obtained by
+ * iterative refinement. Redundant (but consistent) constraints are handled
+ * that way.
+ *
+ * Time: O(n * nvars * b^2), where b ~ nvars + ncnts is the width of the
+ * envelope (c * (nvars + ncnts) for the temporal multipliers), instead of
+ * O(n * (nvars + ncnts) * nvars^2) for the multivariate state space form.
+ *
+ * Large blocks with only contemporaneous constraints can also be solved in
+ * information form (SparseContemporaneousCholette), which is cheaper when the
+ * constraints are sparse but needs dense n x n blocks.
+ *
+ * @author Jean Palate
+ */
+final class SparseMultivariateCholette {
+
+    private static final double DELTA = 1e-8, EPS = 1e-13, TOL = 1e-8;
+    private static final int MAXITER = 20;
+
+    private SparseMultivariateCholette() {
+    }
+
+    /**
+     *
+     * @param n The number of periods
+     * @param c The number of periods in an aggregation period
+     * @param rho The AR coefficient of the discrepancies
+     * @param w The weights of the series (by series). Null for unit weights
+     * @param constraints The contemporaneous constraints
+     * @param z The values of the contemporaneous constraints (by constraint),
+     * corrected for the initial series. Missing values are identified by NaN
+     * @param a The values of the temporal constraints (by series), corrected
+     * for the initial series. Null if the series is not temporally constrained
+     * @return The smoothed discrepancies (by series) or null if the system
+     * could not be solved (too large problem, inconsistent constraints). The
+     * caller should then use the state space form.
+     */
+    static double[][] process(int n, int c, double rho, double[][] w,
+            Constraint[] constraints, double[][] z, double[][] a) {
+        int nvars = a.length, ncnts = constraints.length;
+        // positions of the unknowns
+        int[] start = new int[n + 1];
+        int nrows = 0;
+        for (int t = 0; t < n; ++t) {
+            start[t] = nrows;
+            nrows += nvars;
+            for (int k = 0; k < ncnts; ++k) {
+                if (t < z[k].length && Double.isFinite(z[k][t])) {
+                    ++nrows;
+                }
+            }
+            if ((t + 1) % c == 0) {
+                int p = t / c;
+                for (int i = 0; i < nvars; ++i) {
+                    if (temporal(a, i, p)) {
+                        ++nrows;
+                    }
+                }
+            }
+        }
+        start[n] = nrows;
+        // envelope
+        int[] first = new int[nrows];
+        long[] offsets = new long[nrows + 1];
+        for (int t = 0; t < n; ++t) {
+            int r = start[t];
+            for (int i = 0; i < nvars; ++i, ++r) {
+                first[r] = t == 0 ? r : start[t - 1] + i;
+            }
+            for (int k = 0; k < ncnts; ++k) {
+                if (t < z[k].length && Double.isFinite(z[k][t])) {
+                    int[] idx = constraints[k].index;
+                    first[r] = idx.length == 0 ? r : start[t] + idx[0];
+                    ++r;
+                }
+            }
+            if ((t + 1) % c == 0) {
+                int p = t / c;
+                for (int i = 0; i < nvars; ++i) {
+                    if (temporal(a, i, p)) {
+                        first[r++] = start[t + 1 - c] + i;
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < nrows; ++r) {
+            offsets[r + 1] = offsets[r] + r - first[r] + 1;
+        }
+        if (offsets[nrows] > Integer.MAX_VALUE - 8) {
+            return null;
+        }
+        Envelope K = new Envelope(first, offsets);
+        double[] b = new double[nrows], reg = new double[nrows];
+        // fill the system
+        double rho2 = rho * rho;
+        for (int t = 0; t < n; ++t) {
+            int r = start[t];
+            double q = (t == 0 ? 1 - rho2 : 1) + (t < n - 1 ? rho2 : 0);
+            for (int i = 0; i < nvars; ++i, ++r) {
+                K.set(r, r, q);
+                if (t > 0) {
+                    K.set(r, start[t - 1] + i, -rho);
+                }
+                reg[r] = DELTA;
+            }
+            for (int k = 0; k < ncnts; ++k) {
+                if (t < z[k].length && Double.isFinite(z[k][t])) {
+                    Constraint cnt = constraints[k];
+                    double s = 0;
+                    for (int j = 0; j < cnt.index.length; ++j) {
+                        s = Math.max(s, Math.abs(cnt.weights[j] * weight(w, cnt.index[j], t)));
+                    }
+                    s = s == 0 ? 1 : 1 / s;
+                    for (int j = 0; j < cnt.index.length; ++j) {
+                        int l = cnt.index[j];
+                        K.set(r, start[t] + l, s * cnt.weights[j] * weight(w, l, t));
+                    }
+                    b[r] = s * z[k][t];
+                    reg[r++] = -DELTA;
+                }
+            }
+            if ((t + 1) % c == 0) {
+                int p = t / c;
+                for (int i = 0; i < nvars; ++i) {
+                    if (temporal(a, i, p)) {
+                        double s = 0;
+                        for (int u = t + 1 - c; u <= t; ++u) {
+                            s = Math.max(s, Math.abs(weight(w, i, u)));
+                        }
+                        s = s == 0 ? 1 : 1 / s;
+                        for (int u = t + 1 - c; u <= t; ++u) {
+                            K.set(r, start[u] + i, s * weight(w, i, u));
+                        }
+                        b[r] = s * a[i][p];
+                        reg[r++] = -DELTA;
+                    }
+                }
+            }
+        }
+        double[] x = solve(K, reg, b);
+        if (x == null) {
+            return null;
+        }
+        double[][] e = new double[nvars][n];
+        for (int t = 0; t < n; ++t) {
+            for (int i = 0; i < nvars; ++i) {
+                e[i][t] = x[start[t] + i];
+            }
+        }
+        return e;
+    }
+
+    private static boolean temporal(double[][] a, int i, int p) {
+        return a[i] != null && p < a[i].length && Double.isFinite(a[i][p]);
+    }
+
+    private static double weight(double[][] w, int i, int t) {
+        return w == null ? 1 : w[i][t];
+    }
+
+    /**
+     * Solves K x = b, using the decomposition of K + diag(reg) and iterative
+     * refinement
+     *
+     * @return The solution or null if the refinement didn't converge
+     */
+    private static double[] solve(Envelope K, double[] reg, double[] b) {
+        double bmax = normInf(b);
+        int nrows = b.length;
+        if (bmax == 0) {
+            return new double[nrows];
+        }
+        Envelope L = K.copy();
+        for (int r = 0; r < nrows; ++r) {
+            L.add(r, r, reg[r]);
+        }
+        if (!L.decompose()) {
+            return null;
+        }
+        double[] x = b.clone();
+        L.solve(x);
+        double[] res = new double[nrows];
+        double err = Double.MAX_VALUE;
+        for (int iter = 0; iter < MAXITER; ++iter) {
+            K.multiply(x, res);
+            for (int r = 0; r < nrows; ++r) {
+                res[r] = b[r] - res[r];
+            }
+            double nerr = normInf(res);
+            if (nerr <= EPS * bmax || nerr >= err) {
+                err = Math.min(nerr, err);
+                break;
+            }
+            err = nerr;
+            L.solve(res);
+            for (int r = 0; r < nrows; ++r) {
+                x[r] += res[r];
+            }
+        }
+        return err <= TOL * bmax ? x : null;
+    }
+
+    private static double normInf(double[] x) {
+        double m = 0;
+        for (int i = 0; i < x.length; ++i) {
+            m = Math.max(m, Math.abs(x[i]));
+        }
+        return m;
+    }
+
+    /**
+     * Symmetric matrix stored in its (lower) envelope. Row r is stored from
+     * column first[r] to the diagonal
+     */
+    private static final class Envelope {
+
+        private final int[] first;
+        private final long[] offsets;
+        private final double[] data;
+
+        Envelope(int[] first, long[] offsets) {
+            this.first = first;
+            this.offsets = offsets;
+            this.data = new double[(int) offsets[first.length]];
+        }
+
+        private Envelope(Envelope K) {
+            this.first = K.first;
+            this.offsets = K.offsets;
+            this.data = K.data.clone();
+        }
+
+        Envelope copy() {
+            return new Envelope(this);
+        }
+
+        private int pos(int r, int col) {
+            return (int) offsets[r] + col - first[r];
+        }
+
+        void set(int r, int col, double v) {
+            data[pos(r, col)] = v;
+        }
+
+        void add(int r, int col, double v) {
+            data[pos(r, col)] += v;
+        }
+
+        /**
+         * y = K x
+         */
+        void multiply(double[] x, double[] y) {
+            for (int r = 0; r < first.length; ++r) {
+                int p = (int) offsets[r];
+                double s = 0, xr = x[r];
+                for (int col = first[r]; col < r; ++col, ++p) {
+                    double v = data[p];
+                    s += v * x[col];
+                    y[col] += v * xr;
+                }
+                y[r] = s + data[p] * xr;
+            }
+        }
+
+        /**
+         * In place LDL' decomposition (the strictly lower part contains L, the
+         * diagonal contains D)
+         *
+         * @return false if a pivot is null
+         */
+        boolean decompose() {
+            int nrows = first.length;
+            for (int r = 0; r < nrows; ++r) {
+                int fr = first[r], pr = (int) offsets[r];
+                // g(col) = l(r, col) * d(col), stored temporarily in the row
+                for (int col = fr; col < r; ++col) {
+                    int fc = first[col], pc = (int) offsets[col];
+                    int k0 = Math.max(fr, fc);
+                    double s = data[pr + col - fr];
+                    for (int k = k0, i = pr + k0 - fr, j = pc + k0 - fc; k < col; ++k, ++i, ++j) {
+                        s -= data[i] * data[j];
+                    }
+                    data[pr + col - fr] = s;
+                }
+                double d = data[pr + r - fr];
+                for (int col = fr, i = pr; col < r; ++col, ++i) {
+                    double g = data[i];
+                    double l = g / data[(int) offsets[col] + col - first[col]];
+                    d -= g * l;
+                    data[i] = l;
+                }
+                if (d == 0 || !Double.isFinite(d)) {
+                    return false;
+                }
+                data[pr + r - fr] = d;
+            }
+            return true;
+        }
+
+        /**
+         * In place solution of LDL' x = b
+         */
+        void solve(double[] b) {
+            int nrows = first.length;
+            for (int r = 0; r < nrows; ++r) {
+                int p = (int) offsets[r];
+                double s = b[r];
+                for (int col = first[r]; col < r; ++col, ++p) {
+                    s -= data[p] * b[col];
+                }
+                b[r] = s;
+            }
+            for (int r = 0; r < nrows; ++r) {
+                b[r] /= data[(int) offsets[r] + r - first[r]];
+            }
+            for (int r = nrows - 1; r >= 0; --r) {
+                int p = (int) offsets[r];
+                double xr = b[r];
+                for (int col = first[r]; col < r; ++col, ++p) {
+                    b[col] -= data[p] * xr;
+                }
+            }
+        }
+    }
+}
@@ -41,6 +41,14 @@ import jdplus.toolkit.base.core.ssf.ISsfLoading;
 import jdplus.toolkit.base.core.ssf.StateComponent;
 import jdplus.toolkit.base.core.ssf.basic.WeightedLoading;
 import jdplus.toolkit.base.core.ssf.univariate.Ssf;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import static jdplus.toolkit.base.core.timeseries.simplets.TsDataToolkit.multiply;
 
 /**
@@ -54,16 +62,123 @@ public class CholetteProcessor implements Cholette.Processor {
 
     @Override
     public TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, CholetteSpec spec) {
-        TsData s = correctBias(highFreqSeries, aggregationConstraint, spec);
-        AbsMeanNormalizer normalizer = new AbsMeanNormalizer();
-        DataBlock ns = DataBlock.of(s.getValues());
-        double factor = normalizer.normalize(ns);
-        TsData tmp = TsData.of(s.getStart(), ns);
-        TsData btmp = cholette(tmp, aggregationConstraint.fn(z -> z * factor), spec);
-        if (btmp != null) {
-            btmp = btmp.fn(z -> z / factor);
+        Problem problem = problem(highFreqSeries, aggregationConstraint, spec);
+        return problem.result(solve(problem, spec));
+    }
+
+    @Override
+    public List<TsData> benchmark(List<TsData> highFreqSeries, List<TsData> aggregationConstraints, CholetteSpec spec, ForkJoinPool pool) {
+        int m = highFreqSeries.size();
+        if (aggregationConstraints.size() != m) {
+            throw new IllegalArgumentException();
+        }
+        Problem[] problems = new Problem[m];
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < m; ++i) {
+            int pos = i;
+            tasks.add(() -> problems[pos] = problem(highFreqSeries.get(pos), aggregationConstraints.get(pos), spec));
+        }
+        run(pool, tasks);
+
+        // time-invariant problems with the same structure are solved together
+        TsData[] rslt = new TsData[m];
+        Map<Structure, List<Integer>> groups = new LinkedHashMap<>();
+        tasks.clear();
+        for (int i = 0; i < m; ++i) {
+            Problem problem = problems[i];
+            if (problem.getW() == null) {
+                groups.computeIfAbsent(Structure.of(problem), k -> new ArrayList<>()).add(i);
+            } else {
+                int pos = i;
+                tasks.add(() -> rslt[pos] = problem.result(solve(problem, spec)));
+            }
+        }
+        groups.forEach((structure, items) -> tasks.add(() -> {
+            int k = items.size();
+            double[][] y = new double[k][];
+            for (int j = 0; j < k; ++j) {
+                y[j] = problems[items.get(j)].getY();
+            }
+            double[][] b = TimeInvariantCholette.process(y, structure.getRatio(), spec.getRho(), structure.isSum());
+            for (int j = 0; j < k; ++j) {
+                Problem problem = problems[items.get(j)];
+                rslt[items.get(j)] = problem.result(b != null ? problem.add(b[j]) : solve(problem, spec));
+            }
+        }));
+        run(pool, tasks);
+        return Arrays.asList(rslt);
+    }
+
+    private static void run(ForkJoinPool pool, List<Runnable> tasks) {
+        if (tasks.size() == 1) {
+            tasks.get(0).run();
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks.stream().map(ForkJoinTask::adapt).toList());
+            }
+        });
+    }
+
+    /**
+     * Normalized problem
+     */
+    @lombok.Value
+    private static class Problem {
+
+        /**
+         * Normalized series (after bias correction)
+         */
+        TsData series;
+        /**
+         * Normalization factor
+         */
+        double factor;
+        /**
+         * Expanded discrepancies
+         */
+        double[] y;
+        /**
+         * Weights (null if lambda = 0)
+         */
+        double[] w;
+        int ratio, head;
+        boolean sum;
+
+        TsData add(double[] b) {
+            return TsData.add(series, TsData.ofInternal(series.getStart(), b));
+        }
+
+        TsData result(TsData b) {
+            return b == null ? null : b.fn(z -> z / factor);
+        }
+    }
+
+    /**
+     * Everything the time-invariant problem depends on (the rho parameter
+     * is common to all the problems)
+     */
+    @lombok.Value
+    private static class Structure {
+
+        int ratio, n, first, ny;
+        boolean sum;
+
+        static Structure of(Problem problem) {
+            double[] y = problem.getY();
+            int first = -1, ny = 0;
+            for (int i = 0; i < y.length; ++i) {
+                if (Double.isFinite(y[i])) {
+                    if (first < 0) {
+                        first = i;
+                    }
+                    ++ny;
+                }
+            }
+            return new Structure(problem.getRatio(), y.length, first, ny, problem.isSum());
         }
-        return btmp;
     }
 
     private TsData correctBias(TsData s, TsData target, CholetteSpec spec) {
@@ -110,13 +225,25 @@ public class CholetteProcessor implements Cholette.Processor {
         return y;
     }
 
+    private Problem problem(TsData s, TsData aggregationConstraint, CholetteSpec spec) {
+        TsData cs = correctBias(s, aggregationConstraint, spec);
+        AbsMeanNormalizer normalizer = new AbsMeanNormalizer();
+        DataBlock ns = DataBlock.of(cs.getValues());
+        double factor = normalizer.normalize(ns);
+        TsData highFreqSeries = TsData.of(cs.getStart(), ns);
+        TsData constraint = aggregationConstraint.fn(z -> z * factor);
+        return problem(highFreqSeries, constraint, factor, spec);
+    }
+
     /**
      *
-     * @param s
-     * @param constraints
+     * @param highFreqSeries The normalized series
+     * @param aggregationConstraint The normalized constraints
+     * @param factor The normalization factor
+     * @param spec
      * @return
      */
-    private TsData cholette(TsData highFreqSeries, TsData aggregationConstraint, CholetteSpec spec) {
+    private Problem problem(TsData highFreqSeries, TsData aggregationConstraint, double factor, CholetteSpec spec) {
         int ratio = highFreqSeries.getTsUnit().ratioOf(aggregationConstraint.getTsUnit());
         if (ratio == TsUnit.NO_RATIO || ratio == TsUnit.NO_STRICT_RATIO) {
             throw new TsException(TsException.INCOMPATIBLE_FREQ);
@@ -170,10 +297,30 @@ public class CholetteProcessor implements Cholette.Processor {
                 }
             }
         }
-        TsPeriod start = highFreqSeries.getStart();
-        int head = (int) (start.getId() % ratio);
-        if (spec.getAggregationType() == AggregationType.Average
-                || spec.getAggregationType() == AggregationType.Sum) {
+        int head = (int) (highFreqSeries.getStart().getId() % ratio);
+        boolean sum = spec.getAggregationType() == AggregationType.Average
+                || spec.getAggregationType() == AggregationType.Sum;
+        return new Problem(highFreqSeries, factor, y, w, ratio, head, sum);
+    }
+
+    /**
+     *
+     * @param problem
+     * @param spec
+     * @return The benchmarked series (normalized)
+     */
+    private TsData solve(Problem problem, CholetteSpec spec) {
+        double[] y = problem.getY(), w = problem.getW();
+        int ratio = problem.getRatio(), head = problem.getHead();
+        TsData highFreqSeries = problem.getSeries();
+        if (w == null) {
+            // time-invariant model: direct solution
+            double[] b = TimeInvariantCholette.process(y, ratio, spec.getRho(), problem.isSum());
+            if (b != null) {
+                return problem.add(b);
+            }
+        }
+        if (problem.isSum()) {
             ISsf ssf = SsfCholette.builder(ratio)
                     .start(head)
                     .rho(spec.getRho())
@@ -189,7 +336,7 @@ public class CholetteProcessor implements Cholette.Processor {
             } else {
                 rslts.getComponent(1).copyTo(b, 0);
             }
-            return TsData.add(highFreqSeries, TsData.ofInternal(start, b));
+            return problem.add(b);
         } else {
             ISsfLoading loading;
             StateComponent cmp;
@@ -210,7 +357,7 @@ public class CholetteProcessor implements Cholette.Processor {
             for (int i = 0; i < b.length; ++i) {
                 b[i] = loading.ZX(i, rslts.a(i));
             }
-            return TsData.add(highFreqSeries, TsData.ofInternal(start, b));
+            return problem.add(b);
         }
     }
 
@@ -18,6 +18,12 @@ package jdplus.benchmarking.base.core.benchmarking.univariate;
 
 import jdplus.benchmarking.base.api.benchmarking.univariate.Denton;
 import jdplus.benchmarking.base.api.benchmarking.univariate.DentonSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.api.timeseries.TsException;
 import jdplus.toolkit.base.api.timeseries.TsUnit;
 import jdplus.toolkit.base.api.timeseries.TsPeriod;
@@ -35,29 +41,48 @@ public class DentonProcessor implements Denton.Processor {
 
     @Override
     public TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, DentonSpec spec) {
-        int ratio = highFreqSeries.getTsUnit().ratioOf(aggregationConstraint.getTsUnit());
-        if (ratio == TsUnit.NO_RATIO || ratio == TsUnit.NO_STRICT_RATIO) {
-            throw new TsException(TsException.INCOMPATIBLE_FREQ);
-        }
-        
-        TsData naggregationConstraint;
-        switch (spec.getAggregationType()){
-            case Sum, Average -> naggregationConstraint=BenchmarkingUtility.constraints(highFreqSeries, aggregationConstraint);
-            case Last -> naggregationConstraint=BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio-1);
-            case First -> naggregationConstraint=BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, 0);
-            case UserDefined -> naggregationConstraint=BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, spec.getObservationPosition());
-            default -> throw new TsException(TsException.INVALID_OPERATION);
-        }
-        
-  
+        int ratio = ratio(highFreqSeries, aggregationConstraint);
+        TsData naggregationConstraint = constraints(highFreqSeries, aggregationConstraint, ratio, spec);
         TsPeriod sh = highFreqSeries.getStart();
-        TsPeriod sl = TsPeriod.of(sh.getUnit(), naggregationConstraint.getStart().start());
-        int offset = sh.until(sl);
-        MatrixDenton denton = new MatrixDenton(spec, ratio, offset);
+        MatrixDenton denton = new MatrixDenton(spec, ratio, offset(highFreqSeries, naggregationConstraint));
         double[] r = denton.process(highFreqSeries.getValues(), naggregationConstraint.getValues());
         return TsData.ofInternal(sh, r);
     }
 
+    @Override
+    public List<TsData> benchmark(List<TsData> highFreqSeries, List<TsData> aggregationConstraints, DentonSpec spec) {
+        int m = highFreqSeries.size();
+        if (aggregationConstraints.size() != m) {
+            throw new IllegalArgumentException();
+        }
+        TsData[] nconstraints = new TsData[m];
+        Map<Structure, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < m; ++i) {
+            TsData s = highFreqSeries.get(i);
+            int ratio = ratio(s, aggregationConstraints.get(i));
+            nconstraints[i] = constraints(s, aggregationConstraints.get(i), ratio, spec);
+            Structure structure = new Structure(ratio, offset(s, nconstraints[i]), s.length(), nconstraints[i].length());
+            groups.computeIfAbsent(structure, k -> new ArrayList<>()).add(i);
+        }
+        TsData[] rslt = new TsData[m];
+        groups.forEach((structure, items) -> {
+            int k = items.size();
+            DoubleSeq[] x = new DoubleSeq[k], y = new DoubleSeq[k];
+            for (int j = 0; j < k; ++j) {
+                int pos = items.get(j);
+                x[j] = highFreqSeries.get(pos).getValues();
+                y[j] = nconstraints[pos].getValues();
+            }
+            MatrixDenton denton = new MatrixDenton(spec, structure.getRatio(), structure.getOffset());
+            double[][] r = denton.process(x, y);
+            for (int j = 0; j < k; ++j) {
+                int pos = items.get(j);
+                rslt[pos] = TsData.ofInternal(highFreqSeries.get(pos).getStart(), r[j]);
+            }
+        });
+        return Arrays.asList(rslt);
+    }
+
     @Override
     public TsData benchmark(TsUnit highFreq, TsData aggregationConstraint, DentonSpec spec) {
         int ratio = highFreq.ratioOf(aggregationConstraint.getTsUnit());
@@ -71,5 +96,38 @@ public class DentonProcessor implements Denton.Processor {
         return TsData.ofInternal(sh, r);
     }
 
+    private static int ratio(TsData highFreqSeries, TsData aggregationConstraint) {
+        int ratio = highFreqSeries.getTsUnit().ratioOf(aggregationConstraint.getTsUnit());
+        if (ratio == TsUnit.NO_RATIO || ratio == TsUnit.NO_STRICT_RATIO) {
+            throw new TsException(TsException.INCOMPATIBLE_FREQ);
+        }
+        return ratio;
+    }
+
+    private static TsData constraints(TsData highFreqSeries, TsData aggregationConstraint, int ratio, DentonSpec spec) {
+        return switch (spec.getAggregationType()) {
+            case Sum, Average ->
+                BenchmarkingUtility.constraints(highFreqSeries, aggregationConstraint);
+            case Last ->
+                BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio - 1);
+            case First ->
+                BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, 0);
+            case UserDefined ->
+                BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, spec.getObservationPosition());
+            default ->
+                throw new TsException(TsException.INVALID_OPERATION);
+        };
+    }
+
+    private static int offset(TsData highFreqSeries, TsData naggregationConstraint) {
+        TsPeriod sh = highFreqSeries.getStart();
+        TsPeriod sl = TsPeriod.of(sh.getUnit(), naggregationConstraint.getStart().start());
+        return sh.until(sl);
+    }
+
+    @lombok.Value
+    private static class Structure {
 
+        int ratio, offset, n, ny;
+    }
 }
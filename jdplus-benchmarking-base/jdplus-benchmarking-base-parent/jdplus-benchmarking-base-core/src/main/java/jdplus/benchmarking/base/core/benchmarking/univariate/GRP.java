@@ -63,47 +63,53 @@ public class GRP {
     }
 
     public double[] process(DoubleSeq highSeries, DoubleSeq lowSeries) {
-        double[] start;
-        int n = flow ? conversion * lowSeries.length() : (1 + conversion * (lowSeries.length() - 1));
-        boolean avg = spec.getAggregationType() == AggregationType.Average;
-        if (spec.isDentonInitialization()) {
-            DentonSpec dspec = DentonSpec.builder()
-                    .modified(true)
-                    .multiplicative(true)
-                    .differencing(1)
-                    .aggregationType(avg ? AggregationType.Sum : spec.getAggregationType())
-                    .observationPosition(0)
-                    .buildWithoutValidation();
-            MatrixDenton denton = new MatrixDenton(dspec, conversion, 0);
-            start = denton.process(highSeries.range(offset, offset + n), lowSeries);
-        } else {
-            start = new double[n];
-            if (flow) {
-                addXbar(start, lowSeries.toArray(), conversion, flow);
-            } else {
-                init(start, lowSeries.toArray(), conversion);
-            }
-        }
+        return process(highSeries, lowSeries, null);
+    }
+
+    /**
+     * Benchmarking with a warm start
+     *
+     * @param highSeries The high-frequency series
+     * @param lowSeries The aggregation constraints
+     * @param previous A previous solution, aligned on the high-frequency
+     * series (it may be shorter or contain missing values). The previous
+     * solution is extrapolated with the growth rates of the high-frequency
+     * series and adjusted to the current constraints. If null or unusable,
+     * the usual initialization is used.
+     * @return
+     */
+    public double[] process(DoubleSeq highSeries, DoubleSeq lowSeries, DoubleSeq previous) {
+        double[] start = start(highSeries, lowSeries, previous);
+        int n = start.length;
 
-        Bfgs bfgs = Bfgs.builder()
-                .functionPrecision(spec.getPrecision())
-                .maxIter(spec.getMaxIter())
-                .build();
         FastMatrix K = FastMatrix.make(conversion, conversion - 1);
         K(K, flow);
-        GRPFunction fn = new GRPFunction(highSeries.range(offset, offset + n).toArray(), lowSeries.toArray(), K, flow, spec.getObjective());
+        double[] p = highSeries.range(offset, offset + n).toArray(), b = lowSeries.toArray();
+        GRPFunction fn = new GRPFunction(p, b, K, flow, spec.getObjective());
         IFunctionPoint ps = fn.evaluate(DoubleSeq.of(Ztx(start, K, flow)));
         if (!Double.isFinite(ps.getValue())) {
             init(start, lowSeries.toArray(), conversion);
             ps = fn.evaluate(DoubleSeq.of(Ztx(start, K, flow)));
         }
-        bfgs.minimize(ps);
-        GRPFunction.Point rslt = (GRPFunction.Point) bfgs.getResult();
+        double[] x = null;
+        if (spec.getOptimizer() == GrpSpec.Optimizer.Newton) {
+            GRPNewton newton = new GRPNewton(p, b, K, flow, spec.getObjective(), spec.getMaxIter(), spec.getPrecision());
+            x = newton.minimize(ps.getParameters().toArray());
+        }
+        if (x == null) {
+            Bfgs bfgs = Bfgs.builder()
+                    .functionPrecision(spec.getPrecision())
+                    .maxIter(spec.getMaxIter())
+                    .build();
+            bfgs.minimize(ps);
+            GRPFunction.Point rslt = (GRPFunction.Point) bfgs.getResult();
+            x = rslt.x().clone();
+        }
         if (n == highSeries.length()) {
-            return rslt.x;
+            return x;
         } else {
             double[] q = new double[highSeries.length()];
-            System.arraycopy(rslt.x, 0, q, offset, n);
+            System.arraycopy(x, 0, q, offset, n);
             if (offset > 0) {
                 for (int i = offset; i > 0; --i) {
                     double r = highSeries.get(i - 1) / highSeries.get(i);
@@ -119,6 +125,78 @@ public class GRP {
         }
     }
 
+    /**
+     * Starting point of the optimization
+     *
+     * @param highSeries
+     * @param lowSeries
+     * @param previous A previous solution (see process). May be null
+     * @return The warm start if it can be computed, the usual initialization
+     * otherwise
+     */
+    double[] start(DoubleSeq highSeries, DoubleSeq lowSeries, DoubleSeq previous) {
+        int n = flow ? conversion * lowSeries.length() : (1 + conversion * (lowSeries.length() - 1));
+        boolean avg = spec.getAggregationType() == AggregationType.Average;
+        double[] start = previous == null ? null : warmStart(highSeries, lowSeries, previous, n);
+        if (start == null) {
+            if (spec.isDentonInitialization()) {
+                DentonSpec dspec = DentonSpec.builder()
+                        .modified(true)
+                        .multiplicative(true)
+                        .differencing(1)
+                        .aggregationType(avg ? AggregationType.Sum : spec.getAggregationType())
+                        .observationPosition(0)
+                        .buildWithoutValidation();
+                MatrixDenton denton = new MatrixDenton(dspec, conversion, 0);
+                start = denton.process(highSeries.range(offset, offset + n), lowSeries);
+            } else {
+                start = new double[n];
+                if (flow) {
+                    addXbar(start, lowSeries.toArray(), conversion, flow);
+                } else {
+                    init(start, lowSeries.toArray(), conversion);
+                }
+            }
+        }
+        return start;
+    }
+
+    private double[] warmStart(DoubleSeq highSeries, DoubleSeq lowSeries, DoubleSeq previous, int n) {
+        double[] start = new double[n];
+        for (int i = 0, j = offset; i < n; ++i, ++j) {
+            double v = j < previous.length() ? previous.get(j) : Double.NaN;
+            if (!(v > 0)) {
+                if (i == 0) {
+                    return null;
+                }
+                v = start[i - 1] * highSeries.get(j) / highSeries.get(j - 1);
+            }
+            start[i] = v;
+        }
+        // pro-rata adjustment to the constraints
+        double[] b = lowSeries.toArray();
+        if (flow) {
+            for (int k = 0, j = 0; k < b.length; ++k, j += conversion) {
+                double s = 0;
+                for (int t = 0; t < conversion; ++t) {
+                    s += start[j + t];
+                }
+                double c = b[k] / s;
+                if (!(c > 0) || !Double.isFinite(c)) {
+                    return null;
+                }
+                for (int t = 0; t < conversion; ++t) {
+                    start[j + t] *= c;
+                }
+            }
+        } else {
+            for (int k = 0; k < b.length; ++k) {
+                start[k * conversion] = b[k];
+            }
+        }
+        return start;
+    }
+
     /**
      * Computes the gradient of the GRP objective function
      *
@@ -399,6 +477,217 @@ public class GRP {
         return g;
     }
 
+    /**
+     * Reference ratios of the objective function, computed once by problem
+     * (see fg)
+     *
+     * @param p reference series (unbenchmarked)
+     * @param objective objective function
+     * @return For Forward, r[i] = p[i]/p[i-1]; for Backward, r[i] =
+     * p[i-1]/p[i]; for Log, r[i] = log(p[i]/p[i-1]); for Symmetric, the
+     * forward ratios followed by the backward ratios (r[n+i] = p[i-1]/p[i]).
+     * r[0] (and r[n]) are not used.
+     */
+    static double[] ratios(double[] p, GrpSpec.Objective objective) {
+        int n = p.length;
+        double[] r = new double[objective == GrpSpec.Objective.Symmetric ? 2 * n : n];
+        for (int i = 1; i < n; ++i) {
+            switch (objective) {
+                case Forward ->
+                    r[i] = p[i] / p[i - 1];
+                case Backward ->
+                    r[i] = p[i - 1] / p[i];
+                case Log ->
+                    r[i] = Math.log(p[i] / p[i - 1]);
+                case Symmetric -> {
+                    r[i] = p[i] / p[i - 1];
+                    r[n + i] = p[i - 1] / p[i];
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Computes in a single pass the objective function and (optionally) its
+     * gradient. No allocation.
+     *
+     * The kernels are specialized by objective function and don't contain
+     * any data-dependent branch: the validity of x is checked once, after the
+     * loop, and each element of the gradient is written only once (the
+     * contribution of the next term is carried from one iteration to the
+     * next).
+     *
+     * @param x current value of the benchmarked series
+     * @param r reference ratios (see ratios)
+     * @param objective objective function
+     * @param gx buffer for the gradient (same length as x). If null, the
+     * gradient is not computed
+     * @return The value of the objective function (NaN if x is not strictly
+     * positive)
+     */
+    static double fg(double[] x, double[] r, GrpSpec.Objective objective, double[] gx) {
+        return switch (objective) {
+            case Forward ->
+                forward(x, r, gx);
+            case Backward ->
+                backward(x, r, gx);
+            case Symmetric ->
+                symmetric(x, r, gx);
+            case Log ->
+                log(x, r, gx);
+        };
+    }
+
+    private static double forward(double[] x, double[] r, double[] gx) {
+        int n = x.length;
+        double s = 0, xmin = Double.MAX_VALUE, carry = 0;
+        for (int i = 1; i < n; ++i) {
+            double xi = x[i], xprev = x[i - 1];
+            xmin = Math.min(xmin, xi);
+            double u = xi / xprev;
+            double del = u - r[i];
+            s += del * del;
+            if (gx != null) {
+                double q = 2 * del / xprev;
+                gx[i - 1] = carry - q * u;
+                carry = q;
+            }
+        }
+        return finish(s, xmin, carry, gx);
+    }
+
+    private static double backward(double[] x, double[] r, double[] gx) {
+        int n = x.length;
+        double s = 0, xmin = Double.MAX_VALUE, carry = 0;
+        for (int i = 1; i < n; ++i) {
+            double xi = x[i], xprev = x[i - 1];
+            xmin = Math.min(xmin, xi);
+            double u = xprev / xi;
+            double del = u - r[i];
+            s += del * del;
+            if (gx != null) {
+                double q = 2 * del / xi;
+                gx[i - 1] = carry + q;
+                carry = -q * u;
+            }
+        }
+        return finish(s, xmin, carry, gx);
+    }
+
+    private static double symmetric(double[] x, double[] r, double[] gx) {
+        int n = x.length;
+        double s = 0, xmin = Double.MAX_VALUE, carry = 0;
+        for (int i = 1; i < n; ++i) {
+            double xi = x[i], xprev = x[i - 1];
+            xmin = Math.min(xmin, xi);
+            double uf = xi / xprev, ub = xprev / xi;
+            double delF = uf - r[i], delB = ub - r[n + i];
+            s += (delF * delF) / 2 + (delB * delB) / 2;
+            if (gx != null) {
+                double qf = delF / xprev, qb = delB / xi;
+                gx[i - 1] = carry + qb - qf * uf;
+                carry = qf - qb * ub;
+            }
+        }
+        return finish(s, xmin, carry, gx);
+    }
+
+    private static double log(double[] x, double[] r, double[] gx) {
+        int n = x.length;
+        double s = 0, xmin = Double.MAX_VALUE, carry = 0;
+        for (int i = 1; i < n; ++i) {
+            double xi = x[i], xprev = x[i - 1];
+            xmin = Math.min(xmin, xi);
+            double del = Math.log(xi / xprev) - r[i];
+            s += del * del;
+            if (gx != null) {
+                gx[i - 1] = carry - 2 * del / xprev;
+                carry = 2 * del / xi;
+            }
+        }
+        return finish(s, xmin, carry, gx);
+    }
+
+    private static double finish(double s, double xmin, double carry, double[] gx) {
+        if (gx != null && gx.length > 0) {
+            gx[gx.length - 1] = carry;
+        }
+        return xmin > 0 ? s : Double.NaN;
+    }
+
+    /**
+     * Copy of K in a (row-major) array
+     *
+     * @param K
+     * @return
+     */
+    static double[][] k(FastMatrix K) {
+        int s = K.getRowsCount();
+        double[][] k = new double[s][s - 1];
+        for (int t = 0; t < s; ++t) {
+            for (int l = 0; l < s - 1; ++l) {
+                k[t][l] = K.get(t, l);
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Gradient of the unconstrained problem (Z'gx). No allocation
+     *
+     * @param gx gradient in x
+     * @param k K (see k(FastMatrix))
+     * @param g buffer for the result
+     */
+    static void mg(double[] gx, double[][] k, double[] g) {
+        int s = k.length;
+        int m = g.length / (s - 1);
+        for (int i = 0, j = 0, c = 0; i < m; ++i, j += s) {
+            for (int l = 0; l < s - 1; ++l) {
+                double q = 0;
+                for (int t = l; t < s; ++t) {
+                    q += gx[j + t] * k[t][l];
+                }
+                g[c++] = q;
+            }
+        }
+    }
+
+    /**
+     * x = Zz + xbar. No allocation
+     *
+     * @param z free parameters
+     * @param b constraints
+     * @param k K (see k(FastMatrix))
+     * @param flow
+     * @param x buffer for the result
+     */
+    static void x(double[] z, double[] b, double[][] k, boolean flow, double[] x) {
+        int s = k.length;
+        if (flow) {
+            for (int i = 0, j = 0, c = 0; i < b.length; ++i, j += s, c += s - 1) {
+                double xbar = b[i] / s;
+                for (int t = 0; t < s; ++t) {
+                    double q = xbar;
+                    double[] kt = k[t];
+                    for (int l = 0; l <= Math.min(s - 2, t); ++l) {
+                        q += z[c + l] * kt[l];
+                    }
+                    x[j + t] = q;
+                }
+            }
+        } else {
+            for (int i = 0, j = 0, c = 0; i < b.length; ++i, j += s) {
+                x[j] = b[i];
+                if (i < b.length - 1) {
+                    System.arraycopy(z, c, x, j + 1, s - 1);
+                    c += s - 1;
+                }
+            }
+        }
+    }
+
     static void addXbar(double[] x, double[] b, int s, boolean flow) {
         if (flow) {
             for (int i = 0, j = 0; i < b.length; ++i) {
@@ -506,17 +795,27 @@ public class GRP {
 
 class GRPFunction implements IFunction {
 
-    private final double[] p, b;
+    private final double[] p, b, r;
     private final FastMatrix K;
+    private final double[][] k;
     private final boolean flow;
     private final GrpSpec.Objective objective;
+    // scratch buffers for the benchmarked series (x) of the last used point and
+    // for the gradient in x. A function is used by one optimizer (thread) at a
+    // time
+    private final double[] xs, gx;
+    private Point xowner;
 
     GRPFunction(double[] p, double[] b, FastMatrix K, boolean flow, GrpSpec.Objective objective) {
         this.p = p;
         this.b = b;
         this.K = K;
+        this.k = GRP.k(K);
+        this.r = GRP.ratios(p, objective);
         this.flow = flow;
         this.objective = objective;
+        this.xs = new double[p.length];
+        this.gx = new double[p.length];
     }
 
     @Override
@@ -529,15 +828,36 @@ class GRPFunction implements IFunction {
         return new DefaultDomain(p.length - b.length, 1e-6);
     }
 
+    /**
+     * A point only owns its parameters (z) and, once requested, its gradient.
+     * The benchmarked series is recomputed (O(n), no allocation) in the scratch
+     * buffer of the function when it doesn't correspond to the point. The
+     * optimizer usually asks the value and the gradient of the same point in
+     * sequence, so that x is computed once by point.
+     */
     class Point implements IFunctionPoint {
 
         final double[] z;
-        final double[] x;
+        private double f = Double.NaN;
+        private double[] g;
 
         Point(double[] z) {
             this.z = z;
-            this.x = GRP.Zz(z, K, flow);
-            GRP.addXbar(x, b, K.getRowsCount(), flow);
+        }
+
+        /**
+         * The benchmarked series corresponding to this point. The buffer is
+         * shared by all the points of the function: it is only valid until the
+         * next use of another point
+         *
+         * @return
+         */
+        double[] x() {
+            if (xowner != this) {
+                GRP.x(z, b, k, flow, xs);
+                xowner = this;
+            }
+            return xs;
         }
 
         @Override
@@ -547,7 +867,7 @@ class GRPFunction implements IFunction {
 
         @Override
         public IFunctionDerivatives derivatives() {
-            return new Derivatives(z, x);
+            return new Derivatives(this);
         }
 
         @Override
@@ -557,7 +877,9 @@ class GRPFunction implements IFunction {
 
         @Override
         public double getValue() {
-            double f = GRP.f(x, p, objective);
+            if (Double.isNaN(f)) {
+                f = GRP.fg(x(), r, objective, null);
+            }
             if (!Double.isFinite(f)) {
                 return Double.MAX_VALUE;
             } else {
@@ -565,15 +887,30 @@ class GRPFunction implements IFunction {
             }
         }
 
+        /**
+         * Objective function and gradient, computed in a single pass
+         *
+         * @return
+         */
+        double[] gradient() {
+            if (g == null) {
+                f = GRP.fg(x(), r, objective, gx);
+                g = new double[z.length];
+                GRP.mg(gx, k, g);
+            }
+            return g;
+        }
+
     }
 
     class Derivatives implements IFunctionDerivatives {
 
-        final double[] z, x;
+        final Point point;
+        final double[] z;
 
-        Derivatives(double[] z, double[] x) {
-            this.z = z;
-            this.x = x;
+        Derivatives(Point point) {
+            this.point = point;
+            this.z = point.z;
         }
 
         @Override
@@ -583,12 +920,12 @@ class GRPFunction implements IFunction {
 
         @Override
         public DoubleSeq gradient() {
-            double[] mg = GRP.mg(x, p, K, objective);
-            return DoubleSeq.of(mg);
+            return DoubleSeq.of(point.gradient());
         }
 
         @Override
         public void hessian(FastMatrix matrix) {
+            double[] x = point.x();
             FastMatrix h = FastMatrix.square(x.length);
             DataBlock hd = h.diagonal();
             for (int i = 0; i < x.length; ++i) {
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2025 JDemetra+.
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.benchmarking.base.core.benchmarking.univariate;
+
+import internal.math.BandedLinearSystem;
+import java.util.Arrays;
+import jdplus.benchmarking.base.api.benchmarking.univariate.GrpSpec;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+
+/**
+ * Trust-region (Levenberg-Marquardt) Newton method for the GRP problem.
+ *
+ * The problem is expressed in the free parameters z (x = Zz + xbar, see GRP).
+ * The hessian of the objective function is tridiagonal in x and Z is block
+ * diagonal (one block K by low-frequency period), so that the projected
+ * hessian Z'hZ is banded, with a bandwidth lower than 2(s-1) (s = conversion
+ * factor). Each iteration is O(n*s^2) in time and O(n*s) in memory.
+ *
+ * @author Jean Palate
+ */
+final class GRPNewton {
+
+    private static final double LAMBDA0 = 1e-6, LAMBDA_MAX = 1e16;
+
+    private final double[] p, b, r;
+    private final double[][] k;
+    private final int s, bw;
+    private final boolean flow;
+    private final GrpSpec.Objective objective;
+    private final int maxIter;
+    private final double precision;
+
+    private int iterations;
+
+    GRPNewton(double[] p, double[] b, FastMatrix K, boolean flow, GrpSpec.Objective objective, int maxIter, double precision) {
+        this.p = p;
+        this.b = b;
+        this.flow = flow;
+        this.objective = objective;
+        this.maxIter = maxIter;
+        this.precision = precision;
+        this.s = K.getRowsCount();
+        this.k = GRP.k(K);
+        this.r = GRP.ratios(p, objective);
+        this.bw = Math.max(1, 2 * s - 3);
+    }
+
+    /**
+     * Minimizes the objective function
+     *
+     * @param z0 Starting point (free parameters)
+     * @return The benchmarked series (x) or null if the starting point is
+     * not valid (the caller should then use another optimizer)
+     */
+    double[] minimize(double[] z0) {
+        double[] z = z0.clone();
+        double[] x = x(z);
+        double f = GRP.fg(x, r, objective, null);
+        iterations = 0;
+        if (!Double.isFinite(f)) {
+            return null;
+        }
+        int nz = z.length;
+        if (nz == 0) {
+            return x;
+        }
+        double lambda = LAMBDA0;
+        double[][] H = new double[nz][2 * bw + 1];
+        double[] d = new double[nz], g = new double[nz], gx = new double[x.length];
+        double[] znew = new double[nz], xnew = new double[x.length];
+        while (iterations++ < maxIter) {
+            GRP.fg(x, r, objective, gx);
+            GRP.mg(gx, k, g);
+            hessian(x, H);
+            double scale = 0;
+            for (int i = 0; i < nz; ++i) {
+                double cur = Math.abs(H[i][bw]);
+                if (cur > scale) {
+                    scale = cur;
+                }
+            }
+            if (scale == 0) {
+                scale = 1;
+            }
+            boolean converged = false;
+            for (;;) {
+                if (lambda > LAMBDA_MAX) {
+                    return x;
+                }
+                BandedLinearSystem system = new BandedLinearSystem(nz, bw, bw);
+                for (int i = 0; i < nz; ++i) {
+                    double[] hi = H[i];
+                    for (int j = Math.max(0, i - bw); j <= Math.min(nz - 1, i + bw); ++j) {
+                        system.set(i, j, hi[j - i + bw]);
+                    }
+                    system.add(i, i, lambda * scale);
+                }
+                if (!system.decompose()) {
+                    lambda *= 10;
+                    continue;
+                }
+                for (int i = 0; i < nz; ++i) {
+                    d[i] = -g[i];
+                }
+                system.solve(d);
+                // predicted reduction: -(g'd + d'Hd/2)
+                double pred = 0;
+                for (int i = 0; i < nz; ++i) {
+                    double[] hi = H[i];
+                    double hd = 0;
+                    for (int j = Math.max(0, i - bw); j <= Math.min(nz - 1, i + bw); ++j) {
+                        hd += hi[j - i + bw] * d[j];
+                    }
+                    pred -= d[i] * (g[i] + .5 * hd);
+                }
+                if (!(pred > 0)) {
+                    lambda *= 10;
+                    continue;
+                }
+                for (int i = 0; i < nz; ++i) {
+                    znew[i] = z[i] + d[i];
+                }
+                GRP.x(znew, b, k, flow, xnew);
+                double fnew = GRP.fg(xnew, r, objective, null);
+                if (!Double.isFinite(fnew) || fnew >= f) {
+                    lambda *= 10;
+                    if (Double.isFinite(fnew) && f - fnew <= precision * (1 + Math.abs(f))) {
+                        // no possible improvement
+                        return x;
+                    }
+                    continue;
+                }
+                double rho = (f - fnew) / pred;
+                if (rho > .75) {
+                    lambda /= 10;
+                } else if (rho < .25) {
+                    lambda *= 4;
+                }
+                converged = f - fnew <= precision * (1 + Math.abs(fnew)) && lambda < 1e-3;
+                double[] tmp = z;
+                z = znew;
+                znew = tmp;
+                tmp = x;
+                x = xnew;
+                xnew = tmp;
+                f = fnew;
+                break;
+            }
+            if (converged) {
+                break;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Number of iterations of the last minimization
+     *
+     * @return
+     */
+    int getIterations() {
+        return iterations;
+    }
+
+    double[] x(double[] z) {
+        double[] x = new double[p.length];
+        GRP.x(z, b, k, flow, x);
+        return x;
+    }
+
+    /**
+     * Computes the projected hessian Z'hZ. Row i of H contains the elements
+     * [i-bw, i+bw] of the corresponding row of the hessian
+     *
+     * @param x
+     * @param H
+     */
+    private void hessian(double[] x, double[][] H) {
+        int nz = H.length;
+        int m = nz / (s - 1);
+        int nx = x.length;
+        for (int i = 0; i < nz; ++i) {
+            Arrays.fill(H[i], 0);
+        }
+        double[] hd = new double[s], hl = new double[s];
+        double[][] G = new double[s][s - 1];
+        for (int i = 0, j = 0, c = 0; i < m; ++i, j += s, c += s - 1) {
+            // tridiagonal block of h: hd = diagonal, hl[t] = h(t-1, t)
+            for (int t = 0; t < s; ++t) {
+                hd[t] = GRP.h(j + t, j + t, x, p, objective);
+                hl[t] = t == 0 ? 0 : GRP.h(j + t - 1, j + t, x, p, objective);
+            }
+            // G = h*K
+            for (int t = 0; t < s; ++t) {
+                double[] gt = G[t];
+                for (int l = 0; l < s - 1; ++l) {
+                    double q = hd[t] * k[t][l];
+                    if (t > 0) {
+                        q += hl[t] * k[t - 1][l];
+                    }
+                    if (t < s - 1) {
+                        q += hl[t + 1] * k[t + 1][l];
+                    }
+                    gt[l] = q;
+                }
+            }
+            // diagonal block: K'G
+            for (int l = 0; l < s - 1; ++l) {
+                double[] hrow = H[c + l];
+                for (int u = 0; u < s - 1; ++u) {
+                    double q = 0;
+                    for (int t = 0; t < s; ++t) {
+                        q += k[t][l] * G[t][u];
+                    }
+                    hrow[u - l + bw] = q;
+                }
+            }
+            // coupling with the next block, through h(j+s-1, j+s)
+            if (i < m - 1 && j + s < nx) {
+                double e = GRP.h(j + s - 1, j + s, x, p, objective);
+                for (int l = 0; l < s - 1; ++l) {
+                    double el = e * k[s - 1][l];
+                    for (int u = 0; u < s - 1; ++u) {
+                        double q = el * k[0][u];
+                        int r = c + l, col = c + s - 1 + u;
+                        H[r][col - r + bw] = q;
+                        H[col][r - col + bw] = q;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package jdplus.benchmarking.base.core.benchmarking.univariate;
 import jdplus.benchmarking.base.api.benchmarking.univariate.GrowthRatePreservation;
 import jdplus.benchmarking.base.api.benchmarking.univariate.GrpSpec;
 import jdplus.toolkit.base.api.data.AggregationType;
+import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.api.timeseries.TsException;
 import jdplus.toolkit.base.api.timeseries.TsUnit;
 import jdplus.toolkit.base.api.timeseries.TsPeriod;
@@ -37,6 +38,11 @@ public class GRPProcessor implements GrowthRatePreservation.Processor {
 
     @Override
     public TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, GrpSpec spec) {
+        return benchmark(highFreqSeries, aggregationConstraint, spec, null);
+    }
+
+    @Override
+    public TsData benchmark(TsData highFreqSeries, TsData aggregationConstraint, GrpSpec spec, TsData previousSolution) {
         int ratio = highFreqSeries.getTsUnit().ratioOf(aggregationConstraint.getTsUnit());
         if (ratio == TsUnit.NO_RATIO || ratio == TsUnit.NO_STRICT_RATIO) {
             throw new TsException(TsException.INCOMPATIBLE_FREQ);
@@ -67,7 +73,22 @@ public class GRPProcessor implements GrowthRatePreservation.Processor {
         int offset = sh.until(sl);
         GRP grp = new GRP(spec, ratio, offset);
         
-        double[] r = grp.process(highFreqSeries.getValues(), naggregationConstraint.getValues());
+        DoubleSeq previous = null;
+        if (previousSolution != null) {
+            if (!previousSolution.getTsUnit().equals(sh.getUnit())) {
+                throw new TsException(TsException.INCOMPATIBLE_FREQ);
+            }
+            // aligned on the high-frequency series
+            double[] pv = new double[highFreqSeries.length()];
+            int del = sh.until(previousSolution.getStart());
+            double c = spec.getAggregationType() == AggregationType.Average ? 1.0 / ratio : 1;
+            for (int i = 0; i < pv.length; ++i) {
+                int j = i - del;
+                pv[i] = j >= 0 && j < previousSolution.length() ? previousSolution.getValue(j) * c : Double.NaN;
+            }
+            previous = DoubleSeq.of(pv);
+        }
+        double[] r = grp.process(highFreqSeries.getValues(), naggregationConstraint.getValues(), previous);
         TsData rslt = TsData.ofInternal(sh, r);
         if (spec.getAggregationType() == AggregationType.Average)
             rslt=rslt.multiply(ratio);
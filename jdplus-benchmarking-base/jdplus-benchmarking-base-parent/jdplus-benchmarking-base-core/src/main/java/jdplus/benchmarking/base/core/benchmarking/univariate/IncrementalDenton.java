@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.benchmarking.univariate;
+
+import jdplus.benchmarking.base.api.benchmarking.univariate.DentonSpec;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+
+/**
+ * Denton benchmarking of a series that is regularly extended with new high-
+ * and/or low-frequency observations.
+ *
+ * With an unbounded revision window (w = 0), each update recomputes the whole
+ * series. In the additive case, the object keeps the banded factorization of
+ * the previous problem, whose leading part doesn't depend on the new
+ * observations: only its last periods are factorized again (see
+ * MatrixDenton.extend). The substitutions remain linear in the length of the
+ * series. The multiplicative case (whose system depends on all the data)
+ * and the dense solver use a complete computation.
+ *
+ * With a revision window of w periods, only the observations
+ * linked to the last w aggregation constraints are revised: the previous
+ * results are kept for the older observations and the last d of them (d =
+ * differencing order) are used as initial conditions of a modified Denton
+ * problem on the window. The influence of new information on the old results
+ * decreases quickly, so that a window of a few periods gives the same numbers
+ * as a full recompute, within a small tolerance.
+ *
+ * The class is not thread-safe.
+ *
+ * @author Jean Palate
+ */
+public class IncrementalDenton {
+
+    private final DentonSpec spec;
+    private final int conversion, offset, window;
+
+    private double[] x, y, s;
+    // factorization of the last problem (additive case, unbounded window)
+    private MatrixDenton.Kkt kkt;
+
+    /**
+     *
+     * @param spec The Denton specification
+     * @param conversion The conversion factor
+     * @param offset The offset of the first aggregation constraint in the
+     * high-frequency series
+     * @param window The number of low-frequency periods that can be revised
+     * by an update. 0 for full recomputes
+     */
+    public IncrementalDenton(DentonSpec spec, int conversion, int offset, int window) {
+        if (window < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.spec = spec;
+        this.conversion = conversion;
+        this.offset = offset;
+        this.window = window;
+    }
+
+    /**
+     * Full benchmarking. Resets the state of the object
+     *
+     * @param highSeries The high-frequency series
+     * @param lowSeries The aggregation constraints
+     * @return The benchmarked series
+     */
+    public double[] process(DoubleSeq highSeries, DoubleSeq lowSeries) {
+        x = highSeries.toArray();
+        y = lowSeries.toArray();
+        kkt = null;
+        return recompute();
+    }
+
+    /**
+     * Appends new observations to the series and updates the results
+     *
+     * @param highObs The new high-frequency observations (may be empty)
+     * @param lowObs The new aggregation constraints (may be empty)
+     * @return The updated benchmarked series
+     */
+    public double[] update(DoubleSeq highObs, DoubleSeq lowObs) {
+        if (s == null) {
+            return process(highObs, lowObs);
+        }
+        int nold = s.length;
+        x = append(x, highObs);
+        y = append(y, lowObs);
+        int n = x.length, ny = y.length;
+        int d = spec.getDifferencing();
+        int k0 = ny - window;
+        // start of the revised observations
+        int j0 = offset + k0 * conversion;
+        if (window == 0) {
+            return recompute();
+        }
+        if (k0 <= 0 || j0 - d < 0 || j0 > nold) {
+            return process(DoubleSeq.of(x), DoubleSeq.of(y));
+        }
+        int start = j0 - d;
+        MatrixDenton denton = new MatrixDenton(spec.toBuilder().modified(true).build(), conversion, d);
+        double[] rslt = denton.process(DoubleSeq.of(x).drop(start, 0), DoubleSeq.of(y).drop(k0, 0),
+                DoubleSeq.of(s).extract(start, d));
+        if (rslt == null) {
+            return process(DoubleSeq.of(x), DoubleSeq.of(y));
+        }
+        double[] ns = new double[n];
+        System.arraycopy(s, 0, ns, 0, j0);
+        System.arraycopy(rslt, d, ns, j0, n - j0);
+        s = ns;
+        return s.clone();
+    }
+
+    /**
+     * Benchmarking of the whole series. With an unbounded window, the
+     * factorization of the previous problem (if any) is extended
+     *
+     * @return
+     */
+    private double[] recompute() {
+        MatrixDenton denton = new MatrixDenton(spec, conversion, offset);
+        DoubleSeq xs = DoubleSeq.of(x), ys = DoubleSeq.of(y);
+        kkt = window == 0 ? denton.extend(kkt, x.length, y.length) : null;
+        s = kkt == null ? denton.process(xs, ys) : denton.process(xs, ys, kkt);
+        return s.clone();
+    }
+
+    private static double[] append(double[] a, DoubleSeq b) {
+        int n = a.length, m = b.length();
+        if (m == 0) {
+            return a;
+        }
+        double[] c = new double[n + m];
+        System.arraycopy(a, 0, c, 0, n);
+        b.copyTo(c, n);
+        return c;
+    }
+
+    /**
+     * @return The current benchmarked series (null if nothing has been
+     * processed yet)
+     */
+    public double[] getResult() {
+        return s == null ? null : s.clone();
+    }
+
+    public DentonSpec getSpec() {
+        return spec;
+    }
+
+    public int getConversionFactor() {
+        return conversion;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+}
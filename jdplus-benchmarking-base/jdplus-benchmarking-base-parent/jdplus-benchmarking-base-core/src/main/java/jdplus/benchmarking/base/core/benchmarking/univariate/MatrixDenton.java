@@ -16,6 +16,7 @@
  */
 package jdplus.benchmarking.base.core.benchmarking.univariate;
 
+import internal.math.BandedLinearSystem;
 import jdplus.benchmarking.base.api.benchmarking.univariate.DentonSpec;
 import jdplus.toolkit.base.api.data.AggregationType;
 import jdplus.toolkit.base.core.data.DataBlock;
@@ -26,6 +27,10 @@ import jdplus.toolkit.base.core.math.polynomials.Polynomial;
 import jdplus.toolkit.base.core.math.polynomials.UnitRoots;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import jdplus.toolkit.base.core.math.matrices.MatrixException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  *
@@ -33,10 +38,25 @@ import jdplus.toolkit.base.core.math.matrices.FastMatrix;
  */
 public class MatrixDenton {
 
+    /**
+     * Size of the constrained system (n+ny) above which the banded solver is
+     * used in automatic mode for multiplicative problems. Additive problems
+     * always use the (cached) banded factorization in automatic mode
+     */
+    public static final int BANDED_THRESHOLD = 100;
+
+    /**
+     * Default number of factorized systems kept in the cache
+     */
+    public static final int DEF_CACHE_CAPACITY = 32;
+
+    private static final Cache CACHE = new Cache(DEF_CACHE_CAPACITY);
+
     private final boolean multiplicative, modified;
     private final int differencing, conversion, offset;
     private final AggregationType type;
     private final int obsPosition;
+    private final DentonSpec.Solver solver;
 
     public MatrixDenton(DentonSpec spec, int conversion, int offset) {
         this.conversion = conversion;
@@ -46,6 +66,7 @@ public class MatrixDenton {
         this.differencing = spec.getDifferencing();
         this.type = spec.getAggregationType();
         this.obsPosition = spec.getObservationPosition();
+        this.solver = spec.getSolver();
     }
 
     private void J(DataBlockIterator iterator) {
@@ -124,6 +145,29 @@ public class MatrixDenton {
         double xm = x.sum() / x.length();
         x.mul(1 / xm);
 
+        if (isBanded(n, ny, !multiplicative)) {
+            double[] xn = x.toArray();
+            double[] w = null;
+            if (multiplicative) {
+                w = new double[n];
+                for (int i = 0; i < n; ++i) {
+                    w[i] = 1 / xn[i];
+                }
+            }
+            double[] c = y.toArray();
+            for (int i = 0; i < ny; ++i) {
+                c[i] /= xm;
+            }
+            double[] rslt = processBanded(xn, w, c, 0);
+            if (rslt != null) {
+                for (int i = 0; i < n; ++i) {
+                    rslt[i] *= xm;
+                }
+                return rslt;
+            }
+            checkFallback();
+        }
+
         FastMatrix D = D(x);
 
         FastMatrix A = FastMatrix.square(n + ny);
@@ -150,6 +194,49 @@ public class MatrixDenton {
         return rslt.toArray();
     }
 
+    /**
+     * Benchmarking with the first observations of the result fixed to given
+     * values. Used for partial revisions (see IncrementalDenton); the
+     * differencing operator should be the modified one. Only the banded
+     * solver is used.
+     *
+     * @param highSeries The high-frequency series
+     * @param lowSeries The aggregation constraints
+     * @param fixedValues The values of the first observations of the result
+     * @return The benchmarked series (including the fixed observations) or
+     * null if the problem can't be solved
+     */
+    double[] process(DoubleSeq highSeries, DoubleSeq lowSeries, DoubleSeq fixedValues) {
+        double[] x = highSeries.toArray();
+        int n = x.length, ny = lowSeries.length(), nfixed = fixedValues.length();
+        double xm = highSeries.sum() / n;
+        for (int i = 0; i < n; ++i) {
+            x[i] /= xm;
+        }
+        double[] w = null;
+        if (multiplicative) {
+            w = new double[n];
+            for (int i = 0; i < n; ++i) {
+                w[i] = 1 / x[i];
+            }
+        }
+        double[] c = new double[nfixed + ny];
+        for (int i = 0; i < nfixed; ++i) {
+            c[i] = fixedValues.get(i) / xm;
+        }
+        double cy = type == AggregationType.Average ? conversion / xm : 1 / xm;
+        for (int i = 0; i < ny; ++i) {
+            c[nfixed + i] = lowSeries.get(i) * cy;
+        }
+        double[] rslt = processBanded(x, w, c, nfixed);
+        if (rslt != null) {
+            for (int i = 0; i < n; ++i) {
+                rslt[i] *= xm;
+            }
+        }
+        return rslt;
+    }
+
     public double[] process(DoubleSeq lowSeries) {
         int ny = lowSeries.length();
         int n = ny * conversion;
@@ -158,6 +245,13 @@ public class MatrixDenton {
         if (type == AggregationType.Average) {
             y.mul(conversion);
         }
+        if (isBanded(n, ny, true)) {
+            double[] rslt = processBanded(null, null, y.toArray(), 0);
+            if (rslt != null) {
+                return rslt;
+            }
+            checkFallback();
+        }
         if (multiplicative) {
             x.set(1);
         }
@@ -179,6 +273,473 @@ public class MatrixDenton {
         return z.range(0, n).toArray();
     }
 
+    /**
+     * Benchmarks several series with the same structure (same length, same
+     * number of constraints). In the additive case, the KKT system is
+     * factorized once and all the series are handled by a single
+     * back-substitution with multiple right-hand sides. Other cases are
+     * processed series by series.
+     *
+     * @param highSeries The high-frequency series
+     * @param lowSeries The corresponding aggregation constraints
+     * @return The benchmarked series
+     */
+    public double[][] process(DoubleSeq[] highSeries, DoubleSeq[] lowSeries) {
+        int m = highSeries.length;
+        if (lowSeries.length != m) {
+            throw new IllegalArgumentException();
+        }
+        double[][] rslt = new double[m][];
+        if (m == 0) {
+            return rslt;
+        }
+        int n = highSeries[0].length(), ny = lowSeries[0].length();
+        for (int j = 1; j < m; ++j) {
+            if (highSeries[j].length() != n || lowSeries[j].length() != ny) {
+                throw new IllegalArgumentException();
+            }
+        }
+        Kkt kkt = multiplicative || !isBanded(n, ny, true) ? null : cachedKkt(n, 0, ny);
+        if (kkt == null) {
+            for (int j = 0; j < m; ++j) {
+                rslt[j] = process(highSeries[j], lowSeries[j]);
+            }
+            return rslt;
+        }
+        double[] z = new double[(n + ny) * m];
+        double[] xm = new double[m];
+        for (int j = 0; j < m; ++j) {
+            double[] x = highSeries[j].toArray();
+            double[] c = lowSeries[j].toArray();
+            double s = 0;
+            for (int i = 0; i < n; ++i) {
+                s += x[i];
+            }
+            double cm = s / n;
+            for (int i = 0; i < n; ++i) {
+                x[i] /= cm;
+            }
+            double cy = type == AggregationType.Average ? conversion / cm : 1 / cm;
+            for (int i = 0; i < ny; ++i) {
+                c[i] *= cy;
+            }
+            xm[j] = cm;
+            rhs(kkt, x, null, c, z, m, j);
+        }
+        kkt.system.solve(z, m);
+        for (int j = 0; j < m; ++j) {
+            double[] s = new double[n];
+            double cm = xm[j];
+            for (int i = 0; i < n; ++i) {
+                s[i] = z[kkt.spos[i] * m + j] * cm;
+            }
+            rslt[j] = s;
+        }
+        return rslt;
+    }
+
+    /**
+     * The dense solver is only used as a fallback of the banded solver when
+     * the solver is chosen automatically
+     */
+    private void checkFallback() {
+        if (solver == DentonSpec.Solver.Banded) {
+            throw new MatrixException("Denton: the banded system can't be solved");
+        }
+    }
+
+    private boolean isBanded(int n, int ny, boolean cacheable) {
+        return switch (solver) {
+            case Banded ->
+                true;
+            case Dense ->
+                false;
+            default ->
+                cacheable || n + ny > BANDED_THRESHOLD;
+        };
+    }
+
+    /**
+     * Solves min (s-x)'D'D(s-x) subject to Js = c by means of a banded
+     * factorization of the KKT system. When the differencing operator is not
+     * weighted (additive case or interpolation), the system doesn't depend on
+     * the data and its factorization is taken from (or put in) the cache.
+     *
+     * @param x Reference series (normalized). Null for a zero reference
+     * @param w Weights of the differencing operator (inverse of the
+     * normalized reference in the multiplicative case). Null for unit weights
+     * @param c Constraints. The values of the fixed observations (if any)
+     * are put first
+     * @param nfixed Number of fixed observations at the beginning of the
+     * series
+     * @return The solution or null if the banded system can't be used (invalid
+     * constraints or numerically singular system)
+     */
+    private double[] processBanded(double[] x, double[] w, double[] c, int nfixed) {
+        int nc = c.length;
+        int ny = nc - nfixed;
+        int n = x == null ? ny * conversion : x.length;
+        Kkt kkt = w == null ? cachedKkt(n, nfixed, ny) : kkt(n, nfixed, ny, w, null);
+        if (kkt == null) {
+            return null;
+        }
+        return solve(kkt, x, w, c);
+    }
+
+    private double[] solve(Kkt kkt, double[] x, double[] w, double[] c) {
+        int n = kkt.spos.length;
+        double[] z = new double[n + c.length];
+        rhs(kkt, x, w, c, z, 1, 0);
+        kkt.system.solve(z);
+        double[] s = new double[n];
+        for (int i = 0; i < n; ++i) {
+            s[i] = z[kkt.spos[i]];
+        }
+        return s;
+    }
+
+    /**
+     * Additive benchmarking with a given factorization of the KKT system (see
+     * extend). Used for the updates of IncrementalDenton
+     *
+     * @param highSeries The high-frequency series
+     * @param lowSeries The aggregation constraints
+     * @param kkt The factorization of the KKT system of the problem
+     * @return The benchmarked series
+     */
+    double[] process(DoubleSeq highSeries, DoubleSeq lowSeries, Kkt kkt) {
+        double[] x = highSeries.toArray();
+        int n = x.length, ny = lowSeries.length();
+        double xm = highSeries.sum() / n;
+        for (int i = 0; i < n; ++i) {
+            x[i] /= xm;
+        }
+        double[] c = new double[ny];
+        double cy = type == AggregationType.Average ? conversion / xm : 1 / xm;
+        for (int i = 0; i < ny; ++i) {
+            c[i] = lowSeries.get(i) * cy;
+        }
+        double[] rslt = solve(kkt, x, null, c);
+        for (int i = 0; i < n; ++i) {
+            rslt[i] *= xm;
+        }
+        return rslt;
+    }
+
+    /**
+     * Factorization of the KKT system of an additive problem (which doesn't
+     * depend on the data), for a series that extends the series of a previous
+     * problem. The elimination is resumed from the checkpoint of the previous
+     * factorization, which is put before the first rows that can be modified
+     * by new observations: only the last periods are factorized again. The
+     * cache is not used.
+     *
+     * @param previous The factorization of the previous problem (with the
+     * same parameters), on a shorter (or equal) series. Null if none
+     * @param n Length of the high-frequency series
+     * @param ny Number of aggregation constraints
+     * @return The factorization or null if the banded system can't be used
+     * (multiplicative or dense problem, invalid constraints...)
+     */
+    Kkt extend(Kkt previous, int n, int ny) {
+        if (multiplicative || !isBanded(n, ny, true)) {
+            return null;
+        }
+        if (previous != null && (previous.spos.length > n || previous.lpos.length > ny)) {
+            previous = null;
+        }
+        return kkt(n, 0, ny, null, previous);
+    }
+
+    private Kkt cachedKkt(int n, int nfixed, int ny) {
+        Key key = new Key(modified, differencing, type, obsPosition, conversion, offset, n, nfixed, ny);
+        Kkt kkt = CACHE.get(key);
+        if (kkt == null) {
+            kkt = kkt(n, nfixed, ny, null, null);
+            if (kkt != null) {
+                CACHE.put(key, kkt);
+            }
+        }
+        return kkt;
+    }
+
+    /**
+     * Fills the right-hand side of the KKT system. The right-hand sides are
+     * stored row by row in z (nrhs values by row of the system)
+     *
+     * @param kkt The system
+     * @param x Reference series. Null for a zero reference
+     * @param w Weights of the differencing operator. Null for unit weights
+     * @param c Constraints
+     * @param z Buffer of the right-hand sides
+     * @param nrhs Number of right-hand sides
+     * @param col Right-hand side that is filled
+     */
+    private void rhs(Kkt kkt, double[] x, double[] w, double[] c, double[] z, int nrhs, int col) {
+        int[] spos = kkt.spos;
+        // D'Dx
+        if (x != null) {
+            int n = x.length;
+            Polynomial pd = UnitRoots.D(1, differencing);
+            int[] cols = new int[pd.degree() + 1];
+            double[] vals = new double[cols.length];
+            int nrows = modified ? n - pd.degree() : n;
+            for (int r = 0; r < nrows; ++r) {
+                int m = row(pd, r, w, cols, vals);
+                double dx = 0;
+                for (int i = 0; i < m; ++i) {
+                    dx += vals[i] * x[cols[i]];
+                }
+                if (dx != 0) {
+                    for (int i = 0; i < m; ++i) {
+                        z[spos[cols[i]] * nrhs + col] += vals[i] * dx;
+                    }
+                }
+            }
+        }
+        for (int k = 0; k < c.length; ++k) {
+            z[kkt.lpos[k] * nrhs + col] = c[k];
+        }
+    }
+
+    /**
+     * Non-zero elements of the r-th row of the (weighted) differencing
+     * operator
+     *
+     * @return The number of non-zero elements
+     */
+    private int row(Polynomial pd, int r, double[] w, int[] cols, double[] vals) {
+        int d = pd.degree();
+        int m = 0;
+        if (modified) {
+            for (int i = 0; i <= d; ++i, ++m) {
+                int col = r + i;
+                cols[m] = col;
+                vals[m] = w == null ? pd.get(d - i) : pd.get(d - i) * w[col];
+            }
+        } else {
+            for (int i = 0; i <= Math.min(d, r); ++i, ++m) {
+                int col = r - i;
+                cols[m] = col;
+                vals[m] = w == null ? pd.get(i) : pd.get(i) * w[col];
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Builds and factorizes the KKT system. The Lagrange multiplier of each
+     * constraint is put just after the last unknown involved in the
+     * constraint, so that the system has a bandwidth of the order of
+     * max(differencing, conversion). Time and memory are linear in the length
+     * of the series.
+     *
+     * @param n Length of the high-frequency series
+     * @param nfixed Number of fixed observations at the beginning of the
+     * series
+     * @param ny Number of aggregation constraints
+     * @param w Weights of the differencing operator. Null for unit weights
+     * @param previous Factorization of the same unweighted problem on a
+     * shorter series, whose elimination is resumed. Null if none
+     * @return The factorized system or null if the banded system can't be used
+     */
+    private Kkt kkt(int n, int nfixed, int ny, double[] w, Kkt previous) {
+        // constrained unknowns
+        int nc = nfixed + ny;
+        int[] first = new int[nc], last = new int[nc];
+        for (int k = 0; k < nfixed; ++k) {
+            first[k] = k;
+            last[k] = k;
+        }
+        for (int k = nfixed, j = offset; k < nc; ++k, j += conversion) {
+            switch (type) {
+                case Sum, Average -> {
+                    first[k] = j;
+                    last[k] = j + conversion - 1;
+                }
+                case First -> {
+                    first[k] = j;
+                    last[k] = j;
+                }
+                case Last -> {
+                    first[k] = j + conversion - 1;
+                    last[k] = first[k];
+                }
+                case UserDefined -> {
+                    first[k] = j + obsPosition;
+                    last[k] = first[k];
+                }
+                default ->
+                    throw new IllegalArgumentException();
+            }
+            if (first[k] < 0 || last[k] >= n) {
+                return null;
+            }
+        }
+        // positions in the interleaved system
+        int[] spos = new int[n], lpos = new int[nc];
+        int q = 0;
+        for (int i = 0, p = 0; i < n; ++i) {
+            spos[i] = p++;
+            while (q < nc && last[q] == i) {
+                lpos[q++] = p++;
+            }
+        }
+        if (q < nc) {
+            // overlapping constraints
+            return null;
+        }
+
+        Polynomial pd = UnitRoots.D(1, differencing);
+        int d = pd.degree();
+        int bw = 0;
+        for (int i = 0; i < n; ++i) {
+            int del = spos[Math.min(n - 1, i + d)] - spos[i];
+            if (del > bw) {
+                bw = del;
+            }
+        }
+        for (int k = 0; k < nc; ++k) {
+            int del = lpos[k] - spos[first[k]];
+            if (del > bw) {
+                bw = del;
+            }
+        }
+
+        BandedLinearSystem system = new BandedLinearSystem(n + nc, bw, bw);
+        // D'D block
+        int[] cols = new int[d + 1];
+        double[] vals = new double[d + 1];
+        int nrows = modified ? n - d : n;
+        for (int r = 0; r < nrows; ++r) {
+            int m = row(pd, r, w, cols, vals);
+            for (int i = 0; i < m; ++i) {
+                double vi = vals[i];
+                int pi = spos[cols[i]];
+                for (int j = 0; j < m; ++j) {
+                    system.add(pi, spos[cols[j]], vi * vals[j]);
+                }
+            }
+        }
+        // constraints
+        for (int k = 0; k < nc; ++k) {
+            int pk = lpos[k];
+            for (int j = first[k]; j <= last[k]; ++j) {
+                system.set(pk, spos[j], 1);
+                system.set(spos[j], pk, 1);
+            }
+        }
+        // The unweighted systems save the state of their elimination before
+        // the first rows that can be modified by an extension of the series:
+        // the rows of the observations that are followed (within the
+        // differencing order) by new observations or by observations of the
+        // next constraints
+        int checkpoint = -1;
+        if (w == null && nfixed == 0) {
+            int jc = Math.min(n, offset + ny * conversion) - d;
+            if (jc > 0) {
+                checkpoint = spos[jc] - bw;
+            }
+        }
+        boolean ok = previous == null ? system.decompose(checkpoint) : system.decompose(previous.system, checkpoint);
+        if (!ok) {
+            return null;
+        }
+        return new Kkt(spos, lpos, system);
+    }
+
+    /**
+     * Factorized KKT system. Immutable once built, so that it can be shared
+     * between threads (the back-substitution doesn't modify it)
+     */
+    @lombok.AllArgsConstructor
+    static final class Kkt {
+
+        final int[] spos, lpos;
+        final BandedLinearSystem system;
+    }
+
+    /**
+     * Everything the KKT system of an unweighted problem depends on
+     */
+    @lombok.Value
+    private static class Key {
+
+        boolean modified;
+        int differencing;
+        AggregationType type;
+        int obsPosition, conversion, offset, n, nfixed, ny;
+    }
+
+    /**
+     * Bounded cache of factorized systems (least recently used entries are
+     * removed first)
+     */
+    private static final class Cache {
+
+        private final LinkedHashMap<Key, Kkt> map;
+        private int capacity;
+
+        Cache(int capacity) {
+            this.capacity = capacity;
+            this.map = new LinkedHashMap<>(16, .75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Kkt> eldest) {
+                    return size() > Cache.this.capacity;
+                }
+            };
+        }
+
+        synchronized Kkt get(Key key) {
+            return map.get(key);
+        }
+
+        synchronized void put(Key key, Kkt kkt) {
+            if (capacity > 0) {
+                map.put(key, kkt);
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized void setCapacity(int capacity) {
+            this.capacity = capacity;
+            Iterator<Key> iter = map.keySet().iterator();
+            while (map.size() > capacity && iter.hasNext()) {
+                iter.next();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of factorized systems kept in the cache. The
+     * cache is shared by all the instances of MatrixDenton. 0 disables the
+     * cache
+     *
+     * @param capacity
+     */
+    public static void setCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        CACHE.setCapacity(capacity);
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public static int getCacheSize() {
+        return CACHE.size();
+    }
+
     public boolean isMultiplicative() {
         return multiplicative;
     }
@@ -203,4 +764,8 @@ public class MatrixDenton {
         return offset;
     }
 
+    public DentonSpec.Solver getSolver() {
+        return solver;
+    }
+
 }
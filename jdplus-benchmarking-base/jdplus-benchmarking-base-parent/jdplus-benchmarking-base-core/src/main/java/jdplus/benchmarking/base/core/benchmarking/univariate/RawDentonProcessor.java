@@ -19,6 +19,10 @@ package jdplus.benchmarking.base.core.benchmarking.univariate;
 import jdplus.benchmarking.base.api.benchmarking.univariate.RawDenton;
 import jdplus.benchmarking.base.api.benchmarking.univariate.RawDentonSpec;
 import jdplus.benchmarking.base.api.benchmarking.univariate.DentonSpec;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 import nbbrd.service.ServiceProvider;
 
@@ -34,41 +38,81 @@ public class RawDentonProcessor implements RawDenton.Processor {
     @Override
     public double[] benchmark(DoubleSeq highFreqSeries, DoubleSeq aggregationConstraint, int startOffset, RawDentonSpec spec) {
         int ratio = spec.getFrequencyRatio();
-        
-        DoubleSeq naggregationConstraint;
-        switch (spec.getAggregationType()){
-            case Sum, Average -> naggregationConstraint=BenchmarkingUtility.constraints(highFreqSeries, aggregationConstraint, ratio, startOffset);
-            case Last -> naggregationConstraint=BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio, startOffset, ratio-1);
-            case First -> naggregationConstraint=BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio, startOffset, 0);
-            case UserDefined -> naggregationConstraint=BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio, startOffset, spec.getObservationPosition());
-            default -> throw new IllegalArgumentException();
-        }
-        
-        DentonSpec specDenton = DentonSpec.builder()
-                .multiplicative(spec.isMultiplicative())
-                .modified(spec.isModified())
-                .differencing(spec.getDifferencing())
-                .aggregationType(spec.getAggregationType())
-                .observationPosition(spec.getObservationPosition())
-                .build();
-        
-        MatrixDenton denton = new MatrixDenton(specDenton, ratio, startOffset);
+        DoubleSeq naggregationConstraint = constraints(highFreqSeries, aggregationConstraint, startOffset, spec);
+        MatrixDenton denton = new MatrixDenton(dentonSpec(spec), ratio, startOffset);
         return denton.process(highFreqSeries, naggregationConstraint);
     }
 
     @Override
     public double[] benchmark(DoubleSeq aggregationConstraint, RawDentonSpec spec) {
         int ratio = spec.getFrequencyRatio();
-        
-        DentonSpec specDenton = DentonSpec.builder()
+        MatrixDenton denton = new MatrixDenton(dentonSpec(spec), ratio, 0);
+        return denton.process(aggregationConstraint);
+    }
+
+    @Override
+    public double[][] benchmark(double[][] highFreqSeries, double[][] aggregationConstraints, int[] startOffsets, RawDentonSpec spec) {
+        int m = highFreqSeries.length;
+        if (aggregationConstraints.length != m || startOffsets.length != m) {
+            throw new IllegalArgumentException();
+        }
+        int ratio = spec.getFrequencyRatio();
+        DentonSpec specDenton = dentonSpec(spec);
+        DoubleSeq[] nconstraints = new DoubleSeq[m];
+        Map<Structure, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < m; ++i) {
+            DoubleSeq x = DoubleSeq.of(highFreqSeries[i]);
+            nconstraints[i] = constraints(x, DoubleSeq.of(aggregationConstraints[i]), startOffsets[i], spec);
+            Structure structure = new Structure(startOffsets[i], x.length(), nconstraints[i].length());
+            groups.computeIfAbsent(structure, k -> new ArrayList<>()).add(i);
+        }
+        double[][] rslt = new double[m][];
+        groups.forEach((structure, items) -> {
+            int k = items.size();
+            DoubleSeq[] x = new DoubleSeq[k], y = new DoubleSeq[k];
+            for (int j = 0; j < k; ++j) {
+                int pos = items.get(j);
+                x[j] = DoubleSeq.of(highFreqSeries[pos]);
+                y[j] = nconstraints[pos];
+            }
+            MatrixDenton denton = new MatrixDenton(specDenton, ratio, structure.getOffset());
+            double[][] r = denton.process(x, y);
+            for (int j = 0; j < k; ++j) {
+                rslt[items.get(j)] = r[j];
+            }
+        });
+        return rslt;
+    }
+
+    private static DoubleSeq constraints(DoubleSeq highFreqSeries, DoubleSeq aggregationConstraint, int startOffset, RawDentonSpec spec) {
+        int ratio = spec.getFrequencyRatio();
+        return switch (spec.getAggregationType()) {
+            case Sum, Average ->
+                BenchmarkingUtility.constraints(highFreqSeries, aggregationConstraint, ratio, startOffset);
+            case Last ->
+                BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio, startOffset, ratio - 1);
+            case First ->
+                BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio, startOffset, 0);
+            case UserDefined ->
+                BenchmarkingUtility.constraintsByPosition(highFreqSeries, aggregationConstraint, ratio, startOffset, spec.getObservationPosition());
+            default ->
+                throw new IllegalArgumentException();
+        };
+    }
+
+    private static DentonSpec dentonSpec(RawDentonSpec spec) {
+        return DentonSpec.builder()
                 .multiplicative(spec.isMultiplicative())
                 .modified(spec.isModified())
                 .differencing(spec.getDifferencing())
                 .aggregationType(spec.getAggregationType())
                 .observationPosition(spec.getObservationPosition())
                 .build();
-        
-        MatrixDenton denton = new MatrixDenton(specDenton, ratio, 0);
-        return denton.process(aggregationConstraint);
+    }
+
+    @lombok.Value
+    private static class Structure {
+
+        int offset, n, ny;
     }
 }
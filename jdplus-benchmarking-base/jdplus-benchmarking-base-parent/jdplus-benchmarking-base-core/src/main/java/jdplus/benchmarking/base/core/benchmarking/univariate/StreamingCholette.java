@@ -0,0 +1,525 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.benchmarking.univariate;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import jdplus.benchmarking.base.api.benchmarking.univariate.CholetteSpec;
+import jdplus.toolkit.base.api.data.AggregationType;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+
+/**
+ * Cholette benchmarking of a series that is regularly extended with new high-
+ * and low-frequency observations (for instance monthly data and quarterly
+ * benchmarks published with a delay).
+ *
+ * The discrepancies are modelled as in SsfCholette: d(t) = w(t)*u(t), where
+ * u(t) is an AR(1) process (a random walk with a diffuse initial condition
+ * when rho = 1) and w(t) = |x(t)|^lambda. The state of the model is
+ * (c(t), u(t)), where c(t) is the sum of the discrepancies of the current
+ * aggregation period before t. The aggregation constraints are exact
+ * observations of c(t) + w(t)*u(t) at the end of the aggregation periods (or
+ * of w(t)*u(t) for the constraints by position).
+ *
+ * The object keeps the (predicted) state of the Kalman filter at some
+ * position. An update runs the filter from that position up to the end of
+ * the series and then the smoother on the same span: it gives the filtered
+ * (real-time) benchmarked values and the fixed-lag smoothed benchmarked values
+ * of the periods that can still be revised. The stored state is then moved
+ * forward, so that it stays at most "lag" periods (rounded to the start of an
+ * aggregation period) before the first constraint that is not yet available.
+ * Older smoothed values are frozen and they are dropped, with the
+ * corresponding data: the object only keeps the data after the stored state.
+ * The cost (time and memory) of an update is thus proportional to the lag
+ * plus the publication delay of the benchmarks and to the new data, and not to
+ * the length of the series. An update only returns the new or revised values.
+ *
+ * Bias correction and normalization are global operations and are not
+ * supported. The class is not thread-safe.
+ *
+ * @author Jean Palate
+ */
+public class StreamingCholette {
+
+    private static final double EPS = 1e-13;
+
+    private final double rho, lambda;
+    private final AggregationType type;
+    private final int observationPosition, conversion, offset, lag;
+
+    // high-frequency data of the periods [start, start + x.length[ and
+    // constraints [kstart, kstart + y.length[
+    private double[] x, y;
+    private int kstart;
+
+    // results of the last update, for the periods [from, from + smoothed.length[
+    private int from;
+    private double[] filtered, smoothed;
+
+    // predicted state (a, P*, P-infinity) at position start
+    private int start;
+    private double a0, a1, ps00, ps01, ps11, pi00, pi01, pi11;
+
+    /**
+     *
+     * @param spec The Cholette specification (without bias correction)
+     * @param conversion The conversion factor
+     * @param offset The position of the first aggregation period in the
+     * high-frequency series
+     * @param lag The number of high-frequency periods that can be revised by
+     * the smoother, before the first constraint that is not yet available.
+     */
+    public StreamingCholette(CholetteSpec spec, int conversion, int offset, int lag) {
+        spec.validate();
+        if (spec.getBias() != CholetteSpec.BiasCorrection.None || conversion < 1 || offset < 0 || lag < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.rho = spec.getRho();
+        this.lambda = spec.getLambda();
+        this.type = spec.getAggregationType();
+        this.observationPosition = spec.getObservationPosition();
+        this.conversion = conversion;
+        this.offset = offset;
+        this.lag = lag;
+        reset();
+    }
+
+    private StreamingCholette(Checkpoint checkpoint) {
+        this.rho = checkpoint.rho;
+        this.lambda = checkpoint.lambda;
+        this.type = checkpoint.type;
+        this.observationPosition = checkpoint.observationPosition;
+        this.conversion = checkpoint.conversion;
+        this.offset = checkpoint.offset;
+        this.lag = checkpoint.lag;
+        this.x = checkpoint.x.clone();
+        this.y = checkpoint.y.clone();
+        this.kstart = checkpoint.kstart;
+        this.start = checkpoint.start;
+        this.from = start;
+        this.filtered = new double[0];
+        this.smoothed = new double[0];
+        double[] s = checkpoint.state;
+        a0 = s[0];
+        a1 = s[1];
+        ps00 = s[2];
+        ps01 = s[3];
+        ps11 = s[4];
+        pi00 = s[5];
+        pi01 = s[6];
+        pi11 = s[7];
+    }
+
+    private void reset() {
+        x = new double[0];
+        y = new double[0];
+        kstart = 0;
+        from = 0;
+        filtered = new double[0];
+        smoothed = new double[0];
+        start = 0;
+        a0 = 0;
+        a1 = 0;
+        ps00 = 0;
+        ps01 = 0;
+        pi00 = 0;
+        pi01 = 0;
+        if (rho == 1) {
+            ps11 = 0;
+            pi11 = 1;
+        } else {
+            ps11 = 1 / (1 - rho * rho);
+            pi11 = 0;
+        }
+    }
+
+    /**
+     * Full benchmarking. Resets the state of the object
+     *
+     * @param highSeries The high-frequency series
+     * @param lowSeries The aggregation constraints
+     * @return The (fixed-lag) smoothed benchmarked series
+     */
+    public double[] process(DoubleSeq highSeries, DoubleSeq lowSeries) {
+        reset();
+        return update(highSeries, lowSeries);
+    }
+
+    /**
+     * Appends new observations to the series and updates the results
+     *
+     * @param highObs The new high-frequency observations (may be empty)
+     * @param lowObs The new aggregation constraints (may be empty)
+     * @return The (fixed-lag) smoothed benchmarked values of the periods that
+     * have been revised or added, starting at getRevisionStart() (the position
+     * of the first period that could be revised before the update)
+     */
+    public double[] update(DoubleSeq highObs, DoubleSeq lowObs) {
+        x = append(x, highObs);
+        y = append(y, lowObs);
+        from = start;
+        int m = x.length;
+        filtered = new double[m];
+        smoothed = new double[m];
+        if (m > 0) {
+            run(m);
+        }
+        return smoothed.clone();
+    }
+
+    /**
+     * Forward (filtering) and backward (smoothing) passes on [start, n[
+     *
+     * @param m Number of periods
+     */
+    private void run(int m) {
+        // predicted states and innovations
+        double[] a = new double[2 * m], ps = new double[3 * m], pi = new double[3 * m];
+        double[] v = new double[m], fs = new double[m], fi = new double[m];
+        byte[] kind = new byte[m];
+        int commit = Math.min(getLength(), position(kstart + y.length));
+        int nstart = Math.max(start, cycleStartBefore(commit - lag));
+        double b0 = a0, b1 = a1, s00 = ps00, s01 = ps01, s11 = ps11, i00 = pi00, i01 = pi01, i11 = pi11;
+        for (int j = 0, t = start; j < m; ++j, ++t) {
+            if (t == nstart) {
+                a0 = b0;
+                a1 = b1;
+                ps00 = s00;
+                ps01 = s01;
+                ps11 = s11;
+                pi00 = i00;
+                pi01 = i01;
+                pi11 = i11;
+            }
+            a[2 * j] = b0;
+            a[2 * j + 1] = b1;
+            ps[3 * j] = s00;
+            ps[3 * j + 1] = s01;
+            ps[3 * j + 2] = s11;
+            pi[3 * j] = i00;
+            pi[3 * j + 1] = i01;
+            pi[3 * j + 2] = i11;
+            double w = weight(t);
+            double obs = observation(t);
+            if (Double.isFinite(obs)) {
+                // Z = (1, w)
+                double vt = obs - b0 - w * b1;
+                double ms0 = s00 + w * s01, ms1 = s01 + w * s11;
+                double mi0 = i00 + w * i01, mi1 = i01 + w * i11;
+                double fst = ms0 + w * ms1, fit = mi0 + w * mi1;
+                v[j] = vt;
+                fs[j] = fst;
+                fi[j] = fit;
+                if (fit > EPS * (i11 + i00)) {
+                    // diffuse step (P-infinity is of rank 1 and vanishes)
+                    kind[j] = 2;
+                    double q = fst / (fit * fit);
+                    b0 += mi0 * vt / fit;
+                    b1 += mi1 * vt / fit;
+                    s00 += mi0 * mi0 * q - 2 * ms0 * mi0 / fit;
+                    s01 += mi0 * mi1 * q - (ms0 * mi1 + mi0 * ms1) / fit;
+                    s11 += mi1 * mi1 * q - 2 * ms1 * mi1 / fit;
+                    i00 = 0;
+                    i01 = 0;
+                    i11 = 0;
+                } else if (fst > EPS * (s00 + s11)) {
+                    kind[j] = 1;
+                    b0 += ms0 * vt / fst;
+                    b1 += ms1 * vt / fst;
+                    s00 -= ms0 * ms0 / fst;
+                    s01 -= ms0 * ms1 / fst;
+                    s11 -= ms1 * ms1 / fst;
+                }
+            }
+            filtered[j] = x[j] + w * b1;
+            // prediction. T = [d, d*w; 0, rho], R = (0, 1)
+            double d = cycleStart(t + 1) ? 0 : 1, dw = d * w;
+            double c0 = d * b0 + dw * b1;
+            b1 = rho * b1;
+            b0 = c0;
+            double t00 = d * d * s00 + 2 * d * dw * s01 + dw * dw * s11;
+            double t01 = rho * (d * s01 + dw * s11);
+            double t11 = rho * rho * s11 + 1;
+            s00 = t00;
+            s01 = t01;
+            s11 = t11;
+            t00 = d * d * i00 + 2 * d * dw * i01 + dw * dw * i11;
+            t01 = rho * (d * i01 + dw * i11);
+            t11 = rho * rho * i11;
+            i00 = t00;
+            i01 = t01;
+            i11 = t11;
+        }
+        if (start + m == nstart) {
+            a0 = b0;
+            a1 = b1;
+            ps00 = s00;
+            ps01 = s01;
+            ps11 = s11;
+            pi00 = i00;
+            pi01 = i01;
+            pi11 = i11;
+        }
+        // smoothing
+        double r0 = 0, r1 = 0, q0 = 0, q1 = 0;
+        for (int j = m - 1, t = start + m - 1; j >= 0; --j, --t) {
+            double w = weight(t);
+            double d = cycleStart(t + 1) ? 0 : 1, dw = d * w;
+            // T'r
+            double tr0 = d * r0, tr1 = dw * r0 + rho * r1;
+            double tq0 = d * q0, tq1 = dw * q0 + rho * q1;
+            double z00 = ps[3 * j], z01 = ps[3 * j + 1], z11 = ps[3 * j + 2];
+            double h00 = pi[3 * j], h01 = pi[3 * j + 1], h11 = pi[3 * j + 2];
+            switch (kind[j]) {
+                case 1 -> {
+                    // r(t-1) = Z'v/F + L'r(t), L = T - K Z, K = T M/F
+                    double ms0 = z00 + w * z01, ms1 = z01 + w * z11;
+                    double fst = fs[j];
+                    // K'r = M'T'r / F
+                    double kr = (ms0 * tr0 + ms1 * tr1) / fst;
+                    double u = v[j] / fst - kr;
+                    r0 = tr0 + u;
+                    r1 = tr1 + w * u;
+                    q0 = tq0;
+                    q1 = tq1;
+                }
+                case 2 -> {
+                    double ms0 = z00 + w * z01, ms1 = z01 + w * z11;
+                    double mi0 = h00 + w * h01, mi1 = h01 + w * h11;
+                    double fst = fs[j], fit = fi[j];
+                    // K0 = T Mi/Fi, K1 = T (Ms/Fi - Mi Fs/Fi^2)
+                    double k0r = (mi0 * tr0 + mi1 * tr1) / fit;
+                    double k0q = (mi0 * tq0 + mi1 * tq1) / fit;
+                    double k1r = (ms0 * tr0 + ms1 * tr1) / fit - (mi0 * tr0 + mi1 * tr1) * fst / (fit * fit);
+                    // r1(t-1) = Z'v/Fi + L1'r0(t) + L0'r1(t), L0 = T - K0 Z, L1 = - K1 Z
+                    double u = v[j] / fit - k1r - k0q;
+                    q0 = tq0 + u;
+                    q1 = tq1 + w * u;
+                    // r0(t-1) = L0'r0(t)
+                    r0 = tr0 - k0r;
+                    r1 = tr1 - w * k0r;
+                }
+                default -> {
+                    r0 = tr0;
+                    r1 = tr1;
+                    q0 = tq0;
+                    q1 = tq1;
+                }
+            }
+            double u1 = a[2 * j + 1] + z01 * r0 + z11 * r1 + h01 * q0 + h11 * q1;
+            smoothed[j] = x[j] + w * u1;
+        }
+        // drop the data before the new state
+        x = Arrays.copyOfRange(x, nstart - start, m);
+        int k = Math.min(Math.max(0, Math.floorDiv(nstart - offset - obsPosition() + conversion - 1, conversion)), kstart + y.length);
+        y = Arrays.copyOfRange(y, k - kstart, y.length);
+        kstart = k;
+        start = nstart;
+    }
+
+    private double x(int t) {
+        return x[t - start];
+    }
+
+    private double weight(int t) {
+        if (lambda == 0) {
+            return 1;
+        } else if (lambda == 1) {
+            return x(t);
+        } else {
+            return Math.pow(Math.abs(x(t)), lambda);
+        }
+    }
+
+    private boolean sum() {
+        return type == AggregationType.Sum || type == AggregationType.Average;
+    }
+
+    /**
+     * Position in the first aggregation period of the observation
+     */
+    private int obsPosition() {
+        return switch (type) {
+            case First ->
+                0;
+            case UserDefined ->
+                observationPosition;
+            default ->
+                conversion - 1;
+        };
+    }
+
+    /**
+     * Position of the observation of the k-th constraint
+     *
+     * @param k
+     * @return
+     */
+    private int position(int k) {
+        return offset + k * conversion + obsPosition();
+    }
+
+    /**
+     * Last start of an aggregation period before t (included). The frozen
+     * values don't share any constraint with the revised ones
+     *
+     * @param t
+     * @return
+     */
+    private int cycleStartBefore(int t) {
+        if (!sum()) {
+            return t;
+        } else if (t < offset) {
+            return 0;
+        } else {
+            return t - (t - offset) % conversion;
+        }
+    }
+
+    private boolean cycleStart(int t) {
+        return !sum() || t == 0 || (t >= offset && (t - offset) % conversion == 0);
+    }
+
+    /**
+     * Observation (sum of the discrepancies of the current aggregation
+     * period or discrepancy) at t
+     *
+     * @param t
+     * @return NaN if no constraint is available at t
+     */
+    private double observation(int t) {
+        int del = t - offset - obsPosition();
+        if (del < 0 || del % conversion != 0) {
+            return Double.NaN;
+        }
+        int k = del / conversion;
+        if (k < kstart || k >= kstart + y.length) {
+            return Double.NaN;
+        }
+        double yk = y[k - kstart];
+        if (!sum()) {
+            return yk - x(t);
+        }
+        // the aggregation period starts after the stored state
+        double s = 0;
+        for (int i = t - conversion + 1; i <= t; ++i) {
+            s += x(i);
+        }
+        return type == AggregationType.Average ? yk * conversion - s : yk - s;
+    }
+
+    private static double[] append(double[] a, DoubleSeq b) {
+        int n = a.length, m = b.length();
+        if (m == 0) {
+            return a;
+        }
+        double[] c = new double[n + m];
+        System.arraycopy(a, 0, c, 0, n);
+        b.copyTo(c, n);
+        return c;
+    }
+
+    /**
+     * @return The filtered (real-time) benchmarked values of the last update
+     * (periods starting at getRevisionStart()): each value only uses the
+     * constraints observed up to its period
+     */
+    public double[] getFiltered() {
+        return filtered.clone();
+    }
+
+    /**
+     * @return The (fixed-lag) smoothed benchmarked values of the last update
+     * (periods starting at getRevisionStart())
+     */
+    public double[] getSmoothed() {
+        return smoothed.clone();
+    }
+
+    /**
+     * @return The first period of the results of the last update
+     */
+    public int getRevisionStart() {
+        return from;
+    }
+
+    /**
+     * @return The first period that can still be revised
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Number of high-frequency periods
+     *
+     * @return
+     */
+    public int getLength() {
+        return start + x.length;
+    }
+
+    public int getConversionFactor() {
+        return conversion;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLag() {
+        return lag;
+    }
+
+    /**
+     * Saves the current state of the object. The checkpoint only contains the
+     * data that can still be revised (not the results)
+     *
+     * @return
+     */
+    public Checkpoint checkpoint() {
+        return new Checkpoint(rho, lambda, type, observationPosition, conversion, offset, lag,
+                x.clone(), y.clone(), kstart, start,
+                new double[]{a0, a1, ps00, ps01, ps11, pi00, pi01, pi11});
+    }
+
+    /**
+     * Restores an object from a checkpoint
+     *
+     * @param checkpoint
+     * @return
+     */
+    public static StreamingCholette of(Checkpoint checkpoint) {
+        return new StreamingCholette(checkpoint);
+    }
+
+    /**
+     * Serializable state of a streaming Cholette benchmarking
+     */
+    @lombok.AllArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+    public static final class Checkpoint implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double rho, lambda;
+        private final AggregationType type;
+        private final int observationPosition, conversion, offset, lag;
+        private final double[] x, y;
+        private final int kstart, start;
+        private final double[] state;
+    }
+}
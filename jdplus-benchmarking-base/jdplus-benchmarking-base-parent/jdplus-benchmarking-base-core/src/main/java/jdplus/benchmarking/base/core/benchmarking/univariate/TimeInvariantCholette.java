@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.benchmarking.univariate;
+
+import internal.math.BandedLinearSystem;
+
+/**
+ * Cholette benchmarking without weights (lambda = 0).
+ *
+ * In that case, the state space model of the discrepancies is time-invariant
+ * and the smoothed discrepancies are the solution of
+ * min e'Qe subject to the aggregation constraints,
+ * where Q is the (tridiagonal) precision matrix of an AR(1) process (a
+ * random walk with a diffuse initial condition when rho = 1):
+ * e'Qe = (1-rho^2)*e(0)^2 + sum((e(t)-rho*e(t-1))^2).
+ *
+ * The KKT system of that problem is banded (see MatrixDenton) and it is
+ * solved directly, in a time and a memory linear in the length of the series,
+ * instead of running the (square root) Kalman filter and smoother.
+ *
+ * @author Jean Palate
+ */
+final class TimeInvariantCholette {
+
+    private TimeInvariantCholette() {
+    }
+
+    /**
+     *
+     * @param y The discrepancies between the aggregation constraints and the
+     * aggregated series, expanded to the high frequency (NaN when no
+     * constraint, see CholetteProcessor.expand)
+     * @param ratio The conversion factor
+     * @param rho The autoregressive parameter (in ]-1, 1])
+     * @param sum True if an observation of y is the sum of the discrepancies
+     * of the current cycle (ending at the position of the observation),
+     * false if it is the discrepancy at that position
+     * @return The smoothed discrepancies or null if the direct solution
+     * can't be used (no constraint, invalid constraints or singular system).
+     * The caller should then use the Kalman smoother.
+     */
+    static double[] process(double[] y, int ratio, double rho, boolean sum) {
+        double[][] e = process(new double[][]{y}, ratio, rho, sum);
+        return e == null ? null : e[0];
+    }
+
+    /**
+     * Processes several series that share the same structure. The system is
+     * factorized once and solved for all the series at once.
+     *
+     * @param y The expanded discrepancies of the different series. They must
+     * have the same length and the same constraints (positions of the
+     * non-missing values)
+     * @param ratio The conversion factor
+     * @param rho The autoregressive parameter (in ]-1, 1])
+     * @param sum See above
+     * @return The smoothed discrepancies (same order as y) or null if the
+     * direct solution can't be used (in particular if the series don't have
+     * the same structure)
+     */
+    static double[][] process(double[][] y, int ratio, double rho, boolean sum) {
+        int m = y.length;
+        if (m == 0) {
+            return new double[0][];
+        }
+        double[] y0 = y[0];
+        int n = y0.length;
+        for (int j = 1; j < m; ++j) {
+            double[] yj = y[j];
+            if (yj.length != n) {
+                return null;
+            }
+            for (int i = 0; i < n; ++i) {
+                if (Double.isFinite(yj[i]) != Double.isFinite(y0[i])) {
+                    return null;
+                }
+            }
+        }
+        int len = sum ? ratio : 1;
+        int nc = 0;
+        for (int i = 0; i < n; ++i) {
+            if (Double.isFinite(y0[i])) {
+                if (i - len + 1 < 0) {
+                    return null;
+                }
+                ++nc;
+            }
+        }
+        if (nc == 0) {
+            return null;
+        }
+        // positions in the interleaved system: the Lagrange multiplier of a
+        // constraint is put just after the last discrepancy it involves
+        int[] spos = new int[n], lpos = new int[nc], last = new int[nc];
+        for (int i = 0, p = 0, k = 0; i < n; ++i) {
+            spos[i] = p++;
+            if (Double.isFinite(y0[i])) {
+                last[k] = i;
+                lpos[k++] = p++;
+            }
+        }
+        // overlapping constraints are not handled
+        for (int k = 1; k < nc; ++k) {
+            if (last[k] - len < last[k - 1]) {
+                return null;
+            }
+        }
+        int bw = len;
+        if (n > 1) {
+            bw = Math.max(bw, 2);
+        }
+        BandedLinearSystem system = new BandedLinearSystem(n + nc, bw, bw);
+        // Q
+        for (int t = 0; t < n; ++t) {
+            int pt = spos[t];
+            double q = t == 0 ? 1 - rho * rho : 1;
+            if (t < n - 1) {
+                q += rho * rho;
+                system.set(pt, spos[t + 1], -rho);
+                system.set(spos[t + 1], pt, -rho);
+            }
+            system.add(pt, pt, q);
+        }
+        // constraints
+        double[] z = new double[(n + nc) * m];
+        for (int k = 0; k < nc; ++k) {
+            int pk = lpos[k];
+            for (int j = last[k] - len + 1; j <= last[k]; ++j) {
+                system.set(pk, spos[j], 1);
+                system.set(spos[j], pk, 1);
+            }
+            for (int j = 0; j < m; ++j) {
+                z[pk * m + j] = y[j][last[k]];
+            }
+        }
+        if (!system.decompose()) {
+            return null;
+        }
+        system.solve(z, m);
+        double[][] e = new double[m][n];
+        for (int i = 0; i < n; ++i) {
+            int pi = spos[i] * m;
+            for (int j = 0; j < m; ++j) {
+                e[j][i] = z[pi + j];
+            }
+        }
+        return e;
+    }
+}
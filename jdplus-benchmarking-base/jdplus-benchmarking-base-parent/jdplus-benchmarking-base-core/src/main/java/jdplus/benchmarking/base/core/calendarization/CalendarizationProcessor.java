@@ -23,14 +23,17 @@ package jdplus.benchmarking.base.core.calendarization;
 import jdplus.benchmarking.base.core.ssf.SsfCalendarizationEx;
 import jdplus.benchmarking.base.core.ssf.SsfCalendarization;
 import jdplus.benchmarking.base.api.calendarization.Calendarization;
+import jdplus.benchmarking.base.api.calendarization.CalendarizationPanelResults;
 import jdplus.benchmarking.base.api.calendarization.CalendarizationResults;
 import jdplus.benchmarking.base.api.calendarization.CalendarizationSpec;
 import jdplus.toolkit.base.core.data.DataBlock;
 import jdplus.toolkit.base.core.data.DataBlockStorage;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
 import nbbrd.design.Development;
 import jdplus.toolkit.base.core.math.matrices.QuadraticForm;
 import jdplus.toolkit.base.core.ssf.dk.DkToolkit;
 import jdplus.toolkit.base.core.ssf.univariate.DefaultSmoothingResults;
+import jdplus.toolkit.base.core.ssf.univariate.ISsf;
 import jdplus.toolkit.base.core.ssf.univariate.SsfData;
 import jdplus.toolkit.base.api.timeseries.CalendarPeriodObs;
 import jdplus.toolkit.base.api.timeseries.CalendarTimeSeries;
@@ -39,6 +42,12 @@ import jdplus.toolkit.base.api.timeseries.TsPeriod;
 import jdplus.toolkit.base.api.timeseries.TsUnit;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import jdplus.toolkit.base.api.data.DoubleSeq;
 import nbbrd.service.ServiceProvider;
 
 /**
@@ -65,6 +74,105 @@ public class CalendarizationProcessor implements Calendarization.Processor {
                 .build();
     }
 
+    @Override
+    public CalendarizationPanelResults process(List<CalendarTimeSeries> data, CalendarizationSpec spec, ForkJoinPool pool) {
+        int m = data.size();
+        boolean agg = spec.getAggregationUnit() != TsUnit.UNDEFINED;
+        // the results are directly stored in the final (columnar) arrays
+        LocalDate[] starts = new LocalDate[m];
+        TsPeriod[] astarts = agg ? new TsPeriod[m] : null;
+        int[] offsets = new int[m + 1], aoffsets = agg ? new int[m + 1] : null;
+        int nmax = 0;
+        for (int i = 0; i < m; ++i) {
+            LocalDate[] span = span(data.get(i), spec);
+            starts[i] = span[0];
+            int n = (int) span[0].until(span[1], ChronoUnit.DAYS);
+            offsets[i + 1] = offsets[i] + n;
+            if (n > nmax) {
+                nmax = n;
+            }
+            if (agg) {
+                astarts[i] = TsPeriod.of(spec.getAggregationUnit(), span[0]);
+                int na = astarts[i].until(TsPeriod.of(spec.getAggregationUnit(), span[1].minusDays(1))) + 1;
+                aoffsets[i + 1] = aoffsets[i] + na;
+            }
+        }
+        boolean days = spec.getOutput() != CalendarizationSpec.Output.Aggregated;
+        boolean edays = days && spec.isStdev(), eagg = agg && spec.isStdev();
+        double[] sdays = days ? new double[offsets[m]] : null, esdays = edays ? new double[offsets[m]] : null;
+        double[] aggts = agg ? new double[aoffsets[m]] : null, eaggts = eagg ? new double[aoffsets[m]] : null;
+
+        // the series are processed by chunks. Each chunk reuses the same
+        // daily buffers, sized to the longest span.
+        int nchunks = Math.min(m, 4 * pool.getParallelism());
+        int len = nmax;
+        List<Runnable> tasks = new ArrayList<>();
+        for (int k = 0; k < nchunks; ++k) {
+            int i0 = (int) ((long) m * k / nchunks), i1 = (int) ((long) m * (k + 1) / nchunks);
+            tasks.add(() -> {
+                double[] x = new double[len], w = new double[len];
+                for (int i = i0; i < i1; ++i) {
+                    Impl impl = new Impl(data.get(i), spec, x, w);
+                    if (days) {
+                        System.arraycopy(impl.sdays, 0, sdays, offsets[i], impl.sdays.length);
+                    }
+                    if (edays) {
+                        System.arraycopy(impl.esdays, 0, esdays, offsets[i], impl.esdays.length);
+                    }
+                    if (agg) {
+                        impl.aggts.getValues().copyTo(aggts, aoffsets[i]);
+                    }
+                    if (eagg) {
+                        impl.eaggts.getValues().copyTo(eaggts, aoffsets[i]);
+                    }
+                }
+            });
+        }
+        run(pool, tasks);
+        return CalendarizationPanelResults.builder()
+                .starts(starts)
+                .dailyOffsets(offsets)
+                .dailyData(sdays)
+                .dailyStdev(esdays)
+                .aggregationStarts(astarts)
+                .aggregationOffsets(aoffsets)
+                .aggregatedData(aggts)
+                .stdevAggregatedData(eaggts)
+                .build();
+    }
+
+    private static void run(ForkJoinPool pool, List<Runnable> tasks) {
+        if (tasks.size() == 1) {
+            tasks.get(0).run();
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks.stream().map(ForkJoinTask::adapt).toList());
+            }
+        });
+    }
+
+    /**
+     * Actual start/end for computation
+     *
+     * @param data
+     * @param spec
+     * @return The first day (included) and the last day (excluded)
+     */
+    private static LocalDate[] span(final CalendarTimeSeries data, final CalendarizationSpec spec) {
+        LocalDate start = data.getPeriod(0).getStart();
+        LocalDate end = data.getPeriod(data.length() - 1).getEnd();
+        if (spec.getStart() != null && spec.getStart().isBefore(start)) {
+            start = spec.getStart();
+        }
+        if (spec.getEnd() != null && spec.getEnd().isAfter(end)) {
+            end = spec.getEnd();
+        }
+        return new LocalDate[]{start, end};
+    }
+
     private static class Impl {
 
         private final CalendarTimeSeries data;
@@ -73,12 +181,29 @@ public class CalendarizationProcessor implements Calendarization.Processor {
         private TsData aggts, eaggts;
         // local buffer
         private double[] x, w;
-        private int[] starts;
+        private int n;
+        private int[] starts, ends;
+        private double[] y;
         private LocalDate start, end;
 
         private Impl(final CalendarTimeSeries data, final CalendarizationSpec spec) {
+            this(data, spec, null, null);
+        }
+
+        /**
+         *
+         * @param data
+         * @param spec
+         * @param xbuffer Buffer for the daily data (may be null or larger than
+         * the actual span)
+         * @param wbuffer Buffer for the daily weights (may be null or larger
+         * than the actual span)
+         */
+        private Impl(final CalendarTimeSeries data, final CalendarizationSpec spec, double[] xbuffer, double[] wbuffer) {
             this.data = data;
             this.spec = spec;
+            this.x = xbuffer;
+            this.w = wbuffer;
             process();
         }
 
@@ -96,23 +221,21 @@ public class CalendarizationProcessor implements Calendarization.Processor {
         }
 
         private void prepare() {
-            // actual start/end for computation
-            start = data.getPeriod(0).getStart();
-            end = data.getPeriod(data.length() - 1).getEnd();
-            if (spec.getStart() != null && spec.getStart().isBefore(start)) {
-                start = spec.getStart();
-            }
-            if (spec.getEnd() != null && spec.getEnd().isAfter(end)) {
-                end = spec.getEnd();
-            }
+            LocalDate[] span = span(data, spec);
+            start = span[0];
+            end = span[1];
             // creates the data.
-            int n = (int) start.until(end, ChronoUnit.DAYS);
-            x = new double[n];
+            n = (int) start.until(end, ChronoUnit.DAYS);
+            if (x == null || x.length < n) {
+                x = new double[n];
+            }
+            double[] wbuffer = w;
+            w = null;
             if (spec.getDailyWeights() != null) {
                 if (spec.getDailyWeights().length == 7) {
-                    w = new double[n];
+                    w = wbuffer == null || wbuffer.length < n ? new double[n] : wbuffer;
                     int j = start.getDayOfWeek().getValue() - 1;
-                    for (int i = 0; i < w.length; ++i) {
+                    for (int i = 0; i < n; ++i) {
                         w[i] = spec.getDailyWeights()[j];
                         if (++j == 7) {
                             j = 0;
@@ -126,19 +249,41 @@ public class CalendarizationProcessor implements Calendarization.Processor {
                 x[i] = Double.NaN;
             }
             starts = new int[data.length() + 1];
+            ends = new int[data.length()];
+            y = new double[data.length()];
             int idx = 0;
             for (CalendarPeriodObs obs : data) {
-                starts[idx++] = (int) start.until(obs.getPeriod().start(), ChronoUnit.DAYS);
+                starts[idx] = (int) start.until(obs.getPeriod().start(), ChronoUnit.DAYS);
                 int q = (int) start.until(obs.getPeriod().end(), ChronoUnit.DAYS) - 1;
                 x[q] = obs.getValue();
+                ends[idx] = q;
+                y[idx++] = obs.getValue();
             }
             starts[idx] = (int) start.until(data.getPeriod(idx - 1).end(), ChronoUnit.DAYS);
         }
 
+        private DoubleSeq days() {
+            return x.length == n ? DoubleSeq.of(x) : DoubleSeq.of(x).range(0, n);
+        }
+
         // processing without forecast errors
+        /**
+         * Smoothed (unweighted) daily component, computed without the
+         * forecast errors. The collapsed form is used when possible
+         *
+         * @return
+         */
+        private double[] component() {
+            double[] c = CollapsedCalendarization.process(starts, ends, y, w, n);
+            if (c != null) {
+                return c;
+            }
+            DataBlockStorage rslt = DkToolkit.fastSmooth(SsfCalendarization.of(starts, w, 1e-4), new SsfData(days()));
+            return rslt.item(1).toArray();
+        }
+
         private boolean fastProcess() {
-            DataBlockStorage rslt = DkToolkit.fastSmooth(SsfCalendarization.of(starts, w, 1e-4), new SsfData(x));
-            double[] c = rslt.item(1).toArray();
+            double[] c = component();
 
             if (w != null) {
                 for (int i = 0; i < c.length; ++i) {
@@ -151,7 +296,7 @@ public class CalendarizationProcessor implements Calendarization.Processor {
 
         private boolean fastFullProcess() {
 
-            DefaultSmoothingResults srslts = DkToolkit.sqrtSmooth(SsfCalendarization.of(starts, w, 1e-4), new SsfData(x), true, true);
+            DefaultSmoothingResults srslts = DkToolkit.sqrtSmooth(SsfCalendarization.of(starts, w, 1e-4), new SsfData(days()), true, true);
             double[] c = srslts.getComponent(1).toArray();
             double[] e = srslts.getComponentVariance(1)
                     .map(q -> q <= 0 ? 0 : Math.sqrt(q))
@@ -177,79 +322,80 @@ public class CalendarizationProcessor implements Calendarization.Processor {
             for (int i = 0; i < astarts.length; ++i) {
                 astarts[i] = (int) Math.max(0, start.until(S.plus(i).start(), ChronoUnit.DAYS));
             }
+            // daily data are not retained when only the aggregated series are requested
+            boolean daily = spec.getOutput() != CalendarizationSpec.Output.Aggregated;
             if (spec.isStdev()) {
-                DefaultSmoothingResults srslts = DkToolkit.sqrtSmooth(SsfCalendarizationEx.of(starts, astarts, w, 1e-4), new SsfData(x), true, true);
-                double[] c = srslts.getComponent(2).toArray();
-                if (w != null) {
-                    for (int i = 0; i < c.length; ++i) {
-                        c[i] *= w[i];
-                    }
+                ISsf ssf = SsfCalendarizationEx.of(starts, astarts, w, 1e-4);
+                SsfData data = new SsfData(days());
+                int[] aends = new int[astarts.length];
+                for (int i = 1; i < astarts.length; ++i) {
+                    aends[i - 1] = astarts[i] - 1;
                 }
-                sdays = c;
-
-                if (esdays == null) {
+                aends[aends.length - 1] = n - 1;
+                double[] ax = new double[aends.length],
+                        eax = new double[aends.length];
+                if (daily) {
+                    DefaultSmoothingResults srslts = DkToolkit.sqrtSmooth(ssf, data, true, true);
+                    double[] c = srslts.getComponent(2).toArray();
                     double[] e = srslts.getComponentVariance(2)
                             .map(q -> q <= 0 ? 0 : Math.sqrt(q))
                             .toArray();
                     if (w != null) {
-                        for (int i = 0; i < e.length; ++i) {
+                        for (int i = 0; i < c.length; ++i) {
+                            c[i] *= w[i];
                             e[i] *= w[i];
                         }
                     }
+                    sdays = c;
                     esdays = e;
-                }
-                int[] aends = new int[astarts.length];
-                for (int i = 1; i < astarts.length; ++i) {
-                    aends[i - 1] = astarts[i] - 1;
-                }
-                aends[aends.length - 1] = sdays.length - 1;
-                DataBlock Z = DataBlock.of(new double[]{0, 1, 1});
-                Z.set(1, 1);
-                Z.set(2, 1);
-                double[] ax = new double[aends.length],
-                        eax = new double[aends.length];
-                for (int i = 0; i < aends.length; ++i) {
-                    int icur = aends[i];
-                    if (w != null) {
-                        Z.set(2, w[icur]);
+                    for (int i = 0; i < aends.length; ++i) {
+                        int icur = aends[i];
+                        aggregate(icur, srslts.a(icur), srslts.P(icur), ax, eax, i);
                     }
-                    ax[i] = srslts.a(icur).dot(Z);
-                    eax[i] = Math.sqrt(Math.max(0, QuadraticForm.apply(srslts.P(icur), Z)));
+                } else {
+                    // only the states at the end of the aggregation periods are needed
+                    int[] idx = new int[1];
+                    new SelectedStatesSmoother(ssf).process(data, aends,
+                            (pos, a, P) -> aggregate(pos, a, P, ax, eax, idx[0]++));
                 }
                 aggts = TsData.ofInternal(S, ax);
                 eaggts = TsData.ofInternal(S, eax);
                 return true;
             } else {
-                DataBlockStorage rslt = DkToolkit.fastSmooth(SsfCalendarizationEx.of(starts, astarts, w, 1e-4), new SsfData(x));
-                double[] c = rslt.item(2).toArray();
+                // the aggregated series are the sums of the daily data
+                double[] c = component();
                 if (w != null) {
-                    for (int i = 0; i < c.length; ++i) {
+                    for (int i = 0; i < n; ++i) {
                         c[i] *= w[i];
                     }
                 }
-                sdays = c;
-
-                int[] aends = new int[astarts.length];
-                for (int i = 1; i < astarts.length; ++i) {
-                    aends[i - 1] = astarts[i] - 1;
+                if (daily) {
+                    sdays = c;
                 }
-                aends[aends.length - 1] = sdays.length - 1;
-                DataBlock Z = DataBlock.of(new double[]{0, 1, 1});
-                Z.set(1, 1);
-                Z.set(2, 1);
-                double[] ax = new double[aends.length];
-                for (int i = 0; i < aends.length; ++i) {
-                    int icur = aends[i];
-                    if (w != null) {
-                        Z.set(2, w[icur]);
+                double[] ax = new double[astarts.length];
+                for (int i = 0; i < ax.length; ++i) {
+                    int jmax = i < ax.length - 1 ? astarts[i + 1] : n;
+                    double q = 0;
+                    for (int j = astarts[i]; j < jmax; ++j) {
+                        q += c[j];
                     }
-                    ax[i] = rslt.block(icur).dot(Z);
+                    ax[i] = q;
                 }
                 aggts = TsData.ofInternal(S, ax);
                 return true;
             }
         }
 
+        /**
+         * Aggregated value (and its stdev) at the end of an aggregation period:
+         * cumulative sum of the previous days + current day
+         */
+        private void aggregate(int pos, DataBlock a, FastMatrix P, double[] ax, double[] eax, int i) {
+            DataBlock Z = DataBlock.of(new double[]{0, 1, w == null ? 1 : w[pos]});
+            ax[i] = a.dot(Z);
+            eax[i] = Math.sqrt(Math.max(0, QuadraticForm.apply(P, Z)));
+        }
+
 //        private TsData makeTsData() {
 //            LocalDate start = data.get(0).getPeriod().getStart(), end = data.get(data.length() - 1).getPeriod().getEnd();
 //            if (spec.getStart().isBefore(start)) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.calendarization;
+
+import internal.math.BandedLinearSystem;
+
+/**
+ * Collapsed form of the calendarization model (see SsfCalendarization).
+ *
+ * The daily component x is a random walk with a diffuse initial condition and
+ * the observations are exact weighted sums of x on their periods. The smoothed
+ * component is the solution of min sum((x(t)-x(t-1))^2) subject to the
+ * observation constraints. Its first order conditions give, with
+ * g(t) = lambda(k)*w(t) if t is in the period k (0 otherwise) and
+ * G(t) = g(0)+...+g(t): x(t+1) = x(t) - G(t), G(-1) = G(n-1) = 0.
+ *
+ * Inside a period [s, e] (and the unobserved days that follow it), x and G
+ * are linear functions of x(s), G(s-1) and lambda(k), whose coefficients are
+ * obtained by integrating the weights. The unknowns are thus reduced to three
+ * values by observation period, linked by a banded system. The daily values
+ * are expanded from the solution in a single pass.
+ *
+ * Time and memory: O(number of observations) for the solution, O(n) for the
+ * expansion, instead of a Kalman filter/smoother on n days.
+ *
+ * @author Jean Palate
+ */
+final class CollapsedCalendarization {
+
+    private CollapsedCalendarization() {
+    }
+
+    /**
+     *
+     * @param starts The first days of the observation periods
+     * @param ends The last days (included) of the observation periods
+     * @param y The observations (NaN for missing values)
+     * @param w The daily weights (null for unit weights). The array may be
+     * longer than n
+     * @param n The number of days
+     * @return The smoothed (unweighted) daily component or null if the
+     * collapsed form can't be used (no observation or degenerated system). The
+     * caller should then use the state space form.
+     */
+    static double[] process(int[] starts, int[] ends, double[] y, double[] w, int n) {
+        int m = 0;
+        for (int k = 0; k < y.length; ++k) {
+            if (Double.isFinite(y[k])) {
+                ++m;
+            }
+        }
+        if (m == 0) {
+            return null;
+        }
+        // constrained periods
+        int[] s = new int[m], e = new int[m];
+        double[] z = new double[m];
+        int h = 1;
+        for (int k = 0, j = 0; k < y.length; ++k) {
+            if (Double.isFinite(y[k])) {
+                if (starts[k] < 0 || ends[k] < starts[k] || ends[k] >= n) {
+                    return null;
+                }
+                s[j] = starts[k];
+                e[j] = ends[k];
+                z[j++] = y[k];
+                h = Math.max(h, ends[k] - starts[k] + 1);
+            }
+        }
+        for (int j = 1; j < m; ++j) {
+            if (s[j] <= e[j - 1]) {
+                return null;
+            }
+        }
+        // unknowns (by period): x(s), G(s-1)*h, lambda*h*h
+        // equations: G(-1)=0, then, by period, the constraint and the
+        // transition to the next period (2 equations) or G(n-1)=0
+        // (each equation is scaled to be O(1))
+        BandedLinearSystem system = new BandedLinearSystem(3 * m, 2, 2);
+        double[] b = new double[3 * m];
+        system.set(0, 1, 1);
+        for (int j = 0; j < m; ++j) {
+            int c = 3 * j;
+            // W = sum(w), A = sum(w(t)*(t-s)), B = sum(w(t)*cw(t-1)),
+            // D = sum(cw) where cw is the cumulated weight from s
+            double W = 0, A = 0, B = 0, D = 0;
+            for (int t = s[j]; t <= e[j]; ++t) {
+                double wt = w == null ? 1 : w[t];
+                A += wt * (t - s[j]);
+                B += wt * D;
+                W += wt;
+                D += W;
+            }
+            if (W == 0) {
+                return null;
+            }
+            system.set(c + 1, c, W / h);
+            system.set(c + 1, c + 1, -A / (h * h));
+            system.set(c + 1, c + 2, -B / (h * h * h));
+            b[c + 1] = z[j] / h;
+            if (j < m - 1) {
+                int L = s[j + 1] - s[j];
+                D += W * (s[j + 1] - e[j] - 1);
+                // x(s') = x(s) - L*G(s-1) - D*lambda
+                system.set(c + 2, c, -1);
+                system.set(c + 2, c + 1, (double) L / h);
+                system.set(c + 2, c + 2, D / (h * h));
+                system.set(c + 2, c + 3, 1);
+                // G(s'-1) = G(s-1) + W*lambda
+                system.set(c + 3, c + 1, -1);
+                system.set(c + 3, c + 2, -W / h);
+                system.set(c + 3, c + 4, 1);
+            } else {
+                system.set(c + 2, c + 1, 1);
+                system.set(c + 2, c + 2, W / h);
+            }
+        }
+        if (!system.decompose()) {
+            return null;
+        }
+        system.solve(b);
+        // expansion
+        double[] x = new double[n];
+        double xcur = b[0], g = 0;
+        for (int t = 0; t < s[0]; ++t) {
+            x[t] = xcur;
+        }
+        for (int j = 0; j < m; ++j) {
+            int c = 3 * j;
+            xcur = b[c];
+            g = b[c + 1] / h;
+            double lambda = b[c + 2] / (h * h);
+            int tmax = j < m - 1 ? s[j + 1] : n;
+            for (int t = s[j]; t < tmax; ++t) {
+                x[t] = xcur;
+                if (t <= e[j]) {
+                    g += lambda * (w == null ? 1 : w[t]);
+                }
+                xcur -= g;
+            }
+        }
+        return x;
+    }
+}
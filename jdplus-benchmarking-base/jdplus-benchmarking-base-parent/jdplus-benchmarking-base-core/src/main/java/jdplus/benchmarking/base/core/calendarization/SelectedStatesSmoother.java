@@ -0,0 +1,439 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * http://ec.europa.eu/idabc/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.benchmarking.base.core.calendarization;
+
+import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import jdplus.toolkit.base.core.ssf.ISsfDynamics;
+import jdplus.toolkit.base.core.ssf.ISsfInitialization;
+import jdplus.toolkit.base.core.ssf.ISsfLoading;
+import jdplus.toolkit.base.core.ssf.univariate.ISsf;
+import jdplus.toolkit.base.core.ssf.univariate.ISsfData;
+import jdplus.toolkit.base.core.ssf.univariate.ISsfError;
+
+/**
+ * Exact diffuse state smoother that only computes the smoothed states and their
+ * variances at some given positions. It is restricted to the calendarization
+ * models (SsfCalendarizationEx: univariate, 3 states, one diffuse element),
+ * on which it has been validated against the complete smoothing. Other models
+ * should use the smoothers of the toolkit (DkToolkit).
+ *
+ * The filter keeps the innovations and the gains (vectors) of every position,
+ * but the predicted states and their covariances only at the selected
+ * positions. The backward recursion uses the usual (r0, r1, N0, N1, N2)
+ * cumulants of the exact initial smoothing (Durbin and Koopman). The memory
+ * is thus O(n*dim + k*dim^2), where k is the number of selected positions,
+ * instead of O(n*dim^2) for the complete smoothing.
+ *
+ * The system matrices are retrieved through the toolkit interfaces and handled
+ * as small dense arrays. The work buffers are allocated once: the recursions
+ * don't allocate anything by step.
+ *
+ * @author Jean Palate
+ */
+class SelectedStatesSmoother {
+
+    /**
+     * Receives the smoothed states, in chronological order
+     */
+    @FunctionalInterface
+    static interface Sink {
+
+        /**
+         *
+         * @param pos The position of the state
+         * @param a The smoothed state
+         * @param P The variance of the smoothed state
+         */
+        void save(int pos, DataBlock a, FastMatrix P);
+    }
+
+    private static final double ZERO = 1e-9;
+
+    private final ISsf ssf;
+    private final ISsfDynamics dynamics;
+    private final ISsfLoading loading;
+    private final ISsfError error;
+    private final int dim;
+
+    // system matrices at the current position (column-major)
+    private final double[] T, V, z;
+    private final DataBlock zcol;
+    private final FastMatrix Tm, Vm;
+    // work buffers
+    private final double[] q, W;
+
+    SelectedStatesSmoother(ISsf ssf) {
+        this.ssf = ssf;
+        dynamics = ssf.dynamics();
+        loading = ssf.loading();
+        error = ssf.measurementError();
+        dim = ssf.getStateDim();
+        T = new double[dim * dim];
+        V = new double[dim * dim];
+        z = new double[dim];
+        zcol = DataBlock.make(dim);
+        Tm = FastMatrix.square(dim);
+        Vm = FastMatrix.square(dim);
+        q = new double[dim];
+        W = new double[dim * dim];
+    }
+
+    /**
+     *
+     * @param data The observations
+     * @param positions The selected positions, in increasing order
+     * @param sink Receives the smoothed states at the selected positions
+     */
+    void process(ISsfData data, int[] positions, Sink sink) {
+        int n = data.length(), k = positions.length;
+        ISsfInitialization initialization = ssf.initialization();
+        double[] a = new double[dim], P = new double[dim * dim], Pi = new double[dim * dim];
+        DataBlock a0 = DataBlock.make(dim);
+        initialization.a0(a0);
+        a0.copyTo(a, 0);
+        FastMatrix P0 = FastMatrix.square(dim);
+        initialization.Pf0(P0);
+        copy(P0, P);
+        boolean diffuse = initialization.isDiffuse();
+        if (diffuse) {
+            P0.set(0);
+            initialization.Pi0(P0);
+            copy(P0, Pi);
+        }
+
+        // forward filtering
+        double[] v = new double[n], f = new double[n], fi = new double[n];
+        double[] M = new double[n * dim], Mi = diffuse ? new double[n * dim] : null;
+        // 0: no update, 1: regular update, 2: diffuse update
+        byte[] kind = new byte[n];
+        double[][] sa = new double[k][], sP = new double[k][], sPi = new double[k][];
+        int nd = 0;
+        double[] m = new double[dim], mi = new double[dim];
+        for (int pos = 0, s = 0; pos < n; ++pos) {
+            if (s < k && positions[s] == pos) {
+                sa[s] = a.clone();
+                sP[s] = P.clone();
+                sPi[s] = diffuse ? Pi.clone() : null;
+                ++s;
+            }
+            loadZ(pos);
+            product(P, z, m);
+            f[pos] = dot(z, m) + (error == null ? 0 : error.at(pos));
+            System.arraycopy(m, 0, M, pos * dim, dim);
+            if (diffuse) {
+                product(Pi, z, mi);
+                fi[pos] = dot(z, mi);
+                System.arraycopy(mi, 0, Mi, pos * dim, dim);
+            }
+            if (!data.isMissing(pos)) {
+                double e = data.get(pos) - dot(z, a);
+                v[pos] = e;
+                if (diffuse && fi[pos] > ZERO) {
+                    kind[pos] = 2;
+                    double ff = f[pos], ffi = fi[pos];
+                    for (int i = 0; i < dim; ++i) {
+                        a[i] += mi[i] * e / ffi;
+                        for (int j = 0; j < dim; ++j) {
+                            P[i + j * dim] += -(mi[i] * m[j] + m[i] * mi[j]) / ffi + ff * mi[i] * mi[j] / (ffi * ffi);
+                            Pi[i + j * dim] -= mi[i] * mi[j] / ffi;
+                        }
+                    }
+                } else if (f[pos] > ZERO) {
+                    kind[pos] = 1;
+                    double ff = f[pos];
+                    for (int i = 0; i < dim; ++i) {
+                        a[i] += m[i] * e / ff;
+                        for (int j = 0; j < dim; ++j) {
+                            P[i + j * dim] -= m[i] * m[j] / ff;
+                        }
+                    }
+                }
+            }
+            // prediction
+            loadT(pos);
+            product(T, a, q);
+            System.arraycopy(q, 0, a, 0, dim);
+            tvt(P);
+            loadV(pos);
+            for (int i = 0; i < P.length; ++i) {
+                P[i] += V[i];
+            }
+            if (diffuse) {
+                tvt(Pi);
+                nd = pos + 1;
+                double norm = 0;
+                for (double cur : Pi) {
+                    norm += cur * cur;
+                }
+                if (Math.sqrt(norm) < ZERO) {
+                    diffuse = false;
+                }
+            }
+        }
+
+        // backward smoothing
+        double[] r = new double[dim], r1 = new double[dim], u1 = new double[dim];
+        double[] N = new double[dim * dim], N1 = new double[dim * dim], N2 = new double[dim * dim];
+        double[] L = new double[dim * dim], L1 = new double[dim * dim], c = new double[dim], tc = new double[dim];
+        double[] B1 = new double[dim * dim], B2 = new double[dim * dim], B3 = new double[dim * dim];
+        for (int pos = n - 1, s = k - 1; pos >= 0 && s >= 0; --pos) {
+            loadT(pos);
+            loadZ(pos);
+            boolean dpos = pos < nd;
+            switch (kind[pos]) {
+                case 1 -> {
+                    // L = T - T*C*z', C = M/f
+                    double ff = f[pos];
+                    for (int i = 0; i < dim; ++i) {
+                        c[i] = M[pos * dim + i] / ff;
+                    }
+                    lmatrix(c, tc, L);
+                    double u = v[pos] / ff - dot(tc, r);
+                    ltx(T, r, r);
+                    for (int i = 0; i < dim; ++i) {
+                        r[i] += u * z[i];
+                    }
+                    ltnl(L, N, L, N);
+                    addzz(N, 1 / ff);
+                    if (dpos) {
+                        ltx(L, r1, r1);
+                        ltnl(L, N1, L, N1);
+                        ltnl(L, N2, L, N2);
+                    }
+                }
+                case 2 -> {
+                    // L0 = T - T*Ci*z', L1 = -T*C*z', Ci = Mi/fi, C = (M - f*Ci)/fi
+                    double ff = f[pos], ffi = fi[pos];
+                    for (int i = 0; i < dim; ++i) {
+                        double ci = Mi[pos * dim + i] / ffi;
+                        c[i] = (M[pos * dim + i] - ff * ci) / ffi;
+                        tc[i] = ci;
+                    }
+                    lmatrix(tc, tc, L);
+                    lmatrix(c, c, L1);
+                    for (int i = 0; i < L1.length; ++i) {
+                        L1[i] = L1[i] - T[i];
+                    }
+                    // r1(t-1) = z*v/fi + L0'r1 + L1'r0, r0(t-1) = L0'r0
+                    ltx(L1, r, u1);
+                    ltx(L, r1, r1);
+                    for (int i = 0; i < dim; ++i) {
+                        r1[i] += u1[i] + z[i] * v[pos] / ffi;
+                    }
+                    ltx(L, r, r);
+                    // the cross products use the previous N0, N1
+                    ltnl(L1, N, L, B1);
+                    ltnl(L, N1, L1, B2);
+                    ltnl(L1, N, L1, B3);
+                    ltnl(L, N, L, N);
+                    ltnl(L, N1, L, N1);
+                    ltnl(L, N2, L, N2);
+                    for (int i = 0; i < dim; ++i) {
+                        for (int j = 0; j < dim; ++j) {
+                            int ij = i + j * dim, ji = j + i * dim;
+                            N1[ij] += B1[ij] + B1[ji];
+                            N2[ij] += B2[ij] + B2[ji] + B3[ij];
+                        }
+                    }
+                    addzz(N1, 1 / ffi);
+                    addzz(N2, -ff / (ffi * ffi));
+                }
+                default -> {
+                    ltx(T, r, r);
+                    ltnl(T, N, T, N);
+                    if (dpos) {
+                        ltx(T, r1, r1);
+                        ltnl(T, N1, T, N1);
+                        ltnl(T, N2, T, N2);
+                    }
+                }
+            }
+            if (positions[s] == pos) {
+                // a + P*r0 + Pi*r1, P - P*N0*P - Pi*N1*P - P*N1*Pi - Pi*N2*Pi
+                double[] as = sa[s], ps = sP[s], pis = sPi[s];
+                product(ps, r, u1);
+                ltnl(ps, N, ps, B1);
+                if (pis != null) {
+                    product(pis, r1, c);
+                    ltnl(pis, N1, ps, B2);
+                    ltnl(pis, N2, pis, B3);
+                    for (int i = 0; i < dim; ++i) {
+                        u1[i] += c[i];
+                        for (int j = 0; j < dim; ++j) {
+                            int ij = i + j * dim, ji = j + i * dim;
+                            B1[ij] += B2[ij] + B2[ji] + B3[ij];
+                        }
+                    }
+                }
+                for (int i = 0; i < dim; ++i) {
+                    as[i] += u1[i];
+                }
+                for (int i = 0; i < ps.length; ++i) {
+                    ps[i] -= B1[i];
+                }
+                --s;
+            }
+        }
+
+        DataBlock as = DataBlock.make(dim);
+        FastMatrix ps = FastMatrix.square(dim);
+        for (int s = 0; s < k; ++s) {
+            as.copyFrom(sa[s], 0);
+            for (int i = 0; i < dim; ++i) {
+                for (int j = 0; j < dim; ++j) {
+                    ps.set(i, j, sP[s][i + j * dim]);
+                }
+            }
+            sink.save(positions[s], as, ps);
+        }
+    }
+
+    private void loadZ(int pos) {
+        zcol.set(0);
+        loading.Z(pos, zcol);
+        zcol.copyTo(z, 0);
+    }
+
+    private void loadT(int pos) {
+        Tm.set(0);
+        dynamics.T(pos, Tm);
+        copy(Tm, T);
+    }
+
+    private void loadV(int pos) {
+        Vm.set(0);
+        dynamics.V(pos, Vm);
+        copy(Vm, V);
+    }
+
+    /**
+     * L = T - (T*c)*z'
+     *
+     * @param c
+     * @param tc Receives T*c (may be c)
+     * @param L
+     */
+    private void lmatrix(double[] c, double[] tc, double[] L) {
+        product(T, c, q);
+        System.arraycopy(q, 0, tc, 0, dim);
+        for (int j = 0; j < dim; ++j) {
+            for (int i = 0; i < dim; ++i) {
+                L[i + j * dim] = T[i + j * dim] - q[i] * z[j];
+            }
+        }
+    }
+
+    private void addzz(double[] N, double c) {
+        for (int j = 0; j < dim; ++j) {
+            for (int i = 0; i < dim; ++i) {
+                N[i + j * dim] += c * z[i] * z[j];
+            }
+        }
+    }
+
+    /**
+     * X = T*X*T' (in place)
+     */
+    private void tvt(double[] X) {
+        for (int i = 0; i < dim; ++i) {
+            for (int j = 0; j < dim; ++j) {
+                double s = 0;
+                for (int l = 0; l < dim; ++l) {
+                    s += T[i + l * dim] * X[l + j * dim];
+                }
+                W[i + j * dim] = s;
+            }
+        }
+        for (int i = 0; i < dim; ++i) {
+            for (int j = 0; j < dim; ++j) {
+                double s = 0;
+                for (int l = 0; l < dim; ++l) {
+                    s += W[i + l * dim] * T[j + l * dim];
+                }
+                X[i + j * dim] = s;
+            }
+        }
+    }
+
+    /**
+     * y = A'x (y may be x)
+     */
+    private void ltx(double[] A, double[] x, double[] y) {
+        for (int j = 0; j < dim; ++j) {
+            double s = 0;
+            for (int i = 0; i < dim; ++i) {
+                s += A[i + j * dim] * x[i];
+            }
+            q[j] = s;
+        }
+        System.arraycopy(q, 0, y, 0, dim);
+    }
+
+    /**
+     * Y = A'*X*B (Y may be X, but not A)
+     */
+    private void ltnl(double[] A, double[] X, double[] B, double[] Y) {
+        for (int i = 0; i < dim; ++i) {
+            for (int j = 0; j < dim; ++j) {
+                double s = 0;
+                for (int l = 0; l < dim; ++l) {
+                    s += X[i + l * dim] * B[l + j * dim];
+                }
+                W[i + j * dim] = s;
+            }
+        }
+        for (int i = 0; i < dim; ++i) {
+            for (int j = 0; j < dim; ++j) {
+                double s = 0;
+                for (int l = 0; l < dim; ++l) {
+                    s += A[l + i * dim] * W[l + j * dim];
+                }
+                Y[i + j * dim] = s;
+            }
+        }
+    }
+
+    /**
+     * y = A*x
+     */
+    private void product(double[] A, double[] x, double[] y) {
+        for (int i = 0; i < dim; ++i) {
+            double s = 0;
+            for (int j = 0; j < dim; ++j) {
+                s += A[i + j * dim] * x[j];
+            }
+            y[i] = s;
+        }
+    }
+
+    private static double dot(double[] x, double[] y) {
+        double s = 0;
+        for (int i = 0; i < x.length; ++i) {
+            s += x[i] * y[i];
+        }
+        return s;
+    }
+
+    private void copy(FastMatrix A, double[] a) {
+        for (int j = 0; j < dim; ++j) {
+            for (int i = 0; i < dim; ++i) {
+                a[i + j * dim] = A.get(i, j);
+            }
+        }
+    }
+}
@@ -23,7 +23,6 @@ import jdplus.toolkit.base.core.ssf.ISsfInitialization;
 import jdplus.toolkit.base.core.ssf.ISsfLoading;
 import jdplus.toolkit.base.core.ssf.univariate.ISsf;
 import jdplus.toolkit.base.core.ssf.univariate.Ssf;
-import java.util.HashSet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
 
@@ -65,22 +64,14 @@ public class SsfCalendarization {
 
         Data(final int[] starts, final double[] weights, final double var) {
             this.weights = weights;
-            for (int i = 0; i < starts.length; ++i) {
-                int cur = starts[i];
-                this.starts.add(cur);
-                if (cur > 0) {
-                    this.ends.add(cur - 1);
-                }
-            }
+            this.types = types(starts);
             this.v=var;
             this.e=Math.sqrt(var);
         }
 
         private final double v, e;
         private final double[] weights;
-        private final HashSet<Integer> starts = new HashSet<>();
-        private final HashSet<Integer> ends = new HashSet<>();
-        private int curpos = -1, curtype = -1;
+        private final byte[] types;
 
         /**
          * Gets the type of the model (its vectors/matrices) at a given
@@ -92,18 +83,7 @@ public class SsfCalendarization {
          * DEF otherwise.
          */
         int posType(int pos) {
-            if (curpos == pos) {
-                return curtype;
-            }
-            curpos = pos;
-            if (starts.contains(pos)) {
-                curtype = FIRST;
-            } else if (ends.contains(pos)) {
-                curtype = LAST;
-            } else {
-                curtype = DEF;
-            }
-            return curtype;
+            return type(types, pos);
         }
 
         private double weight(int pos) {
@@ -122,6 +102,41 @@ public class SsfCalendarization {
 
     final int LAST = 1, FIRST = 2, DEF = 0;
 
+    /**
+     * Computes the types of the positions defined by the starts of the
+     * "cumulation periods". The model is immutable (and thus thread-safe)
+     * and the type of a position is retrieved without any computation.
+     *
+     * @param starts The starting positions of the cumulation periods
+     * @return The types of the positions (FIRST, LAST or DEF), up to the last
+     * start. The positions after it are DEF
+     */
+    byte[] types(final int[] starts) {
+        int n = 0;
+        for (int i = 0; i < starts.length; ++i) {
+            n = Math.max(n, starts[i] + 1);
+        }
+        byte[] types = new byte[n];
+        for (int i = 0; i < starts.length; ++i) {
+            int cur = starts[i];
+            if (cur > 0) {
+                types[cur - 1] = LAST;
+            }
+        }
+        // FIRST has priority on LAST (periods of 1 observation)
+        for (int i = 0; i < starts.length; ++i) {
+            int cur = starts[i];
+            if (cur >= 0) {
+                types[cur] = FIRST;
+            }
+        }
+        return types;
+    }
+
+    int type(final byte[] types, int pos) {
+        return pos >= 0 && pos < types.length ? types[pos] : DEF;
+    }
+
     static class Initialization implements ISsfInitialization {
 
         Initialization() {
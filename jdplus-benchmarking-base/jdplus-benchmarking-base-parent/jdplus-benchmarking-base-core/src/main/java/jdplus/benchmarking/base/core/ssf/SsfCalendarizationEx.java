@@ -23,7 +23,6 @@ import jdplus.toolkit.base.core.ssf.ISsfInitialization;
 import jdplus.toolkit.base.core.ssf.ISsfLoading;
 import jdplus.toolkit.base.core.ssf.univariate.ISsf;
 import jdplus.toolkit.base.core.ssf.univariate.Ssf;
-import java.util.HashSet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
 
@@ -61,64 +60,22 @@ public class SsfCalendarizationEx {
 
         final double v, e;
         final double[] weights;
-        final HashSet<Integer> starts = new HashSet<>(), ends = new HashSet<>();
-        final HashSet<Integer> astarts = new HashSet<>(), aends = new HashSet<>();
-        int curpos = -1, curtype = -1, apos = -1, aggtype = -1;
+        final byte[] types, atypes;
 
         Data(int[] starts, int[] astarts, double[] weights, final double var) {
             this.weights = weights;
-            for (int i = 0; i < starts.length; ++i) {
-                int cur = starts[i];
-                this.starts.add(cur);
-                if (cur > 0) {
-                    this.ends.add(cur - 1);
-                }
-            }
-            for (int i = 0; i < astarts.length; ++i) {
-                int cur = astarts[i];
-                this.astarts.add(cur);
-                if (cur > 0) {
-                    this.aends.add(cur - 1);
-                }
-            }
+            this.types = SsfCalendarization.types(starts);
+            this.atypes = SsfCalendarization.types(astarts);
             this.v = var;
             this.e = Math.sqrt(var);
         }
 
         private int posType(int pos) {
-            if (curpos == pos) {
-                return curtype;
-            }
-            curpos = pos;
-            // 1 = last
-            // 2 = first
-            // 0 others
-            if (starts.contains(pos)) {
-                curtype = FIRST;
-            } else if (ends.contains(pos)) {
-                curtype = LAST;
-            } else {
-                curtype = DEF;
-            }
-            return curtype;
+            return SsfCalendarization.type(types, pos);
         }
 
         private int aggType(int pos) {
-            if (apos == pos) {
-                return aggtype;
-            }
-            apos = pos;
-            // 1 = last
-            // 2 = first
-            // 0 others
-            if (astarts.contains(pos)) {
-                aggtype = FIRST;
-            } else if (aends.contains(pos)) {
-                aggtype = LAST;
-            } else {
-                aggtype = DEF;
-            }
-            return aggtype;
+            return SsfCalendarization.type(atypes, pos);
         }
 
         double weight(int pos) {
@@ -15,6 +15,7 @@
  */
 package jdplus.benchmarking.base.core.univariate;
 
+import internal.ssf.MultiFastDkSmoother;
 import jdplus.benchmarking.base.api.univariate.RawDisaggregationSpec;
 import jdplus.benchmarking.base.api.univariate.ResidualsModel;
 //import jdplus.toolkit.base.api.data.AggregationType;
@@ -32,7 +33,6 @@ import jdplus.toolkit.base.core.math.functions.levmar.LevenbergMarquardtMinimize
 import jdplus.toolkit.base.core.math.functions.ssq.SsqFunctionMinimizer;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
 import jdplus.toolkit.base.core.math.matrices.QuadraticForm;
-import jdplus.toolkit.base.core.ssf.DataBlockResults;
 import jdplus.toolkit.base.core.ssf.ISsfLoading;
 import jdplus.toolkit.base.core.ssf.StateComponent;
 import jdplus.toolkit.base.core.ssf.akf.AkfToolkit;
@@ -44,7 +44,6 @@ import jdplus.toolkit.base.core.ssf.benchmarking.SsfCumulator;
 import jdplus.toolkit.base.core.ssf.dk.DefaultDiffuseFilteringResults;
 import jdplus.toolkit.base.core.ssf.dk.DiffuseSmoother;
 import jdplus.toolkit.base.core.ssf.dk.DkToolkit;
-import jdplus.toolkit.base.core.ssf.dk.FastDkSmoother;
 import jdplus.toolkit.base.core.ssf.dk.SsfFunction;
 import jdplus.toolkit.base.core.ssf.dk.SsfFunctionPoint;
 import jdplus.toolkit.base.core.ssf.sts.Noise;
@@ -195,15 +194,10 @@ public class RawDisaggregationProcessor {
             // Z = L(y-Xb) + Xb  
             // V = V(L(y-Xb)) + (LX-X) V(B) (LX-X)'
             FastMatrix Vb = dll.unscaledCovariance();
+            // all the regression variables are smoothed in one sweep
             FastMatrix LhX = FastMatrix.make(hX.getRowsCount(), hX.getColumnsCount());
-            DataBlockIterator lxcols = LhX.columnsIterator();
-            xccols.reset();
-            while (xccols.hasNext()) {
-                FastDkSmoother fsmoother = new FastDkSmoother(cssf, frslts);
-                fsmoother.smooth(xccols.next());
-                DataBlockResults ss = fsmoother.smoothedStates();
-                lxcols.next().set(i -> nloading.ZX(i, ss.datablock(i).drop(1, 0)));
-            }
+            new MultiFastDkSmoother(cssf, frslts).smooth(hXC,
+                    (pos, states) -> LhX.row(pos).set(j -> nloading.ZX(pos, states.column(j).drop(1, 0))));
 
             LhX.sub(hX);
             for (int i = 0; i < z.length; ++i) {
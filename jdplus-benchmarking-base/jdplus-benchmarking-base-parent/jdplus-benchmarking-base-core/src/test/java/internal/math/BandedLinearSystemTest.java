@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package internal.math;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class BandedLinearSystemTest {
+
+    public BandedLinearSystemTest() {
+    }
+
+    private static final int KL = 3, KU = 2;
+
+    private static BandedLinearSystem system(double[][] a, int n) {
+        BandedLinearSystem s = new BandedLinearSystem(n, KL, KU);
+        for (int i = 0; i < n; ++i) {
+            for (int j = Math.max(0, i - KL); j <= Math.min(n - 1, i + KU); ++j) {
+                s.set(i, j, a[i][j]);
+            }
+        }
+        return s;
+    }
+
+    @Test
+    public void testResume() {
+        int n0 = 40, n = 60, k0 = 30;
+        Random rnd = new Random(0);
+        // the matrices differ from row k0 + KL (the diagonal is weak, so
+        // that rows are interchanged)
+        double[][] a0 = new double[n0][n0], a = new double[n][n];
+        for (int i = 0; i < n; ++i) {
+            for (int j = Math.max(0, i - KL); j <= Math.min(n - 1, i + KU); ++j) {
+                a[i][j] = rnd.nextGaussian();
+                if (i < n0 && j < n0) {
+                    a0[i][j] = i < k0 + KL ? a[i][j] : rnd.nextGaussian();
+                }
+            }
+        }
+        BandedLinearSystem s0 = system(a0, n0);
+        assertTrue(s0.decompose(k0));
+        BandedLinearSystem s = system(a, n), sfull = system(a, n);
+        assertTrue(s.decompose(s0, 50));
+        assertTrue(sfull.decompose());
+        double[] b = new double[n];
+        for (int i = 0; i < n; ++i) {
+            b[i] = rnd.nextGaussian();
+        }
+        double[] x = b.clone(), xfull = b.clone();
+        s.solve(x);
+        sfull.solve(xfull);
+        assertArrayEquals(xfull, x, 1e-12);
+        // A*x = b
+        for (int i = 0; i < n; ++i) {
+            double q = 0;
+            for (int j = 0; j < n; ++j) {
+                q += a[i][j] * x[j];
+            }
+            assertEquals(b[i], q, 1e-9);
+        }
+    }
+}
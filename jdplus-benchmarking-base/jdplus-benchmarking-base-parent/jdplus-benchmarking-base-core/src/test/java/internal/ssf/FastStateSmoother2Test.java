@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package internal.ssf;
+
+import jdplus.benchmarking.base.core.benchmarking.multivariate.Constraint;
+import jdplus.benchmarking.base.core.ssf.MultivariateSsfCholette;
+import jdplus.toolkit.base.core.data.DataBlockStorage;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import jdplus.toolkit.base.core.ssf.multivariate.IMultivariateSsf;
+import jdplus.toolkit.base.core.ssf.multivariate.M2uAdapter;
+import jdplus.toolkit.base.core.ssf.multivariate.SsfMatrix;
+import jdplus.toolkit.base.core.ssf.univariate.ISsf;
+import jdplus.toolkit.base.core.ssf.univariate.ISsfData;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class FastStateSmoother2Test {
+
+    public FastStateSmoother2Test() {
+    }
+
+    @Test
+    public void testSinkAndSelection() {
+        // two series (quarterly to annual) and their sum
+        int nvars = 2, c = 4, n = 24;
+        double[][] w = new double[nvars][n];
+        for (int i = 0; i < n; ++i) {
+            w[0][i] = 10 + i;
+            w[1][i] = 20 + Math.cos(i);
+        }
+        IMultivariateSsf mssf = MultivariateSsfCholette.builder(nvars)
+                .conversion(c)
+                .rho(.8)
+                .weights(w)
+                .constraints(new Constraint[]{new Constraint(new int[]{0, 1}, new double[]{1, 1})})
+                .build();
+        FastMatrix M = FastMatrix.make(n, nvars + 1);
+        M.set(Double.NaN);
+        for (int i = c - 1; i < n; i += c) {
+            M.set(i, 0, Math.sin(i));
+            M.set(i, 1, 1 - Math.sin(i));
+        }
+        for (int i = 0; i < n; ++i) {
+            M.set(i, nvars, .5 * Math.cos(i));
+        }
+        ISsf ssf = M2uAdapter.of(mssf);
+        ISsfData data = M2uAdapter.of(new SsfMatrix(M));
+        int len = data.length(), dim = ssf.getStateDim();
+
+        FastStateSmoother2 smoother = new FastStateSmoother2(ssf);
+        DataBlockStorage all = smoother.process(data);
+
+        double[][] states = new double[dim][len];
+        int[] next = new int[1];
+        smoother.process(data, (pos, a) -> {
+            assertEquals(next[0]++, pos);
+            for (int j = 0; j < dim; ++j) {
+                states[j][pos] = a.get(j);
+            }
+        });
+        assertEquals(len, next[0]);
+        for (int j = 0; j < dim; ++j) {
+            assertArrayEquals(all.item(j).toArray(), states[j], 1e-9);
+        }
+
+        int[] selection = {3, 1};
+        DataBlockStorage sel = smoother.process(data, selection);
+        for (int i = 0; i < selection.length; ++i) {
+            assertArrayEquals(all.item(selection[i]).toArray(), sel.item(i).toArray(), 1e-9);
+        }
+    }
+}
@@ -20,15 +20,23 @@ import jdplus.benchmarking.base.api.benchmarking.multivariate.ContemporaneousCon
 import jdplus.benchmarking.base.api.benchmarking.multivariate.MultivariateCholette;
 import jdplus.benchmarking.base.api.benchmarking.multivariate.MultivariateCholetteSpec;
 import jdplus.benchmarking.base.api.benchmarking.multivariate.TemporalConstraint;
+import jdplus.benchmarking.base.api.benchmarking.univariate.Cholette;
+import jdplus.benchmarking.base.api.benchmarking.univariate.CholetteSpec;
+import jdplus.toolkit.base.api.data.AggregationType;
 import jdplus.toolkit.base.api.timeseries.TsPeriod;
+import jdplus.toolkit.base.api.timeseries.TsUnit;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import static jdplus.toolkit.base.core.timeseries.simplets.TsDataToolkit.distance;
 import ec.benchmarking.simplets.TsMultiBenchmarking;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -241,6 +249,290 @@ public class MultivariateCholetteTest {
         assertTrue(distance(s2_, TsData.add(rslt2.get("s21"), rslt2.get("s22"))) < 1e-9);
     }
     
+    @Test
+    public void testIndependentBlocks() {
+        Map<String, TsData> input = new HashMap<>();
+        for (int i = 0; i < 8; ++i) {
+            input.put("s" + i, randomM(120, i));
+        }
+        input.put("a", TsData.add(randomM(120, 10), randomM(120, 11)));
+        input.put("b", TsData.add(TsData.add(randomM(120, 12), randomM(120, 13)), randomM(120, 14)));
+        input.put("c", TsData.add(randomM(120, 15), randomM(120, 16)));
+        input.put("Y", randomY(10, 17));
+
+        ContemporaneousConstraint c1 = ContemporaneousConstraint.parse("a=s0+s1");
+        ContemporaneousConstraint c2 = ContemporaneousConstraint.parse("b=s2+s3+s4");
+        ContemporaneousConstraint c3 = ContemporaneousConstraint.parse("c=s4+s5");
+        ContemporaneousConstraint c4 = ContemporaneousConstraint.parse("a=s6+s7");
+        TemporalConstraint t1 = TemporalConstraint.parse("Y=sum(s2)");
+
+        MultivariateCholetteSpec spec = MultivariateCholetteSpec.builder()
+                .contemporaneousConstraint(c1)
+                .contemporaneousConstraint(c2)
+                .contemporaneousConstraint(c3)
+                .contemporaneousConstraint(c4)
+                .temporalConstraint(t1)
+                .build();
+        Map<String, TsData> all = MultivariateCholette.benchmark(input, spec);
+        assertTrue(all.size() == 8);
+
+        // the blocks processed separately
+        Map<String, TsData> b1 = MultivariateCholette.benchmark(input, MultivariateCholetteSpec.builder()
+                .contemporaneousConstraint(c1)
+                .build());
+        Map<String, TsData> b2 = MultivariateCholette.benchmark(input, MultivariateCholetteSpec.builder()
+                .contemporaneousConstraint(c2)
+                .contemporaneousConstraint(c3)
+                .temporalConstraint(t1)
+                .build());
+        Map<String, TsData> b3 = MultivariateCholette.benchmark(input, MultivariateCholetteSpec.builder()
+                .contemporaneousConstraint(c4)
+                .build());
+        for (Map<String, TsData> b : List.of(b1, b2, b3)) {
+            b.forEach((k, v) -> assertTrue(distance(v, all.get(k)) < 1e-9));
+        }
+        assertTrue(distance(input.get("b"), TsData.add(TsData.add(all.get("s2"), all.get("s3")), all.get("s4"))) < 1e-9);
+        assertTrue(distance(input.get("c"), TsData.add(all.get("s4"), all.get("s5"))) < 1e-9);
+    }
+
+    @Test
+    public void testSparse() {
+        Map<String, TsData> input = new HashMap<>();
+        for (int i = 2; i < 6; ++i) {
+            input.put("s" + i, randomM(120, i));
+        }
+        input.put("b", TsData.add(TsData.add(randomM(120, 12), randomM(120, 13)), randomM(120, 14)));
+        input.put("c", TsData.add(randomM(120, 15), randomM(120, 16)));
+        input.put("Y2", randomY(10, 17));
+        input.put("Y5", randomY(10, 18));
+
+        for (double rho : new double[]{1, .8}) {
+            for (double lambda : new double[]{0, .5, 1}) {
+                MultivariateCholetteSpec.Builder builder = MultivariateCholetteSpec.builder()
+                        .rho(rho)
+                        .lambda(lambda)
+                        .contemporaneousConstraint(ContemporaneousConstraint.parse("b=s2+s3+s4"))
+                        .contemporaneousConstraint(ContemporaneousConstraint.parse("c=s4+s5"))
+                        .temporalConstraint(TemporalConstraint.parse("Y2=sum(s2)"))
+                        .temporalConstraint(TemporalConstraint.parse("Y5=sum(s5)"));
+                Map<String, TsData> ssf = MultivariateCholette.benchmark(input, builder.build());
+                Map<String, TsData> sparse = MultivariateCholette.benchmark(input, builder
+                        .solver(MultivariateCholetteSpec.Solver.Sparse)
+                        .build());
+                assertTrue(sparse.size() == 4);
+                sparse.forEach((k, v) -> assertTrue(distance(v, ssf.get(k)) < 1e-6));
+                assertTrue(distance(input.get("b"), TsData.add(TsData.add(sparse.get("s2"), sparse.get("s3")), sparse.get("s4"))) < 1e-9);
+                assertTrue(distance(input.get("Y2"), sparse.get("s2").aggregate(TsUnit.YEAR, AggregationType.Sum, true)) < 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testIndependentTemporalConstraints() {
+        Map<String, TsData> input = new HashMap<>();
+        MultivariateCholetteSpec.Builder builder = MultivariateCholetteSpec.builder()
+                .rho(.9)
+                .lambda(.5);
+        for (int i = 0; i < 20; ++i) {
+            input.put("s" + i, randomM(120, i));
+            input.put("y" + i, randomY(10, 100 + i));
+            builder.temporalConstraint(TemporalConstraint.parse("y" + i + "=sum(s" + i + ")"));
+        }
+        input.put("a", TsData.add(randomM(120, 50), randomM(120, 51)));
+        builder.contemporaneousConstraint(ContemporaneousConstraint.parse("a=s0+s1"));
+        MultivariateCholetteSpec spec = builder.build();
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Map<String, TsData> rslt = MultivariateCholette.benchmark(input, spec, pool);
+            Map<String, TsData> crslt = MultivariateCholette.benchmark(input, spec);
+            assertTrue(rslt.size() == 20);
+            CholetteSpec uspec = CholetteSpec.builder()
+                    .aggregationType(AggregationType.Sum)
+                    .bias(CholetteSpec.BiasCorrection.None)
+                    .lambda(.5)
+                    .rho(.9)
+                    .build();
+            for (int i = 2; i < 20; ++i) {
+                TsData b = Cholette.benchmark(input.get("s" + i), input.get("y" + i), uspec);
+                assertTrue(distance(b, rslt.get("s" + i)) < 1e-9);
+            }
+            rslt.forEach((k, v) -> assertTrue(distance(v, crslt.get(k)) < 1e-9));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInformation() {
+        int n = 60, nvars = 9;
+        Random rnd = new Random(0);
+        double[][] w = new double[nvars][n];
+        for (double[] cur : w) {
+            for (int j = 0; j < n; ++j) {
+                cur[j] = 5 + 10 * rnd.nextDouble();
+            }
+        }
+        int[][] idx = {{0, 1, 2}, {2, 3, 4}, {4, 5, 6, 7}, {7, 8}, {0, 8}};
+        Constraint[] cnts = new Constraint[idx.length];
+        double[][] z = new double[idx.length][n];
+        for (int i = 0; i < idx.length; ++i) {
+            double[] b = new double[idx[i].length];
+            Arrays.fill(b, 1);
+            cnts[i] = new Constraint(idx[i], b);
+            for (int j = 0; j < n; ++j) {
+                z[i][j] = 10 * rnd.nextGaussian();
+            }
+        }
+        z[1][5] = Double.NaN;
+        // diagonal blocks, fill (at most the full lower triangle) and (Q+delta*I)^-1
+        long memory = new SparseContemporaneousCholette(n, nvars, cnts).memory(), block = (long) n * n * Double.BYTES;
+        assertTrue(memory >= (1 + idx.length) * block);
+        assertTrue(memory <= (1 + idx.length * (idx.length + 1) / 2) * block);
+        for (double rho : new double[]{1, .8}) {
+            double[][] e = new SparseContemporaneousCholette(n, nvars, cnts).process(rho, w, z);
+            double[][] f = SparseMultivariateCholette.process(n, 1, rho, w, cnts, z, new double[nvars][]);
+            for (int i = 0; i < nvars; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    assertTrue(Math.abs(e[i][j] - f[i][j]) < 1e-9);
+                }
+            }
+        }
+
+        // large hierarchy (redundant constraints)
+        Map<String, TsData> input = new HashMap<>();
+        MultivariateCholetteSpec.Builder builder = MultivariateCholetteSpec.builder();
+        TsData t = null;
+        for (int g = 0; g < 16; ++g) {
+            TsData s = null;
+            for (int m = 0; m < 20; ++m) {
+                input.put("R_" + g + "_" + m, randomM(120, 20 * g + m));
+                s = s == null ? randomM(120, 1000 + 20 * g + m) : TsData.add(s, randomM(120, 1000 + 20 * g + m));
+            }
+            input.put("G_" + g, s);
+            t = t == null ? s : TsData.add(t, s);
+            builder.contemporaneousConstraint(ContemporaneousConstraint.parse("G_" + g + "=R_" + g + "_*"));
+        }
+        input.put("T", t);
+        builder.contemporaneousConstraint(ContemporaneousConstraint.parse("T=R_*"));
+        Map<String, TsData> rslt = MultivariateCholette.benchmark(input, builder.build());
+        assertTrue(rslt.size() == 320);
+        TsData s = null;
+        for (int m = 0; m < 20; ++m) {
+            s = s == null ? rslt.get("R_3_" + m) : TsData.add(s, rslt.get("R_3_" + m));
+        }
+        assertTrue(distance(input.get("G_3"), s) < 1e-6);
+
+        // without memory for the information form, the state space form is used
+        MultivariateCholetteProcessor.setInformationMemory(0);
+        try {
+            Map<String, TsData> srslt = MultivariateCholette.benchmark(input, builder.build());
+            rslt.forEach((k, v) -> assertTrue(distance(v, srslt.get(k)) < 1e-6));
+        } finally {
+            MultivariateCholetteProcessor.setInformationMemory(MultivariateCholetteProcessor.DEF_INFORMATION_MEMORY);
+        }
+    }
+
+    @Test
+    public void testRepeated() {
+        // the smoothers re-use their (thread-local) workspace
+        Map<String, TsData> input = new HashMap<>();
+        for (int i = 2; i < 6; ++i) {
+            input.put("s" + i, randomM(120, i));
+        }
+        input.put("b", TsData.add(TsData.add(randomM(120, 12), randomM(120, 13)), randomM(120, 14)));
+        input.put("Y2", randomY(10, 17));
+        input.put("Y5", randomY(10, 18));
+        MultivariateCholetteSpec spec1 = MultivariateCholetteSpec.builder()
+                .contemporaneousConstraint(ContemporaneousConstraint.parse("b=s2+s3+s4"))
+                .temporalConstraint(TemporalConstraint.parse("Y2=sum(s2)"))
+                .build();
+        MultivariateCholetteSpec spec2 = spec1.toBuilder()
+                .clearContemporaneousConstraints()
+                .contemporaneousConstraint(ContemporaneousConstraint.parse("b=s2+s3+s4+s5"))
+                .temporalConstraint(TemporalConstraint.parse("Y5=sum(s5)"))
+                .build();
+        Map<String, TsData> rslt1 = MultivariateCholette.benchmark(input, spec1);
+        Map<String, TsData> rslt2 = MultivariateCholette.benchmark(input, spec2);
+        Map<String, TsData> nrslt1 = MultivariateCholette.benchmark(input, spec1);
+        Map<String, TsData> nrslt2 = MultivariateCholette.benchmark(input, spec2);
+        rslt1.forEach((k, v) -> assertTrue(distance(v, nrslt1.get(k)) == 0));
+        rslt2.forEach((k, v) -> assertTrue(distance(v, nrslt2.get(k)) == 0));
+    }
+
+    @Test
+    public void testHierarchical() {
+        Map<String, TsData> input = new HashMap<>();
+        input.put("T", TsData.add(TsData.add(randomM(120, 1), randomM(120, 2)), randomM(120, 3)));
+        input.put("A", TsData.add(randomM(120, 4), randomM(120, 5)));
+        input.put("B", randomM(120, 6));
+        for (int i = 1; i <= 3; ++i) {
+            input.put("a" + i, randomM(120, 10 + i));
+        }
+        input.put("b1", randomM(120, 20));
+        input.put("b2", randomM(120, 21));
+        input.put("YT", randomY(10, 30).fn(x -> 3.5 * x));
+        input.put("YA", randomY(10, 31).fn(x -> 2 * x));
+        input.put("Ya1", randomY(10, 32).fn(x -> 1.1 * x));
+        MultivariateCholetteSpec.Builder builder = MultivariateCholetteSpec.builder()
+                .rho(.9)
+                .contemporaneousConstraint(ContemporaneousConstraint.parse("T=A+B"))
+                .contemporaneousConstraint(ContemporaneousConstraint.parse("A=a*"))
+                .contemporaneousConstraint(ContemporaneousConstraint.parse("B=b1+b2"))
+                .temporalConstraint(TemporalConstraint.parse("YT=sum(T)"))
+                .temporalConstraint(TemporalConstraint.parse("YA=sum(A)"))
+                .temporalConstraint(TemporalConstraint.parse("Ya1=sum(a1)"));
+        assertThrows(IllegalArgumentException.class, () -> MultivariateCholette.benchmark(input, builder.build()));
+
+        Map<String, TsData> rslt = MultivariateCholette.benchmark(input, builder.hierarchical(true).build());
+        assertTrue(rslt.size() == 8);
+        TsData t = rslt.get("T"), a = rslt.get("A"), b = rslt.get("B");
+        assertTrue(distance(input.get("YT"), t.aggregate(TsUnit.YEAR, AggregationType.Sum, true)) < 1e-9);
+        assertTrue(distance(input.get("YA"), a.aggregate(TsUnit.YEAR, AggregationType.Sum, true)) < 1e-9);
+        assertTrue(distance(input.get("Ya1"), rslt.get("a1").aggregate(TsUnit.YEAR, AggregationType.Sum, true)) < 1e-9);
+        assertTrue(distance(t, TsData.add(a, b)) < 1e-9);
+        assertTrue(distance(a, TsData.add(TsData.add(rslt.get("a1"), rslt.get("a2")), rslt.get("a3"))) < 1e-9);
+        assertTrue(distance(b, TsData.add(rslt.get("b1"), rslt.get("b2"))) < 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> MultivariateCholette.benchmark(input, builder
+                .contemporaneousConstraint(ContemporaneousConstraint.parse("a1=T-A"))
+                .build()));
+    }
+
+//    @Test
+    public void stressScaling() {
+        // blocks of 5 series (t_k=s_5k+...+s_5k+4), the first one temporally constrained
+        for (int n : new int[]{1000, 5000, 20000, 50000}) {
+            Map<String, TsData> input = new HashMap<>();
+            MultivariateCholetteSpec.Builder builder = MultivariateCholetteSpec.builder();
+            for (int k = 0; k < n / 5; ++k) {
+                StringBuilder cnt = new StringBuilder();
+                cnt.append("t_").append(k).append('=');
+                TsData t = null;
+                for (int j = 0; j < 5; ++j) {
+                    String name = "s_" + (5 * k + j);
+                    TsData s = randomM(120, 5 * k + j);
+                    input.put(name, s);
+                    t = t == null ? s : TsData.add(t, s);
+                    if (j > 0) {
+                        cnt.append('+');
+                    }
+                    cnt.append(name);
+                }
+                input.put("t_" + k, TsData.add(t, randomM(120, n + k)));
+                input.put("y_" + k, randomY(10, 2 * n + k));
+                builder.contemporaneousConstraint(ContemporaneousConstraint.parse(cnt.toString()))
+                        .temporalConstraint(TemporalConstraint.parse("y_" + k + "=sum(s_" + (5 * k) + ")"));
+            }
+            MultivariateCholetteSpec spec = builder.build();
+            long t0 = System.currentTimeMillis();
+            Map<String, TsData> rslt = MultivariateCholette.benchmark(input, spec);
+            long t1 = System.currentTimeMillis();
+            assertTrue(rslt.size() == n);
+            System.out.println(n + " series: " + (t1 - t0) + " ms");
+        }
+    }
+
 //    @Test
 //    @Disabled
     public void testOldTable() {
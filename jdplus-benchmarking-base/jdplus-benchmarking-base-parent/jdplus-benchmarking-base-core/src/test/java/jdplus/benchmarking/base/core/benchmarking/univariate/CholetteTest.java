@@ -27,6 +27,9 @@ import jdplus.toolkit.base.api.timeseries.TsUnit;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import jdplus.toolkit.base.core.timeseries.simplets.TsDataToolkit;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -180,4 +183,38 @@ public class CholetteTest {
         TsData bc = b.aggregate(TsUnit.YEAR, AggregationType.Sum, true);
         assertTrue(TsDataToolkit.subtract(t, bc).getValues().allMatch(x -> Math.abs(x) < 1e-9));
     }
+
+    @Test
+    public void testBatch() {
+        List<TsData> s = new ArrayList<>(), t = new ArrayList<>();
+        for (int k = 0; k < 20; ++k) {
+            int len = 80 + k % 3;
+            int c = k;
+            DataBlock x = DataBlock.make(len);
+            x.set(i -> 100 + c + i + 10 * Math.sin(i * (c + 1)));
+            DataBlock y = DataBlock.make(19);
+            y.set(i -> 400 + 4 * i + 10 * Math.cos(c + i));
+            s.add(TsData.of(TsPeriod.quarterly(1978, 1 + k % 4), x));
+            t.add(TsData.of(TsPeriod.yearly(1980), y));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (double lambda : new double[]{0, 1}) {
+                for (AggregationType type : new AggregationType[]{AggregationType.Sum, AggregationType.Last}) {
+                    CholetteSpec spec = CholetteSpec.builder()
+                            .lambda(lambda)
+                            .rho(.8)
+                            .aggregationType(type)
+                            .build();
+                    List<TsData> b = Cholette.benchmark(s, t, spec, pool);
+                    for (int k = 0; k < s.size(); ++k) {
+                        TsData bk = Cholette.benchmark(s.get(k), t.get(k), spec);
+                        assertTrue(TsDataToolkit.subtract(b.get(k), bk).getValues().allMatch(w -> Math.abs(w) < 1e-9));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
@@ -27,6 +27,8 @@ import jdplus.toolkit.base.core.timeseries.simplets.TsDataToolkit;
 import org.junit.jupiter.api.Test;
 
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -96,4 +98,30 @@ public class DentonTest {
         TsData bc = b.aggregate(TsUnit.YEAR, AggregationType.Sum, true);
         assertTrue(TsDataToolkit.subtract(t, bc).getValues().allMatch(w -> Math.abs(w) < 1e-9));
     }
+
+    @Test
+    public void testBatch() {
+        DentonSpec spec = DentonSpec.builder()
+                .modified(true)
+                .multiplicative(false)
+                .build();
+        TsPeriod a = TsPeriod.yearly(1980);
+        List<TsData> high = new ArrayList<>(), low = new ArrayList<>();
+        for (int k = 0; k < 10; ++k) {
+            final int seed = k;
+            DataBlock y = DataBlock.make(20);
+            y.set(i -> (1 + i) * (1 + seed));
+            // two different structures
+            DataBlock x = DataBlock.make(k % 2 == 0 ? 90 : 85);
+            x.set(i -> (1 + i) * (1 + i) + seed * Math.sin(i));
+            low.add(TsData.of(a, y));
+            high.add(TsData.of(TsPeriod.quarterly(1978, k % 2 == 0 ? 3 : 1), x));
+        }
+        List<TsData> rslt = Denton.benchmark(high, low, spec);
+        for (int k = 0; k < 10; ++k) {
+            TsData b = Denton.benchmark(high.get(k), low.get(k), spec);
+            assertTrue(b.getStart().equals(rslt.get(k).getStart()));
+            assertTrue(b.getValues().distance(rslt.get(k).getValues()) < 1e-9 * b.getValues().norm2());
+        }
+    }
 }
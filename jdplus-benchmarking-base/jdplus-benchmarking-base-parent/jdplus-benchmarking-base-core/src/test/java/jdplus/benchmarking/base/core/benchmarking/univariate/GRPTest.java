@@ -11,6 +11,8 @@ import jdplus.toolkit.base.api.data.AggregationType;
 import tck.demetra.data.Data;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.math.functions.IFunctionPoint;
+import jdplus.toolkit.base.core.math.functions.bfgs.Bfgs;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
 import jdplus.toolkit.base.core.math.matrices.SymmetricMatrix;
 import org.junit.jupiter.api.Test;
@@ -196,4 +198,194 @@ public class GRPTest {
         GRP.addXbar(zz, y.getStorage(), 4, true);
         assertTrue(DoubleSeq.of(zz).distance(DoubleSeq.of(start)) < 1e-9);
     }
+
+    @Test
+    public void testFusedGradient() {
+        DataBlock y = DataBlock.of(Data.PCRA);
+        DataBlock x = DataBlock.of(Data.IND_PCR);
+        double[] p = x.getStorage();
+        for (GrpSpec.Objective objective : GrpSpec.Objective.values()) {
+            GrpSpec spec = GrpSpec.builder()
+                    .objective(objective)
+                    .build();
+            double[] start = new GRP(spec, 4, 0).process(x, y);
+            FastMatrix K = FastMatrix.make(4, 3);
+            GRP.K(K, true);
+            double[] gx = new double[p.length];
+            double f = GRP.fg(start, GRP.ratios(p, objective), objective, gx);
+            assertEquals(GRP.f(start, p, objective), f, 1e-12);
+            double[] g = new double[3 * y.length()];
+            GRP.mg(gx, GRP.k(K), g);
+            assertTrue(DoubleSeq.of(g).distance(DoubleSeq.of(GRP.mg(start, p, K, objective))) < 1e-12);
+            double[] z = GRP.Ztx(start, K, true);
+            double[] xz = new double[p.length];
+            GRP.x(z, y.getStorage(), GRP.k(K), true, xz);
+            assertTrue(DoubleSeq.of(xz).distance(DoubleSeq.of(start)) < 1e-9);
+        }
+    }
+
+    @Test
+    public void testNewton() {
+        DataBlock y = DataBlock.of(Data.PCRA);
+        DataBlock x = DataBlock.of(Data.IND_PCR);
+        for (GrpSpec.Objective objective : GrpSpec.Objective.values()) {
+            for (AggregationType type : new AggregationType[]{AggregationType.Sum, AggregationType.Last}) {
+                GrpSpec spec = GrpSpec.builder()
+                        .objective(objective)
+                        .aggregationType(type)
+                        .build();
+                double[] bfgs = new GRP(spec, 4, 0).process(x, y);
+                double[] newton = new GRP(spec.toBuilder().optimizer(GrpSpec.Optimizer.Newton).build(), 4, 0).process(x, y);
+                double fb = GRP.f(bfgs, x.getStorage(), objective), fn = GRP.f(newton, x.getStorage(), objective);
+                assertTrue(fn <= fb + 1e-9);
+                assertTrue(DoubleSeq.of(bfgs).distance(DoubleSeq.of(newton)) < 1e-3 * DoubleSeq.of(bfgs).norm2());
+            }
+        }
+    }
+
+    @Test
+    public void testWarmStart() {
+        DataBlock y = DataBlock.of(Data.PCRA);
+        DataBlock x = DataBlock.of(Data.IND_PCR);
+        for (GrpSpec.Optimizer optimizer : GrpSpec.Optimizer.values()) {
+            GrpSpec spec = GrpSpec.builder()
+                    .optimizer(optimizer)
+                    .build();
+            GRP grp = new GRP(spec, 4, 0);
+            // previous vintage, with 2 benchmarks less
+            double[] previous = grp.process(x, y.drop(0, 2));
+            double[] cold = grp.process(x, y);
+            double[] warm = grp.process(x, y, DoubleSeq.of(previous));
+            double fc = GRP.f(cold, x.getStorage(), GrpSpec.Objective.Forward), fw = GRP.f(warm, x.getStorage(), GrpSpec.Objective.Forward);
+            assertTrue(Math.abs(fc - fw) < 1e-6 * fc);
+            assertTrue(DoubleSeq.of(cold).distance(DoubleSeq.of(warm)) < 1e-3 * DoubleSeq.of(cold).norm2());
+        }
+    }
+
+    @Test
+    public void testWarmStartIterations() {
+        DataBlock y = DataBlock.of(Data.PCRA);
+        DataBlock x = DataBlock.of(Data.IND_PCR);
+        GrpSpec spec = GrpSpec.builder()
+                .optimizer(GrpSpec.Optimizer.Newton)
+                .build();
+        GRP grp = new GRP(spec, 4, 0);
+        // previous vintage: the last benchmark has been marginally revised,
+        // so that the warm start lies close to the optimum
+        DataBlock yp = DataBlock.of(Data.PCRA);
+        int last = yp.length() - 1;
+        yp.set(last, yp.get(last) * (1 + 1e-7));
+        double[] previous = grp.process(x, yp);
+        double[] cstart = grp.start(x, y, null), wstart = grp.start(x, y, DoubleSeq.of(previous));
+        int n = 4 * y.length();
+        double[] p = x.range(0, n).toArray();
+        FastMatrix K = FastMatrix.make(4, 3);
+        GRP.K(K, true);
+        GRPNewton newton = new GRPNewton(p, y.toArray(), K, true, spec.getObjective(), spec.getMaxIter(), spec.getPrecision());
+        double[] cold = newton.minimize(GRP.Ztx(cstart, K, true));
+        int icold = newton.getIterations();
+        double[] warm = newton.minimize(GRP.Ztx(wstart, K, true));
+        int iwarm = newton.getIterations();
+        assertTrue(GRP.f(wstart, p, spec.getObjective()) < GRP.f(cstart, p, spec.getObjective()));
+        // a single step from the warm start, several from the cold one
+        assertEquals(1, iwarm);
+        assertTrue(iwarm < icold);
+        assertTrue(DoubleSeq.of(cold).distance(DoubleSeq.of(warm)) < 1e-5 * DoubleSeq.of(cold).norm2());
+    }
+
+//    @Test
+    public void stressNewton() {
+        // long monthly series (50 years)
+        int ny = 50;
+        DataBlock x = DataBlock.make(ny * 12);
+        x.set(i -> 100 + i * .1 + 5 * Math.sin(i * .7));
+        DataBlock y = DataBlock.make(ny);
+        y.set(i -> x.range(i * 12, i * 12 + 12).sum() * (1.02 + .03 * Math.cos(i)));
+        GrpSpec spec = GrpSpec.DEFAULT;
+        for (GrpSpec.Optimizer optimizer : GrpSpec.Optimizer.values()) {
+            GRP grp = new GRP(spec.toBuilder().optimizer(optimizer).build(), 12, 0);
+            long t0 = System.currentTimeMillis();
+            for (int k = 0; k < 20; ++k) {
+                grp.process(x, y);
+            }
+            long t1 = System.currentTimeMillis();
+            System.out.println(optimizer + ": " + (t1 - t0) / 20.0 + " ms");
+        }
+    }
+
+//    @Test
+    public void stressAllocations() {
+        int ny = 50;
+        DataBlock x = DataBlock.make(ny * 12);
+        x.set(i -> 100 + i * .1 + 5 * Math.sin(i * .7));
+        DataBlock y = DataBlock.make(ny);
+        y.set(i -> x.range(i * 12, i * 12 + 12).sum() * (1.02 + .03 * Math.cos(i)));
+        for (GrpSpec.Optimizer optimizer : GrpSpec.Optimizer.values()) {
+            GRP grp = new GRP(GrpSpec.DEFAULT.toBuilder().optimizer(optimizer).build(), 12, 0);
+            // warm-up
+            for (int k = 0; k < 5; ++k) {
+                grp.process(x, y);
+            }
+            long b0 = allocatedBytes();
+            long t0 = System.currentTimeMillis();
+            for (int k = 0; k < 20; ++k) {
+                grp.process(x, y);
+            }
+            long t1 = System.currentTimeMillis();
+            long b1 = allocatedBytes();
+            System.out.println(optimizer + ": " + (t1 - t0) / 20.0 + " ms, "
+                    + (b0 < 0 ? "n/a" : ((b1 - b0) / 20 / 1024) + " kB") + " allocated by call");
+        }
+        // evaluations of the objective function and of its gradient, as done
+        // by the BFGS optimizer
+        double[] p = x.getStorage();
+        FastMatrix K = FastMatrix.make(12, 11);
+        GRP.K(K, true);
+        GRP grp = new GRP(GrpSpec.DEFAULT.toBuilder().optimizer(GrpSpec.Optimizer.Bfgs).build(), 12, 0);
+        double[] z = GRP.Ztx(grp.start(x, y, null), K, true);
+        int[] nevals = new int[1];
+        GRPFunction fn = new GRPFunction(p, y.getStorage(), K, true, GrpSpec.Objective.Forward) {
+            @Override
+            public IFunctionPoint evaluate(DoubleSeq ds) {
+                ++nevals[0];
+                return super.evaluate(ds);
+            }
+        };
+        long b0 = allocatedBytes();
+        for (int i = 0; i < 20; ++i) {
+            Bfgs bfgs = Bfgs.builder()
+                    .functionPrecision(GrpSpec.DEFAULT.getPrecision())
+                    .maxIter(GrpSpec.DEFAULT.getMaxIter())
+                    .build();
+            bfgs.minimize(fn.evaluate(DoubleSeq.of(z)));
+        }
+        long b1 = allocatedBytes();
+        System.out.println("BFGS: " + nevals[0] / 20 + " evaluations by call, "
+                + (b0 < 0 ? "n/a" : (b1 - b0) / nevals[0] + " bytes") + " allocated by evaluation (optimizer included)");
+        // the points only own their parameters and their gradient (2*8*nz bytes)
+        b0 = allocatedBytes();
+        for (int i = 0; i < 10000; ++i) {
+            IFunctionPoint pt = fn.evaluate(DoubleSeq.of(z));
+            pt.getValue();
+            pt.derivatives().gradient();
+        }
+        b1 = allocatedBytes();
+        System.out.println("GRPFunction: " + (b0 < 0 ? "n/a" : (b1 - b0) / 10000 + " bytes") + " allocated by evaluation ("
+                + 16 * z.length + " bytes of parameters and gradient)");
+    }
+
+    /**
+     * Bytes allocated by the current thread (-1 if not supported by the VM)
+     *
+     * @return
+     */
+    private static long allocatedBytes() {
+        try {
+            java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+            Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+            return (long) c.getMethod("getThreadAllocatedBytes", long.class).invoke(bean, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return -1;
+        }
+    }
 }
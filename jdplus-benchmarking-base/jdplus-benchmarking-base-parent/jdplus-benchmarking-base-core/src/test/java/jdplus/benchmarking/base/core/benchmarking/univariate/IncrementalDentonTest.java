@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.benchmarking.base.core.benchmarking.univariate;
+
+import jdplus.benchmarking.base.api.benchmarking.univariate.DentonSpec;
+import jdplus.toolkit.base.api.data.AggregationType;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class IncrementalDentonTest {
+
+    public IncrementalDentonTest() {
+    }
+
+    private static final int NY = 50, C = 12;
+    private static final double[] X = new double[NY * C], Y = new double[NY];
+
+    static {
+        for (int i = 0; i < X.length; ++i) {
+            X[i] = 100 + i * 0.1 + 5 * Math.sin(i * 0.7);
+        }
+        for (int k = 0; k < NY; ++k) {
+            double s = 0;
+            for (int i = 0; i < C; ++i) {
+                s += X[k * C + i];
+            }
+            Y[k] = s * (1.02 + 0.03 * Math.cos(k));
+        }
+    }
+
+    @Test
+    public void testFullUpdate() {
+        DentonSpec spec = DentonSpec.DEFAULT;
+        IncrementalDenton denton = new IncrementalDenton(spec, C, 0, 0);
+        denton.process(DoubleSeq.of(X).range(0, 40 * C), DoubleSeq.of(Y).range(0, 40));
+        for (int k = 40; k < NY; ++k) {
+            double[] s = denton.update(DoubleSeq.of(X).range(k * C, (k + 1) * C), DoubleSeq.of(Y).range(k, k + 1));
+            double[] f = new MatrixDenton(spec, C, 0).process(DoubleSeq.of(X).range(0, (k + 1) * C), DoubleSeq.of(Y).range(0, k + 1));
+            assertTrue(DoubleSeq.of(s).distance(DoubleSeq.of(f)) < 1e-9 * DoubleSeq.of(f).norm2());
+        }
+    }
+
+    @Test
+    public void testAdditiveFullUpdate() {
+        // the factorization of the previous problem is extended
+        for (AggregationType type : new AggregationType[]{AggregationType.Sum, AggregationType.Average, AggregationType.Last}) {
+            DentonSpec spec = DentonSpec.builder()
+                    .multiplicative(false)
+                    .aggregationType(type)
+                    .build();
+            double[] y = Y.clone();
+            if (type != AggregationType.Sum) {
+                for (int k = 0; k < NY; ++k) {
+                    y[k] /= C;
+                }
+            }
+            IncrementalDenton denton = new IncrementalDenton(spec, C, 0, 0);
+            denton.process(DoubleSeq.of(X).range(0, 40 * C + 5), DoubleSeq.of(y).range(0, 40));
+            for (int k = 40; k < NY; ++k) {
+                // high-frequency data first (not aligned on the periods), then the new constraint
+                int n = Math.min(X.length, (k + 1) * C + 5);
+                denton.update(DoubleSeq.of(X).range(k * C + 5, n), DoubleSeq.empty());
+                double[] s = denton.update(DoubleSeq.empty(), DoubleSeq.of(y).range(k, k + 1));
+                double[] f = new MatrixDenton(spec, C, 0).process(DoubleSeq.of(X).range(0, n), DoubleSeq.of(y).range(0, k + 1));
+                assertTrue(DoubleSeq.of(s).distance(DoubleSeq.of(f)) < 1e-9 * DoubleSeq.of(f).norm2());
+            }
+        }
+    }
+
+    @Test
+    public void testWindow() {
+        for (boolean mul : new boolean[]{false, true}) {
+            DentonSpec spec = DentonSpec.builder()
+                    .multiplicative(mul)
+                    .build();
+            IncrementalDenton denton = new IncrementalDenton(spec, C, 0, 8);
+            denton.process(DoubleSeq.of(X).range(0, 40 * C), DoubleSeq.of(Y).range(0, 40));
+            for (int k = 40; k < NY; ++k) {
+                // high-frequency data first, then the new constraint
+                denton.update(DoubleSeq.of(X).range(k * C, (k + 1) * C), DoubleSeq.empty());
+                double[] s = denton.update(DoubleSeq.empty(), DoubleSeq.of(Y).range(k, k + 1));
+                double[] f = new MatrixDenton(spec, C, 0).process(DoubleSeq.of(X).range(0, (k + 1) * C), DoubleSeq.of(Y).range(0, k + 1));
+                assertTrue(DoubleSeq.of(s).distance(DoubleSeq.of(f)) < 1e-4 * DoubleSeq.of(f).norm2());
+                for (int j = 0; j <= k; ++j) {
+                    assertTrue(Math.abs(DoubleSeq.of(s).extract(j * C, C).sum() - Y[j]) < 1e-6);
+                }
+            }
+        }
+    }
+}
@@ -6,8 +6,11 @@
 package jdplus.benchmarking.base.core.benchmarking.univariate;
 
 import jdplus.benchmarking.base.api.benchmarking.univariate.DentonSpec;
+import jdplus.toolkit.base.api.data.AggregationType;
+import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.core.data.DataBlock;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  *
@@ -28,5 +31,96 @@ public class MatrixDentonTest {
         double[] rslt = denton.process(x, y);
         //System.out.println(Matrix.columnOf(DataBlock.ofInternal(rslt)));
     }
-    
+
+    @Test
+    public void testBandedSolver() {
+        DataBlock y = DataBlock.make(20);
+        y.set(i -> (1 + i));
+        DataBlock x = DataBlock.make(83);
+        x.set(i -> (1 + i) * (1 + i));
+
+        for (AggregationType type : new AggregationType[]{AggregationType.Sum, AggregationType.Average, AggregationType.First, AggregationType.Last, AggregationType.UserDefined}) {
+            for (int d = 1; d <= 3; ++d) {
+                for (boolean mul : new boolean[]{false, true}) {
+                    for (boolean mod : new boolean[]{false, true}) {
+                        DentonSpec spec = DentonSpec.builder()
+                                .aggregationType(type)
+                                .observationPosition(1)
+                                .differencing(d)
+                                .multiplicative(mul)
+                                .modified(mod)
+                                .solver(DentonSpec.Solver.Dense)
+                                .build();
+                        double[] dense = new MatrixDenton(spec, 4, 2).process(x, y);
+                        double[] banded = new MatrixDenton(spec.toBuilder().solver(DentonSpec.Solver.Banded).build(), 4, 2).process(x, y);
+                        assertTrue(DoubleSeq.of(dense).distance(DoubleSeq.of(banded)) < 1e-6 * DoubleSeq.of(dense).norm2());
+                        dense = new MatrixDenton(spec, 4, 0).process(y);
+                        banded = new MatrixDenton(spec.toBuilder().solver(DentonSpec.Solver.Banded).build(), 4, 0).process(y);
+                        assertTrue(DoubleSeq.of(dense).distance(DoubleSeq.of(banded)) < 1e-6 * DoubleSeq.of(dense).norm2());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongSeries() {
+        int ny = 600;
+        DataBlock y = DataBlock.make(ny);
+        y.set(i -> 12 * (100 + i + Math.sin(i)));
+        DataBlock x = DataBlock.make(ny * 12);
+        x.set(i -> 100 + i / 12.0 + Math.cos(i));
+
+        MatrixDenton denton = new MatrixDenton(DentonSpec.DEFAULT, 12, 0);
+        double[] rslt = denton.process(x, y);
+        for (int i = 0; i < ny; ++i) {
+            assertTrue(Math.abs(DoubleSeq.of(rslt).extract(i * 12, 12).sum() - y.get(i)) < 1e-6);
+        }
+    }
+
+    @Test
+    public void testCache() {
+        DentonSpec spec = DentonSpec.builder().build();
+        DentonSpec dense = spec.toBuilder().solver(DentonSpec.Solver.Dense).build();
+        MatrixDenton.clearCache();
+        for (int k = 0; k < 5; ++k) {
+            final int seed = k;
+            DataBlock y = DataBlock.make(20);
+            y.set(i -> (1 + i) * (seed + 1) + Math.sin(i));
+            DataBlock x = DataBlock.make(83);
+            x.set(i -> (1 + i) * (1 + i) + seed * Math.cos(i));
+            double[] cached = new MatrixDenton(spec, 4, 2).process(x, y);
+            double[] rslt = new MatrixDenton(dense, 4, 2).process(x, y);
+            assertTrue(DoubleSeq.of(rslt).distance(DoubleSeq.of(cached)) < 1e-9 * DoubleSeq.of(rslt).norm2());
+            assertTrue(MatrixDenton.getCacheSize() == 1);
+        }
+        new MatrixDenton(spec, 4, 0).process(DoubleSeq.onMapping(20, i -> 4));
+        assertTrue(MatrixDenton.getCacheSize() == 2);
+        MatrixDenton.setCacheCapacity(1);
+        assertTrue(MatrixDenton.getCacheSize() == 1);
+        MatrixDenton.setCacheCapacity(MatrixDenton.DEF_CACHE_CAPACITY);
+        MatrixDenton.clearCache();
+    }
+
+    @Test
+    public void testMultipleSeries() {
+        for (boolean mul : new boolean[]{false, true}) {
+            DentonSpec spec = DentonSpec.builder()
+                    .multiplicative(mul)
+                    .aggregationType(AggregationType.Average)
+                    .build();
+            MatrixDenton denton = new MatrixDenton(spec, 12, 3);
+            DoubleSeq[] x = new DoubleSeq[5], y = new DoubleSeq[5];
+            for (int k = 0; k < 5; ++k) {
+                final int seed = k;
+                x[k] = DoubleSeq.onMapping(130, i -> 100 + i + seed * Math.sin(i));
+                y[k] = DoubleSeq.onMapping(10, i -> 110 + 12 * i + seed);
+            }
+            double[][] rslt = denton.process(x, y);
+            for (int k = 0; k < 5; ++k) {
+                double[] r = denton.process(x[k], y[k]);
+                assertTrue(DoubleSeq.of(r).distance(DoubleSeq.of(rslt[k])) < 1e-9 * DoubleSeq.of(r).norm2());
+            }
+        }
+    }
 }
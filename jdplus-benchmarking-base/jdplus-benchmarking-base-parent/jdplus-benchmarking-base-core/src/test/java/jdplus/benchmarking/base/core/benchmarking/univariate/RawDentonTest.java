@@ -96,4 +96,33 @@ public class RawDentonTest {
         double[] rslt = RawDenton.benchmark(y, spec);
         System.out.println(Arrays.toString(rslt));
     }
+
+    @Test
+    public void testBatch() {
+        RawDentonSpec spec = RawDentonSpec.builder()
+                .multiplicative(false)
+                .modified(true)
+                .differencing(2)
+                .aggregationType(AggregationType.Sum)
+                .frequencyRatio(4)
+                .build();
+        double[][] x = new double[6][], y = new double[6][];
+        int[] offsets = new int[6];
+        for (int k = 0; k < 6; ++k) {
+            y[k] = new double[10];
+            for (int i = 0; i < 10; ++i) {
+                y[k][i] = 400 + 10 * i + k;
+            }
+            x[k] = new double[42];
+            for (int i = 0; i < 42; ++i) {
+                x[k][i] = 100 + i + k * Math.cos(i);
+            }
+            offsets[k] = k % 3;
+        }
+        double[][] rslt = RawDenton.benchmark(x, y, offsets, spec);
+        for (int k = 0; k < 6; ++k) {
+            double[] b = RawDenton.benchmark(DoubleSeq.of(x[k]), DoubleSeq.of(y[k]), offsets[k], spec);
+            assertTrue(DoubleSeq.of(b).distance(DoubleSeq.of(rslt[k])) < 1e-9 * DoubleSeq.of(b).norm2());
+        }
+    }
 }
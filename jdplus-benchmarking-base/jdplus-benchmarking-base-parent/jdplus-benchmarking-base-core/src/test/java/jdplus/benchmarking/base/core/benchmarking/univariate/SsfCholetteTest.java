@@ -16,10 +16,15 @@
  */
 package jdplus.benchmarking.base.core.benchmarking.univariate;
 
+import jdplus.toolkit.base.core.ssf.ISsfLoading;
+import jdplus.toolkit.base.core.ssf.StateComponent;
+import jdplus.toolkit.base.core.ssf.arima.AR1;
+import jdplus.toolkit.base.core.ssf.arima.Rw;
 import jdplus.toolkit.base.core.ssf.benchmarking.SsfCholette;
 import jdplus.toolkit.base.core.ssf.dk.DkToolkit;
 import jdplus.toolkit.base.core.ssf.univariate.DefaultSmoothingResults;
 import jdplus.toolkit.base.core.ssf.univariate.ISsf;
+import jdplus.toolkit.base.core.ssf.univariate.Ssf;
 import jdplus.toolkit.base.core.ssf.univariate.SsfData;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -84,4 +89,51 @@ public class SsfCholetteTest {
             assertEquals(c0.get(i), c1[i], 1e-9);
         }
     }
+
+    @Test
+    public void testTimeInvariant() {
+        double[] data = new double[63];
+        for (int i = 0; i < data.length; ++i) {
+            // head = 2
+            data[i] = (i + 3) % 4 == 0 && i > 3 ? Math.sin(i) * 10 : Double.NaN;
+        }
+        for (double rho : new double[]{0, .8, -.5, 1}) {
+            ISsf ssf = SsfCholette.builder(4).start(2).rho(rho).build();
+            DefaultSmoothingResults rslts = DkToolkit.sqrtSmooth(ssf, new SsfData(data), false, false);
+            DoubleSeq c0 = rslts.getComponent(1);
+            double[] c1 = TimeInvariantCholette.process(data, 4, rho, true);
+            for (int i = 0; i < data.length; ++i) {
+                assertEquals(c0.get(i), c1[i], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testTimeInvariantStock() {
+        // same models as the state space path of CholetteProcessor for stocks
+        // (first and last periods)
+        for (int offset : new int[]{0, 3}) {
+            double[] data = new double[63];
+            for (int i = 0; i < data.length; ++i) {
+                data[i] = (i + 4 - offset) % 4 == 0 ? Math.sin(i) * 10 : Double.NaN;
+            }
+            for (double rho : new double[]{0, .8, -.5, 1}) {
+                ISsfLoading loading;
+                StateComponent cmp;
+                if (rho == 1) {
+                    loading = Rw.defaultLoading();
+                    cmp = Rw.DEFAULT;
+                } else {
+                    loading = AR1.defaultLoading();
+                    cmp = AR1.of(rho);
+                }
+                ISsf ssf = Ssf.of(cmp, loading);
+                DefaultSmoothingResults rslts = DkToolkit.smooth(ssf, new SsfData(data), false, false);
+                double[] c1 = TimeInvariantCholette.process(data, 4, rho, false);
+                for (int i = 0; i < data.length; ++i) {
+                    assertEquals(loading.ZX(i, rslts.a(i)), c1[i], 1e-9);
+                }
+            }
+        }
+    }
 }
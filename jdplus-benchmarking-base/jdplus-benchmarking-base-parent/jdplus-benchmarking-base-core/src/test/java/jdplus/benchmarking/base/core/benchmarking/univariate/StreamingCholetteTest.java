@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.benchmarking.base.core.benchmarking.univariate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import jdplus.benchmarking.base.api.benchmarking.univariate.Cholette;
+import jdplus.benchmarking.base.api.benchmarking.univariate.CholetteSpec;
+import jdplus.toolkit.base.api.data.AggregationType;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.timeseries.TsPeriod;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class StreamingCholetteTest {
+
+    public StreamingCholetteTest() {
+    }
+
+    private static final int NQ = 40, C = 3;
+    private static final double[] X = new double[NQ * C + 2], Y = new double[NQ];
+
+    static {
+        for (int i = 0; i < X.length; ++i) {
+            X[i] = 100 + i * 0.5 + 5 * Math.sin(i * 0.7);
+        }
+        for (int k = 0; k < NQ; ++k) {
+            double s = 0;
+            for (int i = 0; i < C; ++i) {
+                s += X[k * C + i];
+            }
+            Y[k] = s * (1.02 + 0.03 * Math.cos(k));
+        }
+    }
+
+    @Test
+    public void testFull() {
+        for (double rho : new double[]{1, .8}) {
+            for (AggregationType type : new AggregationType[]{AggregationType.Sum, AggregationType.Last}) {
+                CholetteSpec spec = CholetteSpec.builder()
+                        .rho(rho)
+                        .aggregationType(type)
+                        .build();
+                double[] y = Y.clone();
+                if (type == AggregationType.Last) {
+                    for (int k = 0; k < NQ; ++k) {
+                        y[k] /= C;
+                    }
+                }
+                StreamingCholette cholette = new StreamingCholette(spec, C, 0, Integer.MAX_VALUE);
+                double[] s = cholette.process(DoubleSeq.of(X), DoubleSeq.of(y));
+                TsData b = Cholette.benchmark(TsData.ofInternal(TsPeriod.monthly(2000, 1), X),
+                        TsData.ofInternal(TsPeriod.quarterly(2000, 1), y), spec);
+                assertTrue(DoubleSeq.of(s).distance(b.getValues()) < 1e-9 * b.getValues().norm2());
+            }
+        }
+    }
+
+    @Test
+    public void testStreaming() throws IOException, ClassNotFoundException {
+        CholetteSpec spec = CholetteSpec.builder()
+                .rho(.9)
+                .build();
+        int lag = 24;
+        StreamingCholette cholette = new StreamingCholette(spec, C, 0, lag);
+        // an update only returns the new or revised values
+        double[] s = new double[X.length];
+        double[] cur = cholette.process(DoubleSeq.of(X).range(0, 60), DoubleSeq.of(Y).range(0, 19));
+        System.arraycopy(cur, 0, s, cholette.getRevisionStart(), cur.length);
+        int ny = 19;
+        for (int t = 60; t < X.length; ++t) {
+            // the benchmarks are available two months after the end of the quarter
+            int nnew = 0;
+            while (ny + nnew < NQ && (ny + nnew + 1) * C + 1 <= t) {
+                ++nnew;
+            }
+            cur = cholette.update(DoubleSeq.of(X).range(t, t + 1), DoubleSeq.of(Y).range(ny, ny + nnew));
+            assertEquals(t + 1, cholette.getRevisionStart() + cur.length);
+            System.arraycopy(cur, 0, s, cholette.getRevisionStart(), cur.length);
+            ny += nnew;
+            // only the data that can be revised are kept
+            assertTrue(cholette.getLength() - cholette.getStart() <= lag + 3 * C);
+            if (t == 90) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(cholette.checkpoint());
+                }
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                    cholette = StreamingCholette.of((StreamingCholette.Checkpoint) in.readObject());
+                }
+            }
+        }
+        for (int k = 0; k < ny; ++k) {
+            assertEquals(Y[k], DoubleSeq.of(s).extract(k * C, C).sum(), 1e-6);
+        }
+        double[] f = new StreamingCholette(spec, C, 0, Integer.MAX_VALUE).process(DoubleSeq.of(X), DoubleSeq.of(Y).range(0, ny));
+        assertTrue(DoubleSeq.of(s).distance(DoubleSeq.of(f)) < 1e-3 * DoubleSeq.of(f).norm2());
+        assertEquals(X.length, cholette.getLength());
+        assertEquals(X.length - cholette.getRevisionStart(), cholette.getFiltered().length);
+    }
+}
@@ -16,17 +16,30 @@
  */
 package jdplus.benchmarking.base.core.calendarization;
 
+import jdplus.benchmarking.base.api.calendarization.Calendarization;
+import jdplus.benchmarking.base.api.calendarization.CalendarizationPanelResults;
 import jdplus.benchmarking.base.api.calendarization.CalendarizationResults;
 import jdplus.benchmarking.base.api.calendarization.CalendarizationSpec;
+import jdplus.benchmarking.base.core.ssf.SsfCalendarization;
+import jdplus.benchmarking.base.core.ssf.SsfCalendarizationEx;
+import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.api.timeseries.CalendarPeriodObs;
 import jdplus.toolkit.base.api.timeseries.CalendarTimeSeries;
+import jdplus.toolkit.base.api.timeseries.TsData;
 import jdplus.toolkit.base.api.timeseries.TsUnit;
+import jdplus.toolkit.base.core.ssf.dk.DkToolkit;
+import jdplus.toolkit.base.core.ssf.univariate.DefaultSmoothingResults;
+import jdplus.toolkit.base.core.ssf.univariate.ISsf;
+import jdplus.toolkit.base.core.ssf.univariate.SsfData;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -117,6 +130,142 @@ public class CalendarizationProcessorTest {
         
     }
 
+    private static List<CalendarTimeSeries> panel(int m) {
+        List<CalendarTimeSeries> all = new ArrayList<>();
+        for (int k = 0; k < m; ++k) {
+            List<CalendarPeriodObs> data = new ArrayList<>();
+            LocalDate cur = LocalDate.of(2009, Month.FEBRUARY, 18 + k % 5);
+            for (int i = 0; i < 12 + k % 4; ++i) {
+                LocalDate next = cur.plusDays(25 + (i + k) % 7);
+                data.add(CalendarPeriodObs.of(cur, next, 5000 + 100 * k + 1000 * Math.sin(i)));
+                cur = next;
+            }
+            all.add(CalendarTimeSeries.of(data));
+        }
+        return all;
+    }
+
+    @Test
+    public void testConcurrent() {
+        // one model of each kind, shared by all the threads
+        int n = 400, m = 13;
+        int[] starts = IntStream.rangeClosed(0, m).map(i -> 30 * i).toArray();
+        int[] astarts = IntStream.range(0, m).map(i -> 31 * i).toArray();
+        double[] w = new double[n];
+        double[] pattern = {.6, .8, 1, 1.2, 1.8, 1.6, 0};
+        for (int i = 0; i < n; ++i) {
+            w[i] = pattern[i % 7];
+        }
+        double[] x = new double[n];
+        Arrays.fill(x, Double.NaN);
+        for (int i = 1; i <= m; ++i) {
+            x[starts[i] - 1] = 5000 + 1000 * Math.sin(i);
+        }
+        SsfData data = new SsfData(DoubleSeq.of(x));
+        ISsf ssf = SsfCalendarization.of(starts, w, 1e-4);
+        ISsf ssfex = SsfCalendarizationEx.of(starts, astarts, w, 1e-4);
+        DefaultSmoothingResults seq = DkToolkit.sqrtSmooth(ssf, data, true, true);
+        DefaultSmoothingResults seqex = DkToolkit.sqrtSmooth(ssfex, data, true, true);
+        IntStream.range(0, 40)
+                .parallel()
+                .forEach(i -> {
+                    if (i % 2 == 0) {
+                        DefaultSmoothingResults par = DkToolkit.sqrtSmooth(ssf, data, true, true);
+                        assertArrayEquals(seq.getComponent(1).toArray(), par.getComponent(1).toArray());
+                        assertArrayEquals(seq.getComponentVariance(1).toArray(), par.getComponentVariance(1).toArray());
+                    } else {
+                        DefaultSmoothingResults par = DkToolkit.sqrtSmooth(ssfex, data, true, true);
+                        for (int j = 0; j < 3; ++j) {
+                            assertArrayEquals(seqex.getComponent(j).toArray(), par.getComponent(j).toArray());
+                            assertArrayEquals(seqex.getComponentVariance(j).toArray(), par.getComponentVariance(j).toArray());
+                        }
+                    }
+                });
+    }
+
+    private static void assertEqualSeries(TsData s, TsData t) {
+        if (s == null) {
+            assertNull(t);
+        } else {
+            assertEquals(s.getStart(), t.getStart());
+            assertArrayEquals(s.getValues().toArray(), t.getValues().toArray());
+        }
+    }
+
+    private static void assertEqualSeries(TsData s, TsData t, double eps) {
+        if (s == null) {
+            assertNull(t);
+        } else {
+            assertEquals(s.getStart(), t.getStart());
+            assertEquals(s.length(), t.length());
+            for (int i = 0; i < s.length(); ++i) {
+                double x = s.getValue(i), y = t.getValue(i);
+                assertEquals(x, y, eps * Math.max(1, Math.abs(x)));
+            }
+        }
+    }
+
+    @Test
+    public void testPanel() {
+        List<CalendarTimeSeries> all = panel(50);
+        CalendarizationProcessor processor = CalendarizationProcessor.PROCESSOR;
+        // default (sequential) implementation of the panel processing
+        Calendarization.Processor sprocessor = processor::process;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (TsUnit unit : new TsUnit[]{TsUnit.UNDEFINED, TsUnit.QUARTER}) {
+                for (boolean stdev : new boolean[]{false, true}) {
+                    CalendarizationSpec spec = CalendarizationSpec.builder()
+                            .stdev(stdev)
+                            .aggregationUnit(unit)
+                            .dailyWeights(new double[]{.6, .8, 1, 1.2, 1.8, 1.6, 0})
+                            .build();
+                    CalendarizationPanelResults rslts = processor.process(all, spec, pool);
+                    CalendarizationPanelResults srslts = sprocessor.process(all, spec, pool);
+                    assertEquals(all.size(), rslts.size());
+                    assertEquals(all.size(), srslts.size());
+                    for (int i = 0; i < all.size(); ++i) {
+                        CalendarizationResults cur = processor.process(all.get(i), spec);
+                        for (CalendarizationResults pcur : new CalendarizationResults[]{rslts.get(i), srslts.get(i)}) {
+                            assertEquals(cur.getStart(), pcur.getStart());
+                            assertArrayEquals(cur.getDailyData(), pcur.getDailyData());
+                            assertArrayEquals(cur.getDailyStdev(), pcur.getDailyStdev());
+                            assertEqualSeries(cur.getAggregatedSeries(), pcur.getAggregatedSeries());
+                            assertEqualSeries(cur.getStdevAggregatedSeries(), pcur.getStdevAggregatedSeries());
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testAggregatedOutput() {
+        CalendarTimeSeries series = panel(1).get(0);
+        for (double[] weights : new double[][]{null, {.6, .8, 1, 1.2, 1.8, 1.6, 0}}) {
+            for (boolean stdev : new boolean[]{false, true}) {
+                CalendarizationSpec spec = CalendarizationSpec.builder()
+                        .stdev(stdev)
+                        .aggregationUnit(TsUnit.MONTH)
+                        .dailyWeights(weights)
+                        .build();
+                CalendarizationResults all = CalendarizationProcessor.PROCESSOR.process(series, spec);
+                CalendarizationResults agg = CalendarizationProcessor.PROCESSOR.process(series,
+                        spec.toBuilder().output(CalendarizationSpec.Output.Aggregated).build());
+                assertNull(agg.getDailyData());
+                assertNull(agg.getDailyStdev());
+                // the aggregated stdevs are computed by a different smoother
+                assertEqualSeries(all.getAggregatedSeries(), agg.getAggregatedSeries(), 1e-6);
+                assertEqualSeries(all.getStdevAggregatedSeries(), agg.getStdevAggregatedSeries(), 1e-6);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> CalendarizationSpec.builder()
+                .output(CalendarizationSpec.Output.Aggregated)
+                .build());
+    }
+
 //    @Test
     public void testLegacy() {
         ec.benchmarking.simplets.Calendarization cal = new ec.benchmarking.simplets.Calendarization();
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 National Bank of Belgium.
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ *      https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jdplus.benchmarking.base.core.calendarization;
+
+import jdplus.benchmarking.base.core.ssf.SsfCalendarization;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.data.DataBlockStorage;
+import jdplus.toolkit.base.core.ssf.dk.DkToolkit;
+import jdplus.toolkit.base.core.ssf.univariate.SsfData;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class CollapsedCalendarizationTest {
+
+    public CollapsedCalendarizationTest() {
+    }
+
+    @Test
+    public void testSsf() {
+        // 10 periods of irregular lengths, with a gap, preceded and followed
+        // by unobserved days
+        int n = 400, m = 10;
+        int[] starts = new int[m + 1], ends = new int[m];
+        double[] y = new double[m], x = new double[n];
+        for (int i = 0; i < n; ++i) {
+            x[i] = Double.NaN;
+        }
+        for (int k = 0, t = 15; k < m; ++k) {
+            starts[k] = t;
+            ends[k] = t + 27 + (k * 5) % 7;
+            y[k] = 1000 * (ends[k] - t + 1) + 2000 * Math.sin(k);
+            x[ends[k]] = y[k];
+            t = ends[k] + (k == 4 ? 10 : 1);
+        }
+        starts[m] = ends[m - 1] + 1;
+        double[] w = new double[n];
+        for (int i = 0; i < n; ++i) {
+            w[i] = new double[]{.6, .8, 1, 1.2, 1.8, 1.6, 0.1}[i % 7];
+        }
+        for (double[] cw : new double[][]{null, w}) {
+            double[] c = CollapsedCalendarization.process(starts, ends, y, cw, n);
+            DataBlockStorage rslt = DkToolkit.fastSmooth(SsfCalendarization.of(starts, cw, 1e-4), new SsfData(DoubleSeq.of(x)));
+            DoubleSeq s = rslt.item(1);
+            assertTrue(s.distance(DoubleSeq.of(c)) < 1e-6 * s.norm2());
+            for (int k = 0; k < m; ++k) {
+                double q = 0;
+                for (int i = starts[k]; i <= ends[k]; ++i) {
+                    q += cw == null ? c[i] : cw[i] * c[i];
+                }
+                assertEquals(y[k], q, 1e-6 * Math.abs(y[k]));
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package jdplus.benchmarking.base.core.univariate;
 
+import internal.ssf.MultiFastDkSmoother;
 import jdplus.benchmarking.base.api.univariate.AlgorithmSpec;
 import jdplus.benchmarking.base.api.univariate.ModelSpec;
 import jdplus.benchmarking.base.api.univariate.RawDisaggregationSpec;
@@ -24,7 +25,17 @@ import jdplus.toolkit.base.api.data.AggregationType;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.toolkit.base.api.data.Parameter;
 import jdplus.toolkit.base.api.ssf.SsfInitialization;
+import jdplus.toolkit.base.core.data.DataBlock;
 import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import jdplus.toolkit.base.core.ssf.DataBlockResults;
+import jdplus.toolkit.base.core.ssf.ISsfLoading;
+import jdplus.toolkit.base.core.ssf.arima.Rw;
+import jdplus.toolkit.base.core.ssf.benchmarking.SsfCumulator;
+import jdplus.toolkit.base.core.ssf.dk.DefaultDiffuseFilteringResults;
+import jdplus.toolkit.base.core.ssf.dk.DkToolkit;
+import jdplus.toolkit.base.core.ssf.dk.FastDkSmoother;
+import jdplus.toolkit.base.core.ssf.univariate.Ssf;
+import jdplus.toolkit.base.core.ssf.univariate.SsfData;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import tck.demetra.data.Data;
@@ -100,6 +111,33 @@ public class RawDisaggregationProcessorTest {
 //        System.out.println(rslt2.getConcentratedLikelihood().logLikelihood());
     }
     
+    @Test
+    public void testMultiSmoother() {
+        double[] y = new double[Data.IND_PCR.length];
+        for (int i = 0; i < y.length; ++i) {
+            y[i] = i % 4 == 3 && i / 4 < Data.PCRA.length ? Data.PCRA[i / 4] : Double.NaN;
+        }
+        ISsfLoading nloading = Rw.defaultLoading();
+        Ssf cssf = Ssf.of(SsfCumulator.of(Rw.of(1, false), nloading, 4, 0),
+                SsfCumulator.defaultLoading(nloading, 4, 0));
+        DefaultDiffuseFilteringResults frslts = DkToolkit.filter(cssf, new SsfData(y), true);
+        FastMatrix X = FastMatrix.make(y.length, 3);
+        X.column(0).copy(DoubleSeq.of(Data.IND_PCR));
+        X.column(1).set(i -> Math.log(Data.IND_PCR[i]));
+        X.column(2).set(i -> i % 4);
+        FastMatrix LX = FastMatrix.make(y.length, 3);
+        new MultiFastDkSmoother(cssf, frslts).smooth(X,
+                (pos, states) -> LX.row(pos).set(j -> states.get(1, j)));
+        for (int j = 0; j < 3; ++j) {
+            FastDkSmoother fsmoother = new FastDkSmoother(cssf, frslts);
+            fsmoother.smooth(X.column(j));
+            DataBlockResults ss = fsmoother.smoothedStates();
+            DataBlock lx = DataBlock.make(y.length);
+            lx.set(i -> ss.datablock(i).get(1));
+            assertTrue(lx.distance(LX.column(j)) < 1e-9 * lx.norm2());
+        }
+    }
+
    @Test
     public void testAR1() {
         DoubleSeq y=DoubleSeq.of(Data.PCRA);